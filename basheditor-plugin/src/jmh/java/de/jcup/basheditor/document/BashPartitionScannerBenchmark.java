@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creation of a partition scanner, done for every opened document.
+ * "scannerConstruction" uses the shared rules, "ruleSetConstruction" creates
+ * a complete rule set - as every scanner did before the rules were shared.
+ * Allocation per operation is reported by the gc profiler (see
+ * build.gradle).
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BashPartitionScannerBenchmark {
+
+	@Benchmark
+	public BashDocumentPartitionScanner scannerConstruction() {
+		return new BashDocumentPartitionScanner();
+	}
+
+	@Benchmark
+	public IPredicateRule[] ruleSetConstruction() {
+		return BashPartitionRules.createRules();
+	}
+}
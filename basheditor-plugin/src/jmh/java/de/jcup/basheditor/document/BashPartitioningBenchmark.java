@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentPartitioner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures partitioning of bash scripts with plain documents - no workbench
+ * or display necessary. Allocation rate is measured by the gc profiler (see
+ * build.gradle).<br>
+ * <br>
+ * Scripts are either the test scripts of "basheditor-other/testscripts"
+ * (concatenated) or generated scripts. Executables of $PATH are not known
+ * here, so executable command rule finds nothing.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BashPartitioningBenchmark {
+
+	private static final String SYSTEM_PROPERTY_TESTSCRIPTS = "basheditor.testscripts";
+
+	@State(Scope.Benchmark)
+	public static class ScriptState {
+
+		@Param({ "corpus", "synthetic-small", "synthetic-large" })
+		public String script;
+
+		@Param({ "rules", "lexer" })
+		public String partitioning;
+
+		private String text;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			System.setProperty(BashPartionerFactory.SYSTEM_PROPERTY_LEXER_PARTITIONING,
+					Boolean.toString("lexer".equals(partitioning)));
+			text = createScript(script);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class EditState {
+
+		@Param({ "start", "middle", "end" })
+		public String position;
+
+		/*
+		 * a letter changes one partition, a quote all following ones - up to
+		 * the damage limit of the partitioner
+		 */
+		@Param({ "letter", "quote" })
+		public String edit;
+
+		private IDocument document;
+		private int offset;
+		private String insertion;
+		private boolean inserted;
+
+		@Setup(Level.Trial)
+		public void setup(ScriptState scriptState) throws BadLocationException {
+			document = createPartitionedDocument(scriptState.text);
+			insertion = "quote".equals(edit) ? "\"" : "x";
+			offset = resolveLineStart(document, position);
+			inserted = false;
+		}
+	}
+
+	@Benchmark
+	public IDocument fullPartitioning(ScriptState scriptState) {
+		return createPartitionedDocument(scriptState.text);
+	}
+
+	/**
+	 * Inserts a character and removes it again with next invocation, so
+	 * document content alternates between two states
+	 */
+	@Benchmark
+	public IDocument singleCharEdit(EditState editState) throws BadLocationException {
+		IDocument document = editState.document;
+		if (editState.inserted) {
+			document.replace(editState.offset, 1, "");
+		} else {
+			document.replace(editState.offset, 0, editState.insertion);
+		}
+		editState.inserted = !editState.inserted;
+		return document;
+	}
+
+	/**
+	 * Like {@link #singleCharEdit(EditState)}, but repartitions also what the
+	 * damage limit has left - as the editor does when typing has paused
+	 */
+	@Benchmark
+	public IDocument singleCharEditAndFinish(EditState editState) throws BadLocationException {
+		IDocument document = singleCharEdit(editState);
+		((BashPartitioner) document.getDocumentPartitioner()).finishPartitioning();
+		return document;
+	}
+
+	static IDocument createPartitionedDocument(String text) {
+		Document document = new Document(text);
+		IDocumentPartitioner partitioner = BashPartionerFactory.create();
+		partitioner.connect(document);
+		document.setDocumentPartitioner(partitioner);
+		return document;
+	}
+
+	static int resolveLineStart(IDocument document, String position) throws BadLocationException {
+		int lines = document.getNumberOfLines();
+		int line;
+		if ("start".equals(position)) {
+			/* after sha bang */
+			line = Math.min(1, lines - 1);
+		} else if ("middle".equals(position)) {
+			line = lines / 2;
+		} else if ("end".equals(position)) {
+			line = lines - 1;
+		} else {
+			throw new IllegalArgumentException("Unknown position:" + position);
+		}
+		return document.getLineOffset(line);
+	}
+
+	static String createScript(String script) throws IOException {
+		if ("corpus".equals(script)) {
+			return readCorpus();
+		}
+		if ("synthetic-small".equals(script)) {
+			return createSyntheticScript(100);
+		}
+		if ("synthetic-large".equals(script)) {
+			return createSyntheticScript(5000);
+		}
+		throw new IllegalArgumentException("Unknown script:" + script);
+	}
+
+	private static String readCorpus() throws IOException {
+		String path = System.getProperty(SYSTEM_PROPERTY_TESTSCRIPTS, "../basheditor-other/testscripts");
+		File folder = new File(path);
+		File[] files = folder.listFiles();
+		if (files == null) {
+			throw new IOException("Test scripts not found at:" + folder.getAbsolutePath());
+		}
+		Arrays.sort(files);
+		StringBuilder sb = new StringBuilder();
+		for (File file : files) {
+			if (!file.getName().endsWith(".sh")) {
+				continue;
+			}
+			sb.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Creates script containing given amount of blocks with functions,
+	 * strings, comments, variables and parameters - each block has 12 lines
+	 */
+	private static String createSyntheticScript(int blocks) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("#!/bin/bash\n");
+		for (int i = 0; i < blocks; i++) {
+			sb.append("# block ").append(i).append(" - generated for benchmark\n");
+			sb.append("function f_").append(i).append("() {\n");
+			sb.append("\tlocal name=\"value $1 ${HOME}\"\n");
+			sb.append("\tif [ -f \"$name\" ]; then\n");
+			sb.append("\t\techo 'single quoted' `date` --verbose -x\n");
+			sb.append("\telse\n");
+			sb.append("\t\tcat $name | grep -i \"pattern\" > /dev/null\n");
+			sb.append("\tfi\n");
+			sb.append("}\n");
+			sb.append("export VAR_").append(i).append("=$PATH\n");
+			sb.append("f_").append(i).append(" \"$@\"\n");
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
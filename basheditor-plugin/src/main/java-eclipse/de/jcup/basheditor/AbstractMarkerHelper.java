@@ -15,7 +15,10 @@
  */
 package de.jcup.basheditor;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.resources.IMarker;
@@ -30,133 +33,120 @@ import org.eclipse.ui.texteditor.MarkerUtilities;
 abstract class AbstractMarkerHelper {
 	protected String markerType;
 
-	private IMarker findMarker(IResource resource, String message, int lineNumber, String type) throws CoreException {
-		IMarker[] marker = resource.findMarkers(type, true, IResource.DEPTH_ZERO);
-		for (int i = 0; i < marker.length; i++) {
-			IMarker currentMarker = marker[i];
-			if (currentMarker == null) {
-				continue;
-			}
-			Object lineNrAttribute = currentMarker.getAttribute(IMarker.LINE_NUMBER);
-			String markerLineNumber = null;
-			if (lineNrAttribute != null) {
-				markerLineNumber = lineNrAttribute.toString();
-			}
-			Object messageAttribute = currentMarker.getAttribute(IMarker.MESSAGE);
-			String markerMessage = null;
-			if (messageAttribute != null) {
-				markerMessage = messageAttribute.toString();
-			}
-			boolean sameMessageAndLineNr = SimpleStringUtils.equals(markerLineNumber, String.valueOf(lineNumber))
-					&& SimpleStringUtils.equals(markerMessage, message);
-			if (sameMessageAndLineNr) {
-				return currentMarker;
-			}
-		}
-		return null;
-	}
-
-	public void createErrorMarker(IResource resource, String message, int lineNumber) throws CoreException {
-		createErrorMarker(resource, message, lineNumber, -1, -1);
-	}
-
-	public void createErrorMarker(IResource resource, String message, int lineNumber, int charStart, int charEnd)
-			throws CoreException {
-		createMarker(resource, message, lineNumber, markerType, IMarker.SEVERITY_ERROR, charStart, charEnd);
-	}
-
-	private void createMarker(IResource resource, String message, int lineNumber, String markerType, int severity,
-			int charStart, int charEnd) throws CoreException {
-		if (lineNumber <= 0)
-			lineNumber = 1;
-		IMarker marker = findMarker(resource, message, lineNumber, markerType);
-		if (marker == null) {
-			HashMap<String, Object> map = new HashMap<>();
-			map.put(IMarker.SEVERITY, new Integer(severity));
-			map.put(IMarker.LOCATION, resource.getFullPath().toOSString());
-			map.put(IMarker.MESSAGE, message);
-			MarkerUtilities.setLineNumber(map, lineNumber);
-			MarkerUtilities.setMessage(map, message);
-			if (charStart != -1) {
-				MarkerUtilities.setCharStart(map, charStart);
-				MarkerUtilities.setCharEnd(map, charEnd);
-			}
-			internalCreateMarker(resource, map, markerType);
+	private Map<String, Object> createAttributes(IResource resource, String message, int lineNumber, int severity,
+			int charStart, int charEnd) {
+		HashMap<String, Object> map = new HashMap<>();
+		map.put(IMarker.SEVERITY, new Integer(severity));
+		map.put(IMarker.LOCATION, resource.getFullPath().toOSString());
+		map.put(IMarker.MESSAGE, message);
+		MarkerUtilities.setLineNumber(map, lineNumber);
+		MarkerUtilities.setMessage(map, message);
+		if (charStart != -1) {
+			MarkerUtilities.setCharStart(map, charStart);
+			MarkerUtilities.setCharEnd(map, charEnd);
 		}
+		return map;
 	}
 
 	/**
-	 * Creates a marker on the given resource with the given type and
-	 * attributes.
-	 * <p>
-	 * This method modifies the workspace (progress is not reported to the
-	 * user).
-	 * </p>
-	 *
+	 * Updates error markers of given resource so they are same as given
+	 * definitions. Existing markers are compared to the definitions by char
+	 * range and message, only differences are applied - all inside one
+	 * workspace operation. When nothing has changed, the workspace is not
+	 * touched at all.
+	 * 
 	 * @param resource
-	 *            the resource
-	 * @param attributes
-	 *            the attribute map
-	 * @param markerType
-	 *            the type of marker
+	 * @param definitions
 	 * @throws CoreException
-	 *             if this method fails
-	 * @see IResource#createMarker(java.lang.String)
 	 */
-	private void internalCreateMarker(final IResource resource, final Map<String, Object> attributes,
-			final String markerType) throws CoreException {
-
+	public void updateErrorMarkers(final IResource resource, Collection<MarkerDefinition> definitions)
+			throws CoreException {
+		if (resource == null) {
+			return;
+		}
+		Map<String, IMarker> existingMarkers = new HashMap<>();
+		final List<IMarker> markersToDelete = new ArrayList<>();
+		for (IMarker marker : resource.findMarkers(markerType, true, IResource.DEPTH_ZERO)) {
+			String key = createKey(marker.getAttribute(IMarker.CHAR_START, -1), marker.getAttribute(IMarker.CHAR_END, -1),
+					marker.getAttribute(IMarker.MESSAGE, null));
+			if (existingMarkers.containsKey(key)) {
+				/* duplicate */
+				markersToDelete.add(marker);
+			} else {
+				existingMarkers.put(key, marker);
+			}
+		}
+		final List<Map<String, Object>> markersToCreate = new ArrayList<>();
+		for (MarkerDefinition definition : definitions) {
+			String key = createKey(definition.charStart, definition.charEnd, definition.message);
+			if (existingMarkers.remove(key) != null) {
+				/* unchanged */
+				continue;
+			}
+			int lineNumber = definition.lineNumber;
+			if (lineNumber <= 0) {
+				lineNumber = 1;
+			}
+			markersToCreate.add(createAttributes(resource, definition.message, lineNumber, IMarker.SEVERITY_ERROR,
+					definition.charStart, definition.charEnd));
+			/* same definition twice shall not create two markers */
+			existingMarkers.put(key, null);
+		}
+		for (IMarker marker : existingMarkers.values()) {
+			if (marker != null) {
+				markersToDelete.add(marker);
+			}
+		}
+		if (markersToDelete.isEmpty() && markersToCreate.isEmpty()) {
+			return;
+		}
 		IWorkspaceRunnable r = new IWorkspaceRunnable() {
 			@Override
 			public void run(IProgressMonitor monitor) throws CoreException {
-				IMarker marker = resource.createMarker(markerType);
-				marker.setAttributes(attributes);
-				handleMarkerAdded(marker);
-
+				for (IMarker marker : markersToDelete) {
+					if (marker.exists()) {
+						marker.delete();
+					}
+					handleMarkerRemoved(marker);
+				}
+				for (Map<String, Object> attributes : markersToCreate) {
+					IMarker marker = resource.createMarker(markerType);
+					marker.setAttributes(attributes);
+					handleMarkerAdded(marker);
+				}
 			}
 		};
 
 		resource.getWorkspace().run(r, null, IWorkspace.AVOID_UPDATE, null);
 	}
 
+	private String createKey(int charStart, int charEnd, String message) {
+		return charStart + ":" + charEnd + ":" + message;
+	}
+
 	protected void handleMarkerAdded(IMarker marker) {
 		/* do nothing per default */
 	}
 
-	/**
-	 * Removes all markers from this file having defined marker type
-	 * 
-	 * @param resource
-	 */
-	public void removeMarkers(IResource resource) {
-		if (resource == null) {
-			return;
-		}
-		removeMarkers(resource, markerType);
-
+	protected void handleMarkerRemoved(IMarker marker) {
+		/* do nothing per default */
 	}
 
-	private IMarker[] removeMarkers(IResource resource, String markerType) {
-		if (resource == null) {
-			/* maybe sync problem - guard close */
-			return new IMarker[] {};
-		}
-		IMarker[] tasks = null;
-		if (resource != null) {
-			try {
-				tasks = resource.findMarkers(markerType, true, IResource.DEPTH_ZERO);
-				for (int i = 0; i < tasks.length; i++) {
-					tasks[i].delete();
-				}
-
-			} catch (CoreException e) {
-				EclipseUtil.logError("Was not able to delete markers", e);
-			}
-		}
-		if (tasks == null) {
-			tasks = new IMarker[] {};
+	/**
+	 * Definition of a marker to create
+	 */
+	static class MarkerDefinition {
+		private String message;
+		private int lineNumber;
+		private int charStart;
+		private int charEnd;
+
+		MarkerDefinition(String message, int lineNumber, int charStart, int charEnd) {
+			this.message = message;
+			this.lineNumber = lineNumber;
+			this.charStart = charStart;
+			this.charEnd = charEnd;
 		}
-		return tasks;
 	}
 
 }
\ No newline at end of file
@@ -18,25 +18,42 @@ package de.jcup.basheditor;
 import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
 import static de.jcup.basheditor.preferences.BashEditorValidationPreferenceConstants.*;
 
+import java.io.File;
+import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IResourceChangeEvent;
-import org.eclipse.core.resources.IResourceChangeListener;
-import org.eclipse.core.resources.IResourceDelta;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.IStatusLineManager;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentRewriteSession;
+import org.eclipse.jface.text.DocumentRewriteSessionType;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.IRewriteTarget;
+import org.eclipse.jface.text.ITextViewerExtension2;
 import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.jface.text.source.ISourceViewerExtension2;
+import org.eclipse.jface.text.source.IVerticalRuler;
 import org.eclipse.jface.text.source.SourceViewerConfiguration;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+import org.eclipse.jface.text.source.projection.ProjectionSupport;
+import org.eclipse.jface.text.source.projection.ProjectionViewer;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.ITreeContentProvider;
@@ -46,6 +63,11 @@ import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.TextEdit;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorSite;
 import org.eclipse.ui.IFileEditorInput;
@@ -54,12 +76,12 @@ import org.eclipse.ui.PartInitException;
 import org.eclipse.ui.contexts.IContextService;
 import org.eclipse.ui.editors.text.TextEditor;
 import org.eclipse.ui.ide.FileStoreEditorInput;
-import org.eclipse.ui.ide.ResourceUtil;
 import org.eclipse.ui.texteditor.IDocumentProvider;
 import org.eclipse.ui.texteditor.SourceViewerDecorationSupport;
 import org.eclipse.ui.views.contentoutline.IContentOutlinePage;
 
 import de.jcup.basheditor.document.BashFileDocumentProvider;
+import de.jcup.basheditor.document.BashPartitioner;
 import de.jcup.basheditor.document.BashTextFileDocumentProvider;
 import de.jcup.basheditor.outline.BashEditorContentOutlinePage;
 import de.jcup.basheditor.outline.BashEditorTreeContentProvider;
@@ -67,12 +89,16 @@ import de.jcup.basheditor.outline.BashQuickOutlineDialog;
 import de.jcup.basheditor.outline.Item;
 import de.jcup.basheditor.preferences.BashEditorPreferences;
 import de.jcup.basheditor.script.BashError;
-import de.jcup.basheditor.script.BashFunction;
+import de.jcup.basheditor.script.BashFoldingRegion;
+import de.jcup.basheditor.script.BashFoldingRegionBuilder;
 import de.jcup.basheditor.script.BashScriptModel;
-import de.jcup.basheditor.script.BashScriptModelBuilder;
+import de.jcup.basheditor.script.BashScriptTimings;
+import de.jcup.basheditor.script.BashSemanticHighlighting;
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+import de.jcup.basheditor.script.BashSymbolIndex;
 
 @AdaptedFromEGradle
-public class BashEditor extends TextEditor implements StatusMessageSupport, IResourceChangeListener {
+public class BashEditor extends TextEditor implements StatusMessageSupport {
 
 	/** The COMMAND_ID of this editor as defined in plugin.xml */
 	public static final String EDITOR_ID = "org.basheditor.editors.BashEditor";
@@ -80,28 +106,28 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 	public static final String EDITOR_CONTEXT_MENU_ID = EDITOR_ID + ".context";
 	/** The COMMAND_ID of the editor ruler context menu */
 	public static final String EDITOR_RULER_CONTEXT_MENU_ID = EDITOR_CONTEXT_MENU_ID + ".ruler";
+	/* below this amount of changed lines single document events are cheaper than a rewrite session */
+	private static final int REWRITE_SESSION_LINE_THRESHOLD = 50;
 
 	private BashBracketsSupport bracketMatcher = new BashBracketsSupport();
 	private SourceViewerDecorationSupport additionalSourceViewerSupport;
 	private BashEditorContentOutlinePage outlinePage;
-	private BashScriptModelBuilder modelBuilder;
 	private Object monitor = new Object();
 	private boolean quickOutlineOpened;
 	private int lastCaretPosition;
+	private Job modelUpdateJob;
+	private AtomicLong modelRequestCounter = new AtomicLong();
+	private BashProblemAnnotationSupport problemAnnotationSupport = new BashProblemAnnotationSupport();
+	private BashFoldingRegionBuilder foldingRegionBuilder = new BashFoldingRegionBuilder();
+	private BashFoldingSupport foldingSupport = new BashFoldingSupport();
+	private ProjectionSupport projectionSupport;
+	private BashOccurrencesSupport occurrencesSupport = new BashOccurrencesSupport(this);
+	private BashSemanticHighlightingSupport semanticHighlightingSupport = new BashSemanticHighlightingSupport();
 	
 	public BashEditor() {
 		setSourceViewerConfiguration(new BashSourceViewerConfiguration(this));
-		this.modelBuilder = new BashScriptModelBuilder();
 	}
 
-	public void resourceChanged(IResourceChangeEvent event) {
-		if (isMarkerChangeForThisEditor(event)) {
-			int severity = getSeverity();
-
-			setTitleImageDependingOnSeverity(severity);
-		}
-	}
-	
 	/**
 	 * Opens quick outline
 	 */
@@ -117,7 +143,7 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 			quickOutlineOpened = true;
 		}
 		Shell shell = getEditorSite().getShell();
-		BashScriptModel model = buildModelWithoutValidation();
+		BashScriptModel model = getModelServices().getModel(getDocument());
 		BashQuickOutlineDialog dialog = new BashQuickOutlineDialog(this, shell, "Quick outline");
 		dialog.setInput(model);
 		
@@ -127,19 +153,6 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		}
 	}
 
-	private BashScriptModel buildModelWithoutValidation() {
-		String text = getDocumentText();
-		
-		/* for quick outline create own model and ignore any validations */
-		modelBuilder.setIgnoreBlockValidation(true);
-		modelBuilder.setIgnoreDoValidation(true);
-		modelBuilder.setIgnoreIfValidation(true);
-		modelBuilder.setIgnoreFunctionValidation(true);
-		
-		BashScriptModel model = modelBuilder.build(text);
-		return model;
-	}
-
 	void setTitleImageDependingOnSeverity(int severity) {
 		if (severity == IMarker.SEVERITY_ERROR) {
 			setTitleImage(EclipseUtil.getImage("icons/bash-editor-with-error.png", BashEditorActivator.PLUGIN_ID));
@@ -148,47 +161,6 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		}
 	}
 
-	private int getSeverity() {
-		IEditorInput editorInput = getEditorInput();
-		if (editorInput == null) {
-			return IMarker.SEVERITY_INFO;
-		}
-		try {
-			final IResource resource = ResourceUtil.getResource(editorInput);
-			if (resource == null) {
-				return IMarker.SEVERITY_INFO;
-			}
-			int severity = resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
-			return severity;
-		} catch (CoreException e) {
-			// Might be a project that is not open
-		}
-		return IMarker.SEVERITY_INFO;
-	}
-
-	private void addErrorMarkers(BashScriptModel model) {
-		if (model == null) {
-			return;
-		}
-		IDocument document = getDocument();
-		if (document==null){
-			return;
-		}
-		Collection<BashError> errors = model.getErrors();
-		for (BashError error : errors) {
-			int startPos = error.getStart();
-			int line;
-			try {
-				line = document.getLineOfOffset(startPos);
-			} catch (BadLocationException e) {
-				EclipseUtil.logError("Cannot get line offset for " + startPos, e);
-				line = 0;
-			}
-			BashEditorUtil.addScriptError(this, line, error);
-		}
-
-	}
-
 	public void setErrorMessage(String message) {
 		super.setStatusLineErrorMessage(message);
 	}
@@ -201,6 +173,9 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 	public void createPartControl(Composite parent) {
 		super.createPartControl(parent);
 
+		installProjectionSupport();
+		semanticHighlightingSupport.install(getSourceViewer());
+
 		Control adapter = getAdapter(Control.class);
 		if (adapter instanceof StyledText) {
 			StyledText text = (StyledText) adapter;
@@ -211,17 +186,37 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		activateBashEditorContext();
 
 		installAdditionalSourceViewerSupport();
+		showLargeFileModeStatus("plain text, outline is built in background");
 
 		StyledText styledText = getSourceViewer().getTextWidget();
 		styledText.addKeyListener(new BashBracketInsertionCompleter(this));
+	}
 
-		/*
-		 * register as resource change listener to provide marker change
-		 * listening
-		 */
-		ResourcesPlugin.getWorkspace().addResourceChangeListener(this);
-
-		setTitleImageInitial();
+	@Override
+	protected ISourceViewer createSourceViewer(Composite parent, IVerticalRuler ruler, int styles) {
+		/* projection viewer is necessary for folding */
+		ISourceViewer viewer = new ProjectionViewer(parent, ruler, getOverviewRuler(), isOverviewRulerVisible(),
+				styles);
+		/* ensure decoration support has been created and configured */
+		getSourceViewerDecorationSupport(viewer);
+		return viewer;
+	}
+
+	private void installProjectionSupport() {
+		ProjectionViewer viewer = (ProjectionViewer) getSourceViewer();
+		projectionSupport = new ProjectionSupport(viewer, getAnnotationAccess(), getSharedColors());
+		projectionSupport.install();
+		/* enable folding */
+		viewer.doOperation(ProjectionViewer.TOGGLE);
+	}
+
+	private void updateFolding(List<BashFoldingRegion> regions) {
+		ISourceViewer sourceViewer = getSourceViewer();
+		if (!(sourceViewer instanceof ProjectionViewer)) {
+			return;
+		}
+		ProjectionAnnotationModel model = ((ProjectionViewer) sourceViewer).getProjectionAnnotationModel();
+		foldingSupport.update(model, getDocument(), regions);
 	}
 
 	public BashEditorContentOutlinePage getOutlinePage() {
@@ -242,17 +237,78 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 
 		additionalSourceViewerSupport = new SourceViewerDecorationSupport(getSourceViewer(), getOverviewRuler(),
 				getAnnotationAccess(), getSharedColors());
+		if (!largeFileMode) {
+			/* in large file mode bracket matching is enabled later */
+			setupBracketMatching();
+		}
+		IPreferenceStore preferenceStoreForDecorationSupport = BashEditorUtil.getPreferences().getPreferenceStore();
+		additionalSourceViewerSupport.install(preferenceStoreForDecorationSupport);
+	}
+
+	private void setupBracketMatching() {
 		additionalSourceViewerSupport.setCharacterPairMatcher(bracketMatcher);
 		additionalSourceViewerSupport.setMatchingCharacterPainterPreferenceKeys(
 				P_EDITOR_MATCHING_BRACKETS_ENABLED.getId(), P_EDITOR_MATCHING_BRACKETS_COLOR.getId(),
 				P_EDITOR_HIGHLIGHT_BRACKET_AT_CARET_LOCATION.getId(), P_EDITOR_ENCLOSING_BRACKETS.getId());
+		bracketMatchingEnabled = true;
+	}
 
-		IPreferenceStore preferenceStoreForDecorationSupport = BashEditorUtil.getPreferences().getPreferenceStore();
-		additionalSourceViewerSupport.install(preferenceStoreForDecorationSupport);
+	/**
+	 * Enables bracket matching for editors in large file mode. Must be called
+	 * inside UI thread.
+	 */
+	private void enableBracketMatchingInLargeFileMode() {
+		if (bracketMatchingEnabled || additionalSourceViewerSupport == null || bracketMatcher == null) {
+			return;
+		}
+		/* reinstall necessary, otherwise painter is not created */
+		additionalSourceViewerSupport.uninstall();
+		setupBracketMatching();
+		additionalSourceViewerSupport.install(BashEditorUtil.getPreferences().getPreferenceStore());
+
+		showLargeFileModeStatus("all features enabled");
+	}
+
+	/**
+	 * @return <code>true</code> when editor works in large file mode - means
+	 *         highlighting only for visible parts and no updates while typing
+	 */
+	public boolean isLargeFileMode() {
+		return largeFileMode;
+	}
+
+	/**
+	 * Toggles large file mode for edited file. The setting is stored at the
+	 * file and used when editor is opened next time.
+	 */
+	public void toggleLargeFileMode() {
+		boolean newMode = !largeFileMode;
+		if (!BashLargeFileSupport.setOverride(getEditorInput(), newMode)) {
+			setErrorMessage("Large file mode can only be changed for files inside workspace");
+			return;
+		}
+		IStatusLineManager statusLineManager = getStatusLineManager();
+		if (statusLineManager != null) {
+			statusLineManager.setMessage("Large file mode will be " + (newMode ? "enabled" : "disabled")
+					+ " for this file when editor is opened again");
+		}
+	}
+
+	private void showLargeFileModeStatus(String state) {
+		if (!largeFileMode) {
+			return;
+		}
+		IStatusLineManager statusLineManager = getStatusLineManager();
+		if (statusLineManager == null) {
+			return;
+		}
+		statusLineManager.setMessage("Large file mode: " + state);
 	}
 
 	@Override
 	public void dispose() {
+		occurrencesSupport.dispose();
+		semanticHighlightingSupport.uninstall();
 		super.dispose();
 
 		if (additionalSourceViewerSupport != null) {
@@ -263,7 +319,7 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 			bracketMatcher = null;
 		}
 
-		ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+		BashEditorActivator.getDefault().getMarkerChangeDispatcher().unregister(this);
 	}
 
 	public String getBackGroundColorAsWeb() {
@@ -307,6 +363,8 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 	private String bgColor;
 	private String fgColor;
 	private boolean ignoreNextCaretMove;
+	private boolean largeFileMode;
+	private boolean bracketMatchingEnabled;
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -340,6 +398,12 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 			}
 			return (T) outlinePage.getContentProvider();
 		}
+		if (projectionSupport != null) {
+			Object projectionAdapter = projectionSupport.getAdapter(getSourceViewer(), adapter);
+			if (projectionAdapter != null) {
+				return (T) projectionAdapter;
+			}
+		}
 		return super.getAdapter(adapter);
 	}
 
@@ -351,24 +415,13 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		bracketMatcher.gotoMatchingBracket(this);
 	}
 
-	/**
-	 * Get document text - safe way.
-	 * 
-	 * @return string, never <code>null</code>
-	 */
-	String getDocumentText() {
-		IDocument doc = getDocument();
-		if (doc == null) {
-			return "";
-		}
-		return doc.get();
-	}
-
 	@Override
 	protected void doSetInput(IEditorInput input) throws CoreException {
 		setDocumentProvider(createDocumentProvider(input));
 		super.doSetInput(input);
 
+		largeFileMode = BashLargeFileSupport.isLargeFileMode(input, getDocument());
+		setTitleImageInitial();
 		rebuildOutline();
 	}
 
@@ -382,56 +435,213 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 	 * Does rebuild the outline - this is done asynchronous
 	 */
 	public void rebuildOutline() {
-		String text = getDocumentText();
-		
-		IPreferenceStore store = BashEditorUtil.getPreferences().getPreferenceStore();
+		IDocument document = getDocument();
+		if (document == null) {
+			return;
+		}
+		synchronized (monitor) {
+			if (modelUpdateJob != null) {
+				/* outdated */
+				modelUpdateJob.cancel();
+			}
+			modelUpdateJob = new Job("Bash editor model update") {
 
-		boolean validateBlocks=store.getBoolean(VALIDATE_BLOCK_STATEMENTS.getId());
-		boolean validateDo=store.getBoolean(VALIDATE_DO_STATEMENTS.getId());
-		boolean validateIf=store.getBoolean(VALIDATE_IF_STATEMENTS.getId());
-		boolean validateFunctions=store.getBoolean(VALIDATE_IF_STATEMENTS.getId());
-		
-		boolean debugMode = Boolean.parseBoolean(System.getProperty("basheditor.debug.enabled"));
-		
-		modelBuilder.setIgnoreBlockValidation(! validateBlocks);
-		modelBuilder.setIgnoreDoValidation(! validateDo);
-		modelBuilder.setIgnoreIfValidation(! validateIf);
-		modelBuilder.setIgnoreFunctionValidation(! validateFunctions);
+				@Override
+				protected IStatus run(IProgressMonitor progressMonitor) {
+					buildAndPublishModel(document, progressMonitor);
+					if (largeFileMode && !progressMonitor.isCanceled()) {
+						/* last step in large file mode */
+						EclipseUtil.safeAsyncExec(new Runnable() {
+
+							@Override
+							public void run() {
+								enableBracketMatchingInLargeFileMode();
+							}
+						});
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			modelUpdateJob.setSystem(true);
+			modelUpdateJob.schedule();
+		}
+	}
 
-		modelBuilder.setDebug(debugMode);
-		
+	/**
+	 * Fetches model for current document state and publishes outline and
+	 * errors inside UI thread. Should not be called inside UI thread. When
+	 * another model build was started meanwhile or monitor is canceled,
+	 * nothing is published.
+	 * 
+	 * @param document
+	 * @param progressMonitor
+	 */
+	void buildAndPublishModel(IDocument document, IProgressMonitor progressMonitor) {
+		long requestNumber = modelRequestCounter.incrementAndGet();
+		/* model is at least as new as this stamp */
+		long stamp = getStamp(document);
+
+		/* outline needs only functions - model service has them already computed */
+		BashScriptModel model = getModelServices().getModel(document);
+		if (isOutdated(requestNumber, progressMonitor)) {
+			return;
+		}
+		/* folding regions are computed from already parsed tokens */
+		List<BashFoldingRegion> foldingRegions = foldingRegionBuilder.build(model);
+		if (isOutdated(requestNumber, progressMonitor)) {
+			return;
+		}
 		EclipseUtil.safeAsyncExec(new Runnable() {
 
 			@Override
 			public void run() {
-				BashEditorUtil.removeScriptErrors(BashEditor.this);
-				
-				BashScriptModel model = modelBuilder.build(text);
-
+				if (isOutdated(requestNumber, null)) {
+					return;
+				}
+				/* typing has paused - so repartition what the damage limit left */
+				finishPartitioning(document);
+				BashScriptTimings timings = model.getTimings();
+				long start = timings == null ? 0 : System.nanoTime();
 				getOutlinePage().rebuild(model);
+				if (timings != null) {
+					timings.recordOutlineRefresh(System.nanoTime() - start);
+				}
+				updateFolding(foldingRegions);
+				showLargeFileModeStatus("outline available, validating");
+			}
+		});
+
+		/*
+		 * symbol names are used by content assist inside UI thread - so
+		 * prepare them here
+		 */
+		BashSymbolIndex symbolIndex = model.getSymbolIndex();
+		symbolIndex.getNames(SymbolType.FUNCTION);
+		symbolIndex.getNames(SymbolType.VARIABLE);
+		BashSemanticHighlighting semanticHighlighting = BashSemanticHighlighting.create(symbolIndex);
+		if (isOutdated(requestNumber, progressMonitor)) {
+			return;
+		}
+		EclipseUtil.safeAsyncExec(new Runnable() {
 
+			@Override
+			public void run() {
+				if (isOutdated(requestNumber, null)) {
+					return;
+				}
+				semanticHighlightingSupport.update(semanticHighlighting, stamp);
+			}
+		});
+
+		model.getErrors();
+		if (isOutdated(requestNumber, progressMonitor)) {
+			return;
+		}
+		EclipseUtil.safeAsyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+				if (isOutdated(requestNumber, null)) {
+					return;
+				}
 				if (model.hasErrors()) {
-					addErrorMarkers(model);
+					/* show error state in outline as well */
+					getOutlinePage().rebuild(model);
+				}
+				BashScriptTimings timings = model.getTimings();
+				long start = timings == null ? 0 : System.nanoTime();
+				publishProblems(model.getErrors());
+				showLargeFileModeStatus("validated");
+				if (timings != null) {
+					timings.recordMarkerUpdate(System.nanoTime() - start);
+					showTimings(timings);
 				}
 			}
 		});
 	}
 
+	private void showTimings(BashScriptTimings timings) {
+		String summary = timings.createSummary(largeFileMode ? "large file" : "normal");
+		IStatusLineManager statusLineManager = getStatusLineManager();
+		if (statusLineManager != null) {
+			statusLineManager.setMessage("Bash: " + summary);
+		}
+		if (Boolean.parseBoolean(System.getProperty("basheditor.debug.enabled"))) {
+			/* error log only in debug mode - updates happen on every edit */
+			BashEditorUtil.logInfo("Bash editor timings for " + getTitle() + ": " + summary);
+		}
+	}
+
+	/**
+	 * Publishes problems as markers. When problems shall be shown as
+	 * annotations, markers are only updated for saved documents and problems
+	 * of unsaved changes are shown by annotations only.
+	 * 
+	 * @param errors
+	 */
+	private void publishProblems(Collection<BashError> errors) {
+		IAnnotationModel annotationModel = getDocumentProvider().getAnnotationModel(getEditorInput());
+		boolean problemsAsAnnotations = getPreferences().getPreferenceStore()
+				.getBoolean(VALIDATE_PROBLEMS_AS_ANNOTATIONS.getId());
+		if (!problemsAsAnnotations) {
+			problemAnnotationSupport.removeAll(annotationModel);
+			BashEditorUtil.updateScriptErrors(this, getDocument(), errors);
+			return;
+		}
+		if (!isDirty()) {
+			boolean markersUpdated = BashEditorUtil.updateScriptErrors(this, getDocument(), errors);
+			if (markersUpdated) {
+				problemAnnotationSupport.setCommittedErrors(errors);
+			} else {
+				problemAnnotationSupport.setCommittedErrors(Collections.<BashError> emptyList());
+			}
+		}
+		problemAnnotationSupport.update(annotationModel, errors);
+	}
+
+	private void finishPartitioning(IDocument document) {
+		IDocumentPartitioner partitioner = document.getDocumentPartitioner();
+		if (!(partitioner instanceof BashPartitioner)) {
+			return;
+		}
+		IRegion region = ((BashPartitioner) partitioner).finishPartitioning();
+		if (region == null) {
+			return;
+		}
+		ISourceViewer viewer = getSourceViewer();
+		if (viewer instanceof ITextViewerExtension2) {
+			((ITextViewerExtension2) viewer).invalidateTextPresentation(region.getOffset(), region.getLength());
+		}
+	}
+
+	private static long getStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	private boolean isOutdated(long requestNumber, IProgressMonitor progressMonitor) {
+		if (progressMonitor != null && progressMonitor.isCanceled()) {
+			return true;
+		}
+		if (getSourceViewer() == null) {
+			/* editor disposed */
+			return true;
+		}
+		return requestNumber != modelRequestCounter.get();
+	}
+
 	/**
 	 * Set initial title image dependent on current marker severity. This will
 	 * mark error icon on startup time which is not handled by resource change
-	 * handling, because having no change...
+	 * handling, because having no change... Also (re)registers this editor for
+	 * marker change handling, so later changes update the title image.
 	 */
 	private void setTitleImageInitial() {
 		IResource resource = resolveResource();
-		if (resource != null) {
-			try {
-				int maxSeverity = resource.findMaxProblemSeverity(null, true, IResource.DEPTH_INFINITE);
-				setTitleImageDependingOnSeverity(maxSeverity);
-			} catch (CoreException e) {
-				/* ignore */
-			}
-		}
+		int maxSeverity = BashEditorActivator.getDefault().getMarkerChangeDispatcher().register(this, resource);
+		setTitleImageDependingOnSeverity(maxSeverity);
 	}
 
 	/**
@@ -447,25 +657,28 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		return ((IFileEditorInput) input).getFile();
 	}
 
-	private boolean isMarkerChangeForThisEditor(IResourceChangeEvent event) {
-		IResource resource = ResourceUtil.getResource(getEditorInput());
-		if (resource == null) {
-			return false;
-		}
-		IPath path = resource.getFullPath();
-		if (path == null) {
-			return false;
-		}
-		IResourceDelta eventDelta = event.getDelta();
-		if (eventDelta == null) {
-			return false;
+	/**
+	 * Resolves file in local file system for current editor input.
+	 * 
+	 * @return file or <code>null</code> when not available
+	 */
+	File getEditorFile() {
+		IEditorInput input = getEditorInput();
+		if (input instanceof IFileEditorInput) {
+			IPath location = ((IFileEditorInput) input).getFile().getLocation();
+			if (location == null) {
+				return null;
+			}
+			return location.toFile();
 		}
-		IResourceDelta delta = eventDelta.findMember(path);
-		if (delta == null) {
-			return false;
+		if (input instanceof FileStoreEditorInput) {
+			URI uri = ((FileStoreEditorInput) input).getURI();
+			if (uri == null || !"file".equals(uri.getScheme())) {
+				return null;
+			}
+			return new File(uri);
 		}
-		boolean isMarkerChangeForThisResource = (delta.getFlags() & IResourceDelta.MARKERS) != 0;
-		return isMarkerChangeForThisResource;
+		return null;
 	}
 
 	private IDocumentProvider createDocumentProvider(IEditorInput input) {
@@ -511,6 +724,10 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		}
 	}
 
+	private BashScriptModelServices getModelServices() {
+		return BashEditorActivator.getDefault().getModelServices();
+	}
+
 	private ColorManager getColorManager() {
 		return BashEditorActivator.getDefault().getColorManager();
 	}
@@ -522,6 +739,7 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		if (viewer instanceof ISourceViewerExtension2) {
 			ISourceViewerExtension2 viewerExtension2 = (ISourceViewerExtension2) viewer;
 			viewerExtension2.unconfigure();
+			semanticHighlightingSupport.colorsChanged();
 			if (configuration instanceof BashSourceViewerConfiguration) {
 				BashSourceViewerConfiguration gconf = (BashSourceViewerConfiguration) configuration;
 				gconf.updateTextScannerDefaultColorToken();
@@ -531,7 +749,50 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 	}
 
 	/**
-	 * Toggles comment of current selected lines
+	 * Called when a syntax color preference has changed. When the color is
+	 * used by a partition style only this style is replaced and the text
+	 * presentation is invalidated. Otherwise the viewer is configured again.
+	 * 
+	 * @param colorId
+	 *            identifier of changed color preference
+	 */
+	public void handleSyntaxColorChanged(String colorId) {
+		ISourceViewer viewer = getSourceViewer();
+		SourceViewerConfiguration configuration = getSourceViewerConfiguration();
+		if (viewer instanceof ITextViewerExtension2 && configuration instanceof BashSourceViewerConfiguration) {
+			BashSourceViewerConfiguration gconf = (BashSourceViewerConfiguration) configuration;
+			if (gconf.updateSyntaxColor(colorId)) {
+				((ITextViewerExtension2) viewer).invalidateTextPresentation();
+				return;
+			}
+		}
+		handleColorSettingsChanged();
+	}
+
+	/**
+	 * Called when executables found inside $PATH have changed. Partitions
+	 * are computed again, so new commands are highlighted.
+	 */
+	public void handleExecutablesChanged() {
+		IDocument document = getDocument();
+		if (document == null) {
+			return;
+		}
+		IDocumentPartitioner partitioner = document.getDocumentPartitioner();
+		if (partitioner != null) {
+			partitioner.disconnect();
+			partitioner.connect(document);
+		}
+		ISourceViewer viewer = getSourceViewer();
+		if (viewer instanceof ITextViewerExtension2) {
+			((ITextViewerExtension2) viewer).invalidateTextPresentation();
+		}
+	}
+
+	/**
+	 * Toggles comment of current selected lines. All line changes are
+	 * collected first and applied as one edit, so undo is a single step and
+	 * partitioning and repaint are done only once.
 	 */
 	public void toggleComment() {
 		ISelection selection = getSelectionProvider().getSelection();
@@ -544,35 +805,24 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		int startLine = ts.getStartLine();
 		int endLine = ts.getEndLine();
 
-		/* do comment /uncomment */
+		/* collect comment /uncomment edits */
+		MultiTextEdit edit = new MultiTextEdit();
 		for (int i = startLine; i <= endLine; i++) {
 			IRegion info;
 			try {
 				info = doc.getLineInformation(i);
 				int offset = info.getOffset();
-				String line = doc.get(info.getOffset(), info.getLength());
-				StringBuilder foundCode = new StringBuilder();
-				StringBuilder whitespaces = new StringBuilder();
-				for (int j = 0; j < line.length(); j++) {
-					char ch = line.charAt(j);
-					if (Character.isWhitespace(ch)) {
-						if (foundCode.length() == 0) {
-							whitespaces.append(ch);
-						}
-					} else {
-						foundCode.append(ch);
-					}
-					if (foundCode.length() > 0) {
-						break;
-					}
+				int lineEnd = offset + info.getLength();
+				int firstCodePos = offset;
+				while (firstCodePos < lineEnd && Character.isWhitespace(doc.getChar(firstCodePos))) {
+					firstCodePos++;
 				}
-				int whitespaceOffsetAdd = whitespaces.length();
-				if ("#".equals(foundCode.toString())) {
+				if (firstCodePos < lineEnd && doc.getChar(firstCodePos) == '#') {
 					/* comment before */
-					doc.replace(offset + whitespaceOffsetAdd, 1, "");
+					edit.addChild(new DeleteEdit(firstCodePos, 1));
 				} else {
 					/* not commented */
-					doc.replace(offset, 0, "#");
+					edit.addChild(new InsertEdit(offset, "#"));
 				}
 
 			} catch (BadLocationException e) {
@@ -581,6 +831,8 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 			}
 
 		}
+		applyAsOneChange(doc, edit, endLine - startLine + 1);
+
 		/* reselect */
 		int selectionStartOffset;
 		try {
@@ -597,6 +849,41 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		}
 	}
 
+	/**
+	 * Applies given edit as one undoable change. For many changed lines a
+	 * document rewrite session is used, so partitioner and listeners are
+	 * updated only once.
+	 * 
+	 * @param doc
+	 * @param edit
+	 * @param changedLines
+	 */
+	private void applyAsOneChange(IDocument doc, MultiTextEdit edit, int changedLines) {
+		if (!edit.hasChildren()) {
+			return;
+		}
+		IRewriteTarget rewriteTarget = getAdapter(IRewriteTarget.class);
+		if (rewriteTarget != null) {
+			rewriteTarget.beginCompoundChange();
+		}
+		DocumentRewriteSession session = null;
+		if (changedLines > REWRITE_SESSION_LINE_THRESHOLD && doc instanceof IDocumentExtension4) {
+			session = ((IDocumentExtension4) doc).startRewriteSession(DocumentRewriteSessionType.UNRESTRICTED);
+		}
+		try {
+			edit.apply(doc, TextEdit.NONE);
+		} catch (MalformedTreeException | BadLocationException e) {
+			EclipseUtil.logError("Was not able to apply changes", e);
+		} finally {
+			if (session != null) {
+				((IDocumentExtension4) doc).stopRewriteSession(session);
+			}
+			if (rewriteTarget != null) {
+				rewriteTarget.endCompoundChange();
+			}
+		}
+	}
+
 	public void openSelectedTreeItemInEditor(ISelection selection, boolean grabFocus) {
 		if (selection instanceof IStructuredSelection) {
 			IStructuredSelection ss = (IStructuredSelection) selection;
@@ -640,20 +927,6 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 		
 	}
 
-	public BashFunction findBashFunction(String functionName) {
-		if (functionName==null){
-			return null;
-		}
-		BashScriptModel model = buildModelWithoutValidation();
-		Collection<BashFunction> functions = model.getFunctions();
-		for (BashFunction function:functions){
-			if (functionName.equals(function.getName())){
-				return function;
-			}
-		}
-		return null;
-	}
-	
 	public BashEditorPreferences getPreferences(){
 		return BashEditorPreferences.getInstance();
 	}
@@ -666,6 +939,7 @@ public class BashEditor extends TextEditor implements StatusMessageSupport, IRes
 				return;
 			}
 			lastCaretPosition = event.caretOffset;
+			occurrencesSupport.caretMoved(event.caretOffset);
 			if (ignoreNextCaretMove) {
 				ignoreNextCaretMove = false;
 				return;
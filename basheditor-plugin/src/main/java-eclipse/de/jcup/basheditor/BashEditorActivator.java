@@ -18,6 +18,8 @@ package de.jcup.basheditor;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
+import de.jcup.basheditor.document.ExecutableCommandRule;
+
 /**
  * The activator class controls the plug-in life cycle
  */
@@ -29,6 +31,9 @@ public class BashEditorActivator extends AbstractUIPlugin {
 	// The shared instance
 	private static BashEditorActivator plugin;
 	private ColorManager colorManager;
+	private BashScriptModelServices modelServices;
+	private BashEditorMarkerChangeDispatcher markerChangeDispatcher;
+	private BashExecutables executables;
 
 
 	/**
@@ -36,19 +41,38 @@ public class BashEditorActivator extends AbstractUIPlugin {
 	 */
 	public BashEditorActivator() {
 		colorManager = new ColorManager();
+		modelServices = new BashScriptModelServices();
+		markerChangeDispatcher = new BashEditorMarkerChangeDispatcher();
+		executables = new BashExecutables();
 	}
 
 	public ColorManager getColorManager() {
 		return colorManager;
 	}
 
+	public BashScriptModelServices getModelServices() {
+		return modelServices;
+	}
+
+	public BashEditorMarkerChangeDispatcher getMarkerChangeDispatcher() {
+		return markerChangeDispatcher;
+	}
+
+	public BashExecutables getExecutables() {
+		return executables;
+	}
+
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		ExecutableCommandRule.setIndexProvider(executables);
+		/* done in background - editors do not wait */
+		executables.update();
 	}
 
 	public void stop(BundleContext context) throws Exception {
 		plugin = null;
+		ExecutableCommandRule.setIndexProvider(null);
 		colorManager.dispose();
 		super.stop(context);
 	}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * One resource change listener for all bash editors. Open editors are indexed
+ * by path of their resource, every resource delta is visited only once and
+ * only for changed markers of edited files the maximum problem severity is
+ * computed. Editor title images are only updated when the severity has really
+ * changed.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashEditorMarkerChangeDispatcher implements IResourceChangeListener {
+
+	private static final int UNKNOWN_SEVERITY = -1;
+
+	private Map<IPath, List<BashEditor>> editorsByPath = new HashMap<>();
+	private Map<BashEditor, IResource> resourcesByEditor = new HashMap<>();
+	private Map<IPath, Integer> severities = new HashMap<>();
+	/* paths of all parent containers of edited resources - used to prune delta visiting */
+	private Set<IPath> containerPaths = new HashSet<>();
+	private boolean listening;
+
+	/**
+	 * Registers editor for given resource. An existing registration of the
+	 * editor is replaced.
+	 * 
+	 * @param editor
+	 * @param resource
+	 *            resource of editor or <code>null</code> when editor has no
+	 *            workspace resource
+	 * @return current maximum problem severity of resource
+	 */
+	public int register(BashEditor editor, IResource resource) {
+		if (editor == null) {
+			return IMarker.SEVERITY_INFO;
+		}
+		synchronized (editorsByPath) {
+			internalUnregister(editor);
+			if (resource == null) {
+				return IMarker.SEVERITY_INFO;
+			}
+			IPath path = resource.getFullPath();
+			List<BashEditor> editors = editorsByPath.get(path);
+			if (editors == null) {
+				editors = new ArrayList<>();
+				editorsByPath.put(path, editors);
+			}
+			editors.add(editor);
+			resourcesByEditor.put(editor, resource);
+			rebuildContainerPaths();
+
+			if (!listening) {
+				ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+				listening = true;
+			}
+			int severity = computeSeverity(resource);
+			severities.put(path, Integer.valueOf(severity));
+			return severity;
+		}
+	}
+
+	/**
+	 * Unregisters editor
+	 * 
+	 * @param editor
+	 */
+	public void unregister(BashEditor editor) {
+		synchronized (editorsByPath) {
+			internalUnregister(editor);
+			if (listening && editorsByPath.isEmpty()) {
+				ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+				listening = false;
+			}
+		}
+	}
+
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+		Map<BashEditor, Integer> changed = new HashMap<>();
+		synchronized (editorsByPath) {
+			if (editorsByPath.isEmpty()) {
+				return;
+			}
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+
+					@Override
+					public boolean visit(IResourceDelta resourceDelta) throws CoreException {
+						IResource resource = resourceDelta.getResource();
+						IPath path = resource.getFullPath();
+						if (resource.getType() != IResource.FILE) {
+							return containerPaths.contains(path);
+						}
+						if ((resourceDelta.getFlags() & IResourceDelta.MARKERS) == 0) {
+							return false;
+						}
+						List<BashEditor> editors = editorsByPath.get(path);
+						if (editors == null) {
+							return false;
+						}
+						int severity = computeSeverity(resource);
+						Integer oldSeverity = severities.put(path, Integer.valueOf(severity));
+						if (oldSeverity == null || oldSeverity.intValue() != severity) {
+							for (BashEditor editor : editors) {
+								changed.put(editor, Integer.valueOf(severity));
+							}
+						}
+						return false;
+					}
+				});
+			} catch (CoreException e) {
+				EclipseUtil.logError("Was not able to visit resource delta", e);
+			}
+		}
+		if (changed.isEmpty()) {
+			return;
+		}
+		EclipseUtil.safeAsyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+				for (Map.Entry<BashEditor, Integer> entry : changed.entrySet()) {
+					entry.getKey().setTitleImageDependingOnSeverity(entry.getValue().intValue());
+				}
+			}
+		});
+	}
+
+	private void internalUnregister(BashEditor editor) {
+		IResource resource = resourcesByEditor.remove(editor);
+		if (resource == null) {
+			return;
+		}
+		IPath path = resource.getFullPath();
+		List<BashEditor> editors = editorsByPath.get(path);
+		if (editors == null) {
+			return;
+		}
+		editors.remove(editor);
+		if (editors.isEmpty()) {
+			editorsByPath.remove(path);
+			severities.remove(path);
+			rebuildContainerPaths();
+		}
+	}
+
+	private void rebuildContainerPaths() {
+		containerPaths.clear();
+		for (IPath path : editorsByPath.keySet()) {
+			IPath parent = path;
+			while (parent.segmentCount() > 0) {
+				parent = parent.removeLastSegments(1);
+				containerPaths.add(parent);
+			}
+		}
+	}
+
+	private int computeSeverity(IResource resource) {
+		try {
+			return resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		} catch (CoreException e) {
+			/* might be a project that is not open */
+			return UNKNOWN_SEVERITY;
+		}
+	}
+}
@@ -15,14 +15,21 @@
  */
 package de.jcup.basheditor;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.ILog;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorPart;
 
+import de.jcup.basheditor.AbstractMarkerHelper.MarkerDefinition;
 import de.jcup.basheditor.preferences.BashEditorPreferences;
 import de.jcup.basheditor.script.BashError;
 
@@ -35,6 +42,10 @@ public class BashEditorUtil {
 		return BashEditorPreferences.getInstance();
 	}
 
+	public static BashScriptModelServices getModelServices() {
+		return BashEditorActivator.getDefault().getModelServices();
+	}
+
 	public static void logInfo(String info) {
 		getLog().log(new Status(IStatus.INFO, BashEditorActivator.PLUGIN_ID, info));
 	}
@@ -47,44 +58,48 @@ public class BashEditorUtil {
 		getLog().log(new Status(IStatus.ERROR, BashEditorActivator.PLUGIN_ID, error, t));
 	}
 
-	public static void removeScriptErrors(IEditorPart editor) {
-		if (editor == null) {
-			return;
+	/**
+	 * Updates script error markers of editor resource to given errors. Markers
+	 * not changed are kept, so an unchanged file does not produce any resource
+	 * delta.
+	 * 
+	 * @param editor
+	 * @param document
+	 *            document used to resolve line numbers
+	 * @param errors
+	 * @return <code>true</code> when markers were updated, <code>false</code>
+	 *         when editor has no resource for markers
+	 */
+	public static boolean updateScriptErrors(IEditorPart editor, IDocument document, Collection<BashError> errors) {
+		if (editor == null || document == null || errors == null) {
+			return false;
 		}
 		IEditorInput input = editor.getEditorInput();
 		if (input == null) {
-			return;
+			return false;
 		}
 		IResource editorResource = input.getAdapter(IResource.class);
 		if (editorResource == null) {
-			return;
-		}
-		scriptProblemMarkerHelper.removeMarkers(editorResource);
-	}
-
-	public static void addScriptError(IEditorPart editor, int line, BashError error) {
-		if (editor == null) {
-			return;
-		}
-		if (error == null) {
-			return;
+			return false;
 		}
-
-		IEditorInput input = editor.getEditorInput();
-		if (input == null) {
-			return;
-		}
-		IResource editorResource = input.getAdapter(IResource.class);
-		if (editorResource == null) {
-			return;
+		List<MarkerDefinition> definitions = new ArrayList<>(errors.size());
+		for (BashError error : errors) {
+			int startPos = error.getStart();
+			int line;
+			try {
+				line = document.getLineOfOffset(startPos);
+			} catch (BadLocationException e) {
+				EclipseUtil.logError("Cannot get line offset for " + startPos, e);
+				line = 0;
+			}
+			definitions.add(new MarkerDefinition(error.getMessage(), line, error.getStart(), error.getEnd()));
 		}
 		try {
-			scriptProblemMarkerHelper.createErrorMarker(editorResource, error.getMessage(), line, error.getStart(),
-					+ error.getEnd());
+			scriptProblemMarkerHelper.updateErrorMarkers(editorResource, definitions);
 		} catch (CoreException e) {
-			logError("Was not able to add error markers", e);
+			logError("Was not able to update error markers", e);
 		}
-
+		return true;
 	}
 
 	private static ILog getLog() {
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.BashEditorUtil.*;
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+
+import de.jcup.basheditor.executables.ExecutableIndex;
+import de.jcup.basheditor.executables.ExecutableIndexProvider;
+import de.jcup.basheditor.executables.ExecutableIndexStore;
+import de.jcup.basheditor.executables.ExecutableScanner;
+
+/**
+ * Provides executables found inside $PATH and user configured directories.
+ * Discovery is done inside a background job: a persisted index is reused
+ * when no directory has changed since last scan, otherwise directories are
+ * scanned again and the index is persisted inside plugin state location.
+ * Until the job is done an empty index is provided, so nobody has to wait.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashExecutables implements ExecutableIndexProvider {
+
+	private static final String CACHE_FILE_NAME = "executables.txt";
+
+	private volatile ExecutableIndex index = ExecutableIndex.EMPTY;
+	private ExecutableScanner scanner = new ExecutableScanner();
+	private ExecutableIndexStore store = new ExecutableIndexStore();
+	private Job job;
+
+	@Override
+	public ExecutableIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Schedules discovery of executables
+	 */
+	public synchronized void update() {
+		if (job == null) {
+			job = new Job("Bash editor executable discovery") {
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					discover(monitor);
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+		}
+		job.cancel();
+		job.schedule();
+	}
+
+	private void discover(IProgressMonitor monitor) {
+		if (!getPreferences().getBooleanPreference(P_EDITOR_PATH_EXECUTABLES_ENABLED)) {
+			setIndex(ExecutableIndex.EMPTY);
+			return;
+		}
+		String additional = getPreferences().getStringPreference(P_EDITOR_ADDITIONAL_EXECUTABLE_DIRECTORIES);
+		List<File> directories = scanner.resolveDirectories(System.getenv("PATH"), additional);
+
+		File cacheFile = getCacheFile();
+		ExecutableIndex cached = null;
+		if (cacheFile != null) {
+			try {
+				cached = store.read(cacheFile);
+			} catch (IOException e) {
+				logWarning("Cannot read executables cache:" + e.getMessage());
+			}
+		}
+		if (cached != null && cached.isValidFor(directories)) {
+			setIndex(cached);
+			return;
+		}
+		if (monitor.isCanceled()) {
+			return;
+		}
+		ExecutableIndex scanned = scanner.scan(directories);
+		if (monitor.isCanceled()) {
+			return;
+		}
+		setIndex(scanned);
+		if (cacheFile != null) {
+			try {
+				store.write(scanned, cacheFile);
+			} catch (IOException e) {
+				logWarning("Cannot write executables cache:" + e.getMessage());
+			}
+		}
+	}
+
+	private void setIndex(ExecutableIndex newIndex) {
+		ExecutableIndex oldIndex = index;
+		index = newIndex;
+		if (oldIndex.getNames().equals(newIndex.getNames())) {
+			/* e.g. scan result has same names as cached index - highlighting is still valid */
+			return;
+		}
+		/* already opened editors must highlight again */
+		EclipseUtil.safeAsyncExec(new Runnable() {
+
+			@Override
+			public void run() {
+				if (!PlatformUI.isWorkbenchRunning()) {
+					return;
+				}
+				for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+					for (IWorkbenchPage page : window.getPages()) {
+						for (IEditorReference ref : page.getEditorReferences()) {
+							IEditorPart editor = ref.getEditor(false);
+							if (editor instanceof BashEditor) {
+								((BashEditor) editor).handleExecutablesChanged();
+							}
+						}
+					}
+				}
+			}
+		});
+	}
+
+	private File getCacheFile() {
+		BashEditorActivator activator = BashEditorActivator.getDefault();
+		if (activator == null) {
+			return null;
+		}
+		return activator.getStateLocation().append(CACHE_FILE_NAME).toFile();
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+import de.jcup.basheditor.script.BashFoldingRegion;
+import de.jcup.basheditor.script.BashFoldingRegion.FoldingType;
+
+/**
+ * Updates folding annotations of a projection annotation model by diff.
+ * Existing annotations are reused when type and start line are still the
+ * same, so their collapsed state survives edits. Only added, removed or
+ * resized annotations are reported to the model - in one change event.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashFoldingSupport {
+
+	/**
+	 * Updates folding annotations for given regions
+	 * 
+	 * @param model
+	 * @param document
+	 * @param regions
+	 *            regions sorted by start offset
+	 */
+	void update(ProjectionAnnotationModel model, IDocument document, List<BashFoldingRegion> regions) {
+		if (model == null || document == null) {
+			return;
+		}
+		Map<String, BashFoldingAnnotation> existing = new HashMap<>();
+		List<Annotation> deletions = new ArrayList<>();
+		Iterator<?> it = model.getAnnotationIterator();
+		while (it.hasNext()) {
+			Object next = it.next();
+			if (!(next instanceof BashFoldingAnnotation)) {
+				continue;
+			}
+			BashFoldingAnnotation annotation = (BashFoldingAnnotation) next;
+			Position position = model.getPosition(annotation);
+			if (position == null || position.isDeleted()) {
+				continue;
+			}
+			BashFoldingAnnotation duplicate = existing.put(createKey(annotation.getFoldingType(), position.getOffset()),
+					annotation);
+			if (duplicate != null) {
+				deletions.add(duplicate);
+			}
+		}
+
+		Map<Annotation, Position> additions = new HashMap<>();
+		List<Annotation> modifications = new ArrayList<>();
+		for (BashFoldingRegion region : regions) {
+			Position position = createLinePosition(document, region);
+			if (position == null) {
+				continue;
+			}
+			String key = createKey(region.getType(), position.getOffset());
+			BashFoldingAnnotation annotation = existing.remove(key);
+			if (annotation == null) {
+				if (!containsPosition(additions, position)) {
+					additions.put(new BashFoldingAnnotation(region.getType()), position);
+				}
+				continue;
+			}
+			Position current = model.getPosition(annotation);
+			if (current.getLength() != position.getLength()) {
+				/* position is changed in place, model is informed by modification */
+				current.setLength(position.getLength());
+				modifications.add(annotation);
+			}
+		}
+		deletions.addAll(existing.values());
+		if (deletions.isEmpty() && additions.isEmpty() && modifications.isEmpty()) {
+			return;
+		}
+		model.modifyAnnotations(deletions.toArray(new Annotation[deletions.size()]), additions,
+				modifications.toArray(new Annotation[modifications.size()]));
+	}
+
+	private boolean containsPosition(Map<Annotation, Position> additions, Position position) {
+		/* e.g. a function containing only one if block starting in same line */
+		for (Position added : additions.values()) {
+			if (added.getOffset() == position.getOffset()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a position covering the complete lines of given region
+	 * 
+	 * @return position or <code>null</code> when region is inside one line
+	 *         or not valid for document
+	 */
+	private Position createLinePosition(IDocument document, BashFoldingRegion region) {
+		try {
+			int startLine = document.getLineOfOffset(region.getStart());
+			int endLine = document.getLineOfOffset(Math.min(region.getEnd(), document.getLength()));
+			if (startLine >= endLine) {
+				return null;
+			}
+			int start = document.getLineOffset(startLine);
+			int end;
+			if (endLine + 1 < document.getNumberOfLines()) {
+				end = document.getLineOffset(endLine + 1);
+			} else {
+				end = document.getLength();
+			}
+			return new Position(start, end - start);
+		} catch (BadLocationException e) {
+			/* model is outdated - next update will fix this */
+			return null;
+		}
+	}
+
+	private String createKey(FoldingType type, int offset) {
+		return type + ":" + offset;
+	}
+
+	private static class BashFoldingAnnotation extends ProjectionAnnotation {
+
+		private FoldingType foldingType;
+
+		private BashFoldingAnnotation(FoldingType foldingType) {
+			this.foldingType = foldingType;
+		}
+
+		private FoldingType getFoldingType() {
+			return foldingType;
+		}
+	}
+}
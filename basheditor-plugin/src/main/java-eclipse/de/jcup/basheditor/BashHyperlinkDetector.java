@@ -1,8 +1,8 @@
 /*
- * Copyright 2016 Albert Tregnaghi
+ * Copyright 2017 Albert Tregnaghi
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this editorFile except in compliance with the License.
+ * you may not use this file except in compliance with the License.
  * You may obtain a copy of the License at
  *		http://www.apache.org/licenses/LICENSE-2.0
  *
@@ -15,8 +15,12 @@
  */
 package de.jcup.basheditor;
 
+import static de.jcup.basheditor.BashEditorUtil.*;
+
+import java.io.File;
+import java.util.List;
+
 import org.eclipse.core.runtime.IAdaptable;
-import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextViewer;
@@ -25,9 +29,17 @@ import org.eclipse.jface.text.hyperlink.AbstractHyperlinkDetector;
 import org.eclipse.jface.text.hyperlink.IHyperlink;
 
 import de.jcup.basheditor.script.BashFunction;
+import de.jcup.basheditor.script.BashScriptModel;
+import de.jcup.basheditor.script.BashSymbol;
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+import de.jcup.basheditor.script.BashSymbolIndex;
+import de.jcup.basheditor.script.parser.ParseToken;
 
 /**
- * Hyperlink detector for all kind of hyperlinks in egradle editor.
+ * Hyperlink detector for all kind of hyperlinks in bash editor. Uses only an
+ * already built model for current document state - so there is never a parse
+ * while hovering. When no current model is available, a build is requested
+ * and no hyperlink is returned.
  * 
  * @author Albert Tregnaghi
  *
@@ -50,44 +62,94 @@ public class BashHyperlinkDetector extends AbstractHyperlinkDetector {
 			return null;
 		}
 		IDocument document = textViewer.getDocument();
+		BashScriptModel model = getModelServices().getModelIfAvailable(document);
+		if (model == null) {
+			/* next hover will have a model */
+			getModelServices().requestModel(document);
+			return null;
+		}
 		int offset = region.getOffset();
 
-		IRegion lineInfo;
-		String line;
-		try {
-			lineInfo = document.getLineInformationOfOffset(offset);
-			line = document.get(lineInfo.getOffset(), lineInfo.getLength());
-		} catch (BadLocationException ex) {
+		IHyperlink hyperlink = createSymbolHyperlink(editor, model, offset);
+		if (hyperlink == null) {
+			hyperlink = createSourceFileHyperlink(editor, model, offset);
+		}
+		if (hyperlink == null) {
 			return null;
 		}
+		return new IHyperlink[] { hyperlink };
+	}
 
-		int offsetInLine = offset - lineInfo.getOffset();
-		String leftChars = line.substring(0, offsetInLine);
-		String rightChars = line.substring(offsetInLine);
-		StringBuilder sb = new StringBuilder();
-		int offsetLeft=offset;
-		char[] left = leftChars.toCharArray();
-		for (int i=left.length-1; i>=0;i--) {
-			char c = left[i];
-			if (Character.isWhitespace(c)) {
-				break;
+	private IHyperlink createSymbolHyperlink(BashEditor editor, BashScriptModel model, int offset) {
+		BashSymbolIndex index = model.getSymbolIndex();
+		BashSymbol symbol = index.getSymbolAt(offset);
+		if (symbol == null) {
+			return null;
+		}
+		Region hyperlinkRegion = new Region(index.getOccurrenceOffset(offset), symbol.getName().length());
+		if (symbol.getType() == SymbolType.FUNCTION) {
+			for (BashFunction function : model.getFunctions()) {
+				if (symbol.getName().equals(function.getName())) {
+					return new BashFunctionHyperlink(hyperlinkRegion, function, editor);
+				}
 			}
-			offsetLeft--;
-			sb.insert(0,c);
+			return null;
+		}
+		int declarationOffset = index.getDeclarationOffset(symbol);
+		if (declarationOffset == -1 || declarationOffset == hyperlinkRegion.getOffset()) {
+			/* not declared inside script or already at declaration */
+			return null;
 		}
-		for (char c : rightChars.toCharArray()) {
-			if (Character.isWhitespace(c)) {
-				break;
+		return new BashVariableHyperlink(hyperlinkRegion, symbol.getName(), declarationOffset, editor);
+	}
+
+	private IHyperlink createSourceFileHyperlink(BashEditor editor, BashScriptModel model, int offset) {
+		int tokenIndex = model.getTokenIndexAt(offset);
+		if (tokenIndex < 1) {
+			return null;
+		}
+		List<ParseToken> tokens = model.getTokens();
+		String command = tokens.get(tokenIndex - 1).getText();
+		if (!("source".equals(command) || ".".equals(command))) {
+			return null;
+		}
+		ParseToken pathToken = tokens.get(tokenIndex);
+		String path = unquote(pathToken.getText());
+		if (path.isEmpty() || path.indexOf('$') != -1) {
+			/* variables cannot be resolved */
+			return null;
+		}
+		File file = resolveFile(editor, path);
+		if (file == null) {
+			return null;
+		}
+		Region hyperlinkRegion = new Region(pathToken.getStart(), pathToken.getText().length());
+		return new BashSourceFileHyperlink(hyperlinkRegion, file, editor);
+	}
+
+	private File resolveFile(BashEditor editor, String path) {
+		File file = new File(path);
+		if (!file.isAbsolute()) {
+			File editorFile = editor.getEditorFile();
+			if (editorFile == null) {
+				return null;
 			}
-			sb.append(c);
+			file = new File(editorFile.getParentFile(), path);
 		}
-		String functionName = sb.toString();
-		BashFunction function = editor.findBashFunction(functionName);
-		if (function == null) {
+		if (!file.isFile()) {
 			return null;
 		}
-		Region targetRegion = new Region(offsetLeft, functionName.length());
-		return new IHyperlink[] { new BashFunctionHyperlink(targetRegion, function, editor) };
+		return file;
+	}
+
+	private String unquote(String text) {
+		if (text.length() > 1) {
+			char first = text.charAt(0);
+			if ((first == '"' || first == '\'') && text.charAt(text.length() - 1) == first) {
+				return text.substring(1, text.length() - 1);
+			}
+		}
+		return text;
 	}
 
 }
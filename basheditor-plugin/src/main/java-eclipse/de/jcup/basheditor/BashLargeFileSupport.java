@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.ui.IFileEditorInput;
+
+import de.jcup.basheditor.preferences.BashEditorPreferences;
+
+/**
+ * Decides if a document is edited in large file mode. Normally decided by
+ * size and line thresholds from preferences, but workspace files can
+ * override this by a persistent property.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashLargeFileSupport {
+
+	private static final QualifiedName LARGE_FILE_MODE_OVERRIDE = new QualifiedName(BashEditorActivator.PLUGIN_ID,
+			"largeFileMode");
+
+	/**
+	 * @param element
+	 *            editor input
+	 * @param document
+	 * @return <code>true</code> when document shall be edited in large file
+	 *         mode
+	 */
+	public static boolean isLargeFileMode(Object element, IDocument document) {
+		if (document == null) {
+			return false;
+		}
+		Boolean override = getOverride(element);
+		if (override != null) {
+			return override.booleanValue();
+		}
+		BashEditorPreferences preferences = BashEditorUtil.getPreferences();
+		LargeFileDetector detector = new LargeFileDetector(
+				preferences.getIntegerPreference(P_EDITOR_LARGE_FILE_MAX_SIZE),
+				preferences.getIntegerPreference(P_EDITOR_LARGE_FILE_MAX_LINES));
+		/* line tracker of document knows line count - so no text access necessary */
+		return detector.isLarge(document.getLength(), document.getNumberOfLines());
+	}
+
+	/**
+	 * Set large file mode for given element persistent
+	 * 
+	 * @param element
+	 *            editor input
+	 * @param largeFileMode
+	 * @return <code>true</code> when override was stored,
+	 *         <code>false</code> when element does not support an override
+	 */
+	public static boolean setOverride(Object element, boolean largeFileMode) {
+		IFile file = resolveFile(element);
+		if (file == null) {
+			return false;
+		}
+		try {
+			file.setPersistentProperty(LARGE_FILE_MODE_OVERRIDE, Boolean.toString(largeFileMode));
+			return true;
+		} catch (CoreException e) {
+			EclipseUtil.logError("Was not able to store large file mode for " + file, e);
+			return false;
+		}
+	}
+
+	private static Boolean getOverride(Object element) {
+		IFile file = resolveFile(element);
+		if (file == null) {
+			return null;
+		}
+		try {
+			String value = file.getPersistentProperty(LARGE_FILE_MODE_OVERRIDE);
+			if (value == null) {
+				return null;
+			}
+			return Boolean.valueOf(value);
+		} catch (CoreException e) {
+			/* resource not accessible - use defaults */
+			return null;
+		}
+	}
+
+	private static IFile resolveFile(Object element) {
+		if (!(element instanceof IFileEditorInput)) {
+			return null;
+		}
+		return ((IFileEditorInput) element).getFile();
+	}
+}
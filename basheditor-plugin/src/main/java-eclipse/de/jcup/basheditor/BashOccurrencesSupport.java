@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.BashEditorUtil.*;
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+
+import de.jcup.basheditor.script.BashScriptModel;
+import de.jcup.basheditor.script.BashSymbol;
+import de.jcup.basheditor.script.BashSymbolIndex;
+
+/**
+ * Marks all occurrences of the function or variable at caret position. Caret
+ * moves are debounced - only the last caret position inside the delay is
+ * resolved. Occurrences are taken from the symbol index of the script model,
+ * so the document text is never scanned.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashOccurrencesSupport {
+
+	static final String ANNOTATION_TYPE = "de.jcup.basheditor.occurrences";
+
+	private static final int DELAY_IN_MILLISECONDS = 300;
+
+	private BashEditor editor;
+	private OccurrencesJob job = new OccurrencesJob();
+	/* only accessed in UI thread */
+	private Annotation[] annotations = new Annotation[0];
+	private BashSymbol markedSymbol;
+	private long markedStamp = -1;
+
+	BashOccurrencesSupport(BashEditor editor) {
+		this.editor = editor;
+	}
+
+	/**
+	 * Schedules occurrence marking for given caret offset. A former scheduled
+	 * or running computation is canceled.
+	 * 
+	 * @param caretOffset
+	 */
+	void caretMoved(int caretOffset) {
+		if (!getPreferences().getBooleanPreference(P_EDITOR_MARK_OCCURRENCES)) {
+			removeAll();
+			return;
+		}
+		job.cancel();
+		job.caretOffset = caretOffset;
+		/* rescheduling a waiting job does only move its start */
+		job.schedule(DELAY_IN_MILLISECONDS);
+	}
+
+	void dispose() {
+		job.cancel();
+	}
+
+	/**
+	 * Removes all occurrence annotations - must be called in UI thread
+	 */
+	void removeAll() {
+		job.cancel();
+		update(null, new HashMap<Annotation, Position>(), -1);
+	}
+
+	private void update(BashSymbol symbol, Map<Annotation, Position> newAnnotations, long stamp) {
+		IAnnotationModel model = getAnnotationModel();
+		if (model == null) {
+			return;
+		}
+		if (annotations.length == 0 && newAnnotations.isEmpty()) {
+			return;
+		}
+		if (model instanceof IAnnotationModelExtension) {
+			((IAnnotationModelExtension) model).replaceAnnotations(annotations, newAnnotations);
+		} else {
+			for (Annotation annotation : annotations) {
+				model.removeAnnotation(annotation);
+			}
+			for (Map.Entry<Annotation, Position> entry : newAnnotations.entrySet()) {
+				model.addAnnotation(entry.getKey(), entry.getValue());
+			}
+		}
+		annotations = newAnnotations.keySet().toArray(new Annotation[newAnnotations.size()]);
+		markedSymbol = symbol;
+		markedStamp = stamp;
+	}
+
+	private IAnnotationModel getAnnotationModel() {
+		if (editor.getDocumentProvider() == null) {
+			/* disposed */
+			return null;
+		}
+		return editor.getDocumentProvider().getAnnotationModel(editor.getEditorInput());
+	}
+
+	private static long getStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	private class OccurrencesJob extends Job {
+
+		private volatile int caretOffset;
+
+		private OccurrencesJob() {
+			super("Bash editor mark occurrences");
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			IDocument document = editor.getDocument();
+			if (document == null) {
+				return Status.OK_STATUS;
+			}
+			int offset = caretOffset;
+			long stamp = getStamp(document);
+			BashScriptModel model = getModelServices().getModel(document);
+			if (monitor.isCanceled() || stamp != getStamp(document)) {
+				return Status.CANCEL_STATUS;
+			}
+			BashSymbolIndex index = model.getSymbolIndex();
+			BashSymbol symbol = index.getSymbolAt(offset);
+			Map<Annotation, Position> newAnnotations = new HashMap<>();
+			if (symbol != null) {
+				String description = "Occurrence of '" + symbol.getName() + "'";
+				int length = symbol.getName().length();
+				for (int symbolOffset : index.getOffsets(symbol)) {
+					newAnnotations.put(new Annotation(ANNOTATION_TYPE, false, description),
+							new Position(symbolOffset, length));
+				}
+			}
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			EclipseUtil.safeAsyncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					if (stamp != getStamp(document) || document != editor.getDocument()) {
+						/* outdated - next caret move will compute again */
+						return;
+					}
+					if (stamp == markedStamp && symbol != null && symbol.equals(markedSymbol)) {
+						/* still same symbol - nothing to change */
+						return;
+					}
+					update(symbol, newAnnotations, stamp);
+				}
+			});
+			return Status.OK_STATUS;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import org.eclipse.jface.text.source.Annotation;
+
+/**
+ * Annotation for a bash script problem found while typing. Those annotations
+ * live only inside the annotation model of the editor and do not touch the
+ * workspace.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashProblemAnnotation extends Annotation {
+
+	public static final String TYPE = "de.jcup.basheditor.script.problem.annotation";
+
+	public BashProblemAnnotation(String message) {
+		super(TYPE, false, message);
+	}
+}
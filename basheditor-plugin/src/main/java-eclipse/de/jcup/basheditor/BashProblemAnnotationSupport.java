@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+
+import de.jcup.basheditor.script.BashError;
+
+/**
+ * Shows bash script errors as {@link BashProblemAnnotation} inside an
+ * annotation model. Updates are done by diff - unchanged problems keep their
+ * annotations. Errors already committed as markers are not shown again.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashProblemAnnotationSupport {
+
+	private Map<String, BashProblemAnnotation> annotations = new HashMap<>();
+	private Set<String> committedKeys = new HashSet<>();
+
+	/**
+	 * Set errors which are already shown by markers
+	 * 
+	 * @param errors
+	 */
+	void setCommittedErrors(Collection<BashError> errors) {
+		committedKeys.clear();
+		for (BashError error : errors) {
+			committedKeys.add(createKey(error));
+		}
+	}
+
+	/**
+	 * Updates annotations inside given model
+	 * 
+	 * @param model
+	 * @param errors
+	 */
+	void update(IAnnotationModel model, Collection<BashError> errors) {
+		if (model == null) {
+			return;
+		}
+		Map<String, BashProblemAnnotation> newAnnotations = new HashMap<>();
+		Map<Annotation, Position> toAdd = new HashMap<>();
+		for (BashError error : errors) {
+			String key = createKey(error);
+			if (committedKeys.contains(key) || newAnnotations.containsKey(key)) {
+				continue;
+			}
+			BashProblemAnnotation annotation = annotations.remove(key);
+			if (annotation == null) {
+				annotation = new BashProblemAnnotation(error.getMessage());
+				int length = Math.max(0, error.getEnd() - error.getStart());
+				toAdd.put(annotation, new Position(error.getStart(), length));
+			}
+			newAnnotations.put(key, annotation);
+		}
+		Collection<BashProblemAnnotation> toRemove = annotations.values();
+		if (!toRemove.isEmpty() || !toAdd.isEmpty()) {
+			replace(model, toRemove, toAdd);
+		}
+		annotations = newAnnotations;
+	}
+
+	/**
+	 * Removes all problem annotations from given model
+	 * 
+	 * @param model
+	 */
+	void removeAll(IAnnotationModel model) {
+		if (model == null || annotations.isEmpty()) {
+			return;
+		}
+		replace(model, annotations.values(), new HashMap<Annotation, Position>());
+		annotations = new HashMap<>();
+	}
+
+	private void replace(IAnnotationModel model, Collection<BashProblemAnnotation> toRemove,
+			Map<Annotation, Position> toAdd) {
+		Annotation[] annotationsToRemove = toRemove.toArray(new Annotation[toRemove.size()]);
+		if (model instanceof IAnnotationModelExtension) {
+			/* one model change event only */
+			((IAnnotationModelExtension) model).replaceAnnotations(annotationsToRemove, toAdd);
+			return;
+		}
+		for (Annotation annotation : annotationsToRemove) {
+			model.removeAnnotation(annotation);
+		}
+		for (Map.Entry<Annotation, Position> entry : toAdd.entrySet()) {
+			model.addAnnotation(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private String createKey(BashError error) {
+		return error.getStart() + ":" + error.getEnd() + ":" + error.getMessage();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.reconciler.DirtyRegion;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
+import org.eclipse.jface.text.reconciler.IReconcilingStrategyExtension;
+
+/**
+ * Reconciling strategy used while typing. Is called by reconciler thread after
+ * a delay, so model building is done outside UI thread. When document changes
+ * while reconciling, the reconciler cancels the progress monitor and the
+ * outdated results are not published.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashReconcilingStrategy implements IReconcilingStrategy, IReconcilingStrategyExtension {
+
+	private IAdaptable adaptable;
+	private IDocument document;
+	private IProgressMonitor monitor;
+
+	/**
+	 * Creates reconciling strategy
+	 * 
+	 * @param adaptable
+	 *            must provide {@link BashEditor}
+	 */
+	public BashReconcilingStrategy(IAdaptable adaptable) {
+		this.adaptable = adaptable;
+	}
+
+	@Override
+	public void setDocument(IDocument document) {
+		this.document = document;
+	}
+
+	@Override
+	public void setProgressMonitor(IProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	@Override
+	public void initialReconcile() {
+		/*
+		 * nothing to do - editor does already build model when input is set
+		 */
+	}
+
+	@Override
+	public void reconcile(DirtyRegion dirtyRegion, IRegion subRegion) {
+		reconcile();
+	}
+
+	@Override
+	public void reconcile(IRegion partition) {
+		reconcile();
+	}
+
+	private void reconcile() {
+		if (adaptable == null || document == null) {
+			return;
+		}
+		BashEditor editor = adaptable.getAdapter(BashEditor.class);
+		if (editor == null) {
+			return;
+		}
+		int maxFileSize = BashEditorUtil.getPreferences().getIntegerPreference(P_EDITOR_RECONCILE_MAX_FILE_SIZE);
+		if (document.getLength() > maxFileSize) {
+			/* too big for updates while typing - will be updated on save */
+			return;
+		}
+		IProgressMonitor monitorToUse = monitor;
+		if (monitorToUse == null) {
+			monitorToUse = new NullProgressMonitor();
+		}
+		editor.buildAndPublishModel(document, monitorToUse);
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+import static de.jcup.basheditor.preferences.BashEditorValidationPreferenceConstants.*;
+
+import java.util.ConcurrentModificationException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.ISynchronizable;
+
+import de.jcup.basheditor.document.BashSynchronizableDocument;
+import de.jcup.basheditor.document.DocumentCharSequence;
+import de.jcup.basheditor.script.BashScriptModel;
+import de.jcup.basheditor.script.BashScriptModelBuilder;
+import de.jcup.basheditor.script.BashScriptModelService;
+import de.jcup.basheditor.script.BashScriptTextSource;
+
+/**
+ * Provides one {@link BashScriptModelService} per document. All editor
+ * features (outline, quick outline, hyperlinks, validation) fetch their model
+ * here, so a document state is parsed only once. Services are held weak, so
+ * they disappear together with their documents.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptModelServices {
+
+	private Map<IDocument, BashScriptModelService> services = new WeakHashMap<>();
+
+	private Executor jobExecutor = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			Job job = new Job("Bash script model build") {
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					command.run();
+					return Status.OK_STATUS;
+				}
+			};
+			job.setSystem(true);
+			job.schedule();
+		}
+	};
+
+	/**
+	 * Get model for current document state. When the model is not already
+	 * available it is built inside caller thread or - when already building -
+	 * the caller waits for the running build.
+	 * 
+	 * @param document
+	 * @return model, never <code>null</code>
+	 */
+	public BashScriptModel getModel(IDocument document) {
+		if (document == null) {
+			return new BashScriptModel();
+		}
+		while (true) {
+			try {
+				long version = getVersion(document);
+				return getService(document).getModel(version, createTextSource(document, version));
+			} catch (CompletionException e) {
+				if (!(e.getCause() instanceof ConcurrentModificationException)) {
+					throw e;
+				}
+				/* document changed while parsing - so try again with new version */
+			}
+		}
+	}
+
+	/**
+	 * Request model for current document state. Building is done
+	 * asynchronous when necessary.
+	 * 
+	 * @param document
+	 * @return future, never <code>null</code>
+	 */
+	public CompletableFuture<BashScriptModel> requestModel(IDocument document) {
+		if (document == null) {
+			return CompletableFuture.completedFuture(new BashScriptModel());
+		}
+		long version = getVersion(document);
+		return getService(document).requestModel(version, createTextSource(document, version));
+	}
+
+	/**
+	 * Get last built model for document - does never wait
+	 * 
+	 * @param document
+	 * @return last built model, maybe outdated or <code>null</code>
+	 */
+	public BashScriptModel getLatestModel(IDocument document) {
+		if (document == null) {
+			return null;
+		}
+		return getService(document).getLatestModel();
+	}
+
+	/**
+	 * Get model for current document state only when already built - does
+	 * never build and never wait
+	 * 
+	 * @param document
+	 * @return model or <code>null</code>
+	 */
+	public BashScriptModel getModelIfAvailable(IDocument document) {
+		if (document == null) {
+			return null;
+		}
+		return getService(document).getModelIfAvailable(getVersion(document));
+	}
+
+	/**
+	 * Reconfigures all services by current preferences and marks their models
+	 * as outdated
+	 */
+	public void invalidateAll() {
+		synchronized (services) {
+			for (BashScriptModelService service : services.values()) {
+				configure(service.getBuilder());
+				service.invalidate();
+			}
+		}
+	}
+
+	private BashScriptModelService getService(IDocument document) {
+		synchronized (services) {
+			BashScriptModelService service = services.get(document);
+			if (service == null) {
+				BashScriptModelBuilder builder = new BashScriptModelBuilder();
+				configure(builder);
+				service = new BashScriptModelService(builder, jobExecutor);
+				services.put(document, service);
+			}
+			return service;
+		}
+	}
+
+	private void configure(BashScriptModelBuilder builder) {
+		IPreferenceStore store = BashEditorUtil.getPreferences().getPreferenceStore();
+
+		boolean validateBlocks = store.getBoolean(VALIDATE_BLOCK_STATEMENTS.getId());
+		boolean validateDo = store.getBoolean(VALIDATE_DO_STATEMENTS.getId());
+		boolean validateIf = store.getBoolean(VALIDATE_IF_STATEMENTS.getId());
+		boolean validateFunctions = store.getBoolean(VALIDATE_FUNCTION_STATEMENTS.getId());
+		int maxErrors = store.getInt(VALIDATE_MAX_ERRORS.getId());
+
+		boolean debugMode = Boolean.parseBoolean(System.getProperty("basheditor.debug.enabled"));
+
+		builder.setIgnoreBlockValidation(!validateBlocks);
+		builder.setIgnoreDoValidation(!validateDo);
+		builder.setIgnoreIfValidation(!validateIf);
+		builder.setIgnoreFunctionValidation(!validateFunctions);
+		builder.setMaxErrors(maxErrors);
+
+		builder.setDebug(debugMode);
+
+		builder.setTimingsEnabled(debugMode || store.getBoolean(P_EDITOR_SHOW_TIMINGS.getId()));
+	}
+
+	private long getVersion(IDocument document) {
+		if (document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return BashScriptModelService.UNKNOWN_VERSION;
+	}
+
+	/**
+	 * Creates source for text of given document version. The text is read
+	 * while the model is tokenized - inside a job while the UI thread may edit
+	 * the document. So reading is done under the lock of synchronizable
+	 * documents, and the version is checked before. The text is never copied:
+	 * {@link BashSynchronizableDocument} provides its text store, other
+	 * documents are read by {@link DocumentCharSequence}. Documents without lock
+	 * are checked again after reading. When the document has another version a
+	 * {@link ConcurrentModificationException} is thrown - {@link #getModel}
+	 * tries again - so a model is never stored for a version it was not built
+	 * from.
+	 */
+	private BashScriptTextSource createTextSource(IDocument document, long version) {
+		return new BashScriptTextSource() {
+
+			@Override
+			public <T> T read(Function<CharSequence, T> reader) {
+				Object lock = null;
+				if (document instanceof ISynchronizable) {
+					lock = ((ISynchronizable) document).getLockObject();
+				}
+				if (lock == null) {
+					return readUnlocked(document, version, reader);
+				}
+				synchronized (lock) {
+					/* edits wait until tokenizing is done */
+					assertVersion(document, version);
+					if (document instanceof BashSynchronizableDocument) {
+						return reader.apply(((BashSynchronizableDocument) document).getLockedText());
+					}
+					return reader.apply(new DocumentCharSequence(document));
+				}
+			}
+		};
+	}
+
+	/**
+	 * Reads document without lock - a change while reading can cause any
+	 * exception, so the version is checked again afterwards
+	 */
+	private <T> T readUnlocked(IDocument document, long version, Function<CharSequence, T> reader) {
+		assertVersion(document, version);
+		T result;
+		try {
+			result = reader.apply(new DocumentCharSequence(document));
+		} catch (RuntimeException e) {
+			assertVersion(document, version);
+			throw e;
+		}
+		assertVersion(document, version);
+		return result;
+	}
+
+	private void assertVersion(IDocument document, long version) {
+		if (version == BashScriptModelService.UNKNOWN_VERSION) {
+			return;
+		}
+		if (getVersion(document) != version) {
+			throw new ConcurrentModificationException("Document changed since model was requested");
+		}
+	}
+}
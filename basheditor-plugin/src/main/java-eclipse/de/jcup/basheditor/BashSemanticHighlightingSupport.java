@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static de.jcup.basheditor.BashEditorUtil.*;
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
+import static de.jcup.basheditor.preferences.BashEditorSyntaxColorPreferenceConstants.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextPresentationListener;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.ITextViewerExtension2;
+import org.eclipse.jface.text.ITextViewerExtension4;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.graphics.Color;
+
+import de.jcup.basheditor.presentation.BashViewportPresentationReconciler;
+import de.jcup.basheditor.script.BashSemanticHighlighting;
+import de.jcup.basheditor.script.BashSemanticHighlighting.SemanticType;
+
+/**
+ * Merges semantic highlighting (functions and variables known by the script
+ * model) into text presentations created by the presentation reconciler. When
+ * a new highlighting is set, only the region where highlighting has changed
+ * is presented again - and only the visible part of it plus a margin. The
+ * remaining part is presented when scrolled into view.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashSemanticHighlightingSupport implements ITextPresentationListener, IViewportListener {
+
+	private ITextViewer viewer;
+
+	/* only accessed in UI thread */
+	private BashSemanticHighlighting highlighting = BashSemanticHighlighting.EMPTY;
+	private long highlightingStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	private int highlightingDocumentLength;
+	private int pendingStart = -1;
+	private int pendingEnd = -1;
+	private int missedStart = -1;
+	private int missedEnd = -1;
+	private Map<SemanticType, StyleRange> styles;
+
+	void install(ITextViewer viewer) {
+		if (!(viewer instanceof ITextViewerExtension4)) {
+			return;
+		}
+		this.viewer = viewer;
+		((ITextViewerExtension4) viewer).addTextPresentationListener(this);
+		viewer.addViewportListener(this);
+	}
+
+	void uninstall() {
+		if (viewer == null) {
+			return;
+		}
+		((ITextViewerExtension4) viewer).removeTextPresentationListener(this);
+		viewer.removeViewportListener(this);
+		viewer = null;
+	}
+
+	/**
+	 * Colors are resolved again on next presentation. Must be called inside UI
+	 * thread.
+	 */
+	void colorsChanged() {
+		styles = null;
+	}
+
+	/**
+	 * Sets new highlighting. Must be called inside UI thread.
+	 * 
+	 * @param newHighlighting
+	 * @param stamp
+	 *            modification stamp of document the highlighting was created
+	 *            for. When document has been changed meanwhile, nothing
+	 *            happens - a newer highlighting will follow.
+	 */
+	void update(BashSemanticHighlighting newHighlighting, long stamp) {
+		if (viewer == null) {
+			return;
+		}
+		IDocument document = viewer.getDocument();
+		if (document == null || stamp != getStamp(document)) {
+			return;
+		}
+		int documentLength = document.getLength();
+		int[] changed = newHighlighting.computeChangedRange(highlighting,
+				documentLength - highlightingDocumentLength);
+
+		highlighting = newHighlighting;
+		highlightingStamp = stamp;
+		highlightingDocumentLength = documentLength;
+
+		if (missedStart != -1) {
+			/* presented while highlighting was outdated */
+			addPending(missedStart, missedEnd);
+			missedStart = -1;
+			missedEnd = -1;
+		}
+		if (changed != null) {
+			addPending(changed[0], changed[1]);
+		}
+		invalidateVisiblePending();
+	}
+
+	@Override
+	public void viewportChanged(int verticalOffset) {
+		invalidateVisiblePending();
+	}
+
+	@Override
+	public void applyTextPresentation(TextPresentation textPresentation) {
+		if (viewer == null) {
+			return;
+		}
+		IDocument document = viewer.getDocument();
+		IRegion extent = textPresentation.getExtent();
+		if (document == null || extent == null) {
+			return;
+		}
+		if (highlightingStamp != getStamp(document)) {
+			/* offsets are outdated - present again with next highlighting */
+			addMissed(extent.getOffset(), extent.getOffset() + extent.getLength());
+			return;
+		}
+		if (highlighting.size() == 0 || !getPreferences().getBooleanPreference(P_EDITOR_SEMANTIC_HIGHLIGHTING)) {
+			return;
+		}
+		int extentEnd = extent.getOffset() + extent.getLength();
+		Map<SemanticType, StyleRange> templates = getStyles();
+		for (int i = highlighting.indexOfFirstEndingAfter(extent.getOffset()); i < highlighting.size(); i++) {
+			int offset = highlighting.getOffset(i);
+			if (offset >= extentEnd) {
+				break;
+			}
+			StyleRange template = templates.get(highlighting.getType(i));
+			int start = Math.max(offset, extent.getOffset());
+			int end = Math.min(offset + highlighting.getLength(i), extentEnd);
+			textPresentation.mergeStyleRange(
+					new StyleRange(start, end - start, template.foreground, null, template.fontStyle));
+		}
+	}
+
+	private void addPending(int start, int end) {
+		if (pendingStart == -1) {
+			pendingStart = start;
+			pendingEnd = end;
+		} else {
+			pendingStart = Math.min(pendingStart, start);
+			pendingEnd = Math.max(pendingEnd, end);
+		}
+	}
+
+	private void addMissed(int start, int end) {
+		if (missedStart == -1) {
+			missedStart = start;
+			missedEnd = end;
+		} else {
+			missedStart = Math.min(missedStart, start);
+			missedEnd = Math.max(missedEnd, end);
+		}
+	}
+
+	private void invalidateVisiblePending() {
+		if (pendingStart == -1 || !(viewer instanceof ITextViewerExtension2)) {
+			return;
+		}
+		IDocument document = viewer.getDocument();
+		if (document == null) {
+			return;
+		}
+		IRegion visible = BashViewportPresentationReconciler.computeVisibleRegion(viewer,
+				BashViewportPresentationReconciler.VISIBLE_MARGIN);
+		if (visible == null) {
+			return;
+		}
+		int documentLength = document.getLength();
+		int visibleStart = visible.getOffset();
+		int visibleEnd = visibleStart + visible.getLength();
+
+		int pendingEndInDocument = Math.min(pendingEnd, documentLength);
+		int start = Math.max(pendingStart, visibleStart);
+		int end = Math.min(pendingEndInDocument, visibleEnd);
+		if (end <= start) {
+			return;
+		}
+		/* keep only parts of pending region which are still not visible */
+		if (start == pendingStart && end == pendingEndInDocument) {
+			pendingStart = -1;
+			pendingEnd = -1;
+		} else if (start == pendingStart) {
+			pendingStart = end;
+		} else if (end == pendingEndInDocument) {
+			pendingEnd = start;
+		}
+		/*
+		 * when visible part is in the middle of pending region, the pending
+		 * region is kept - presenting a part twice is cheaper than tracking
+		 * multiple regions
+		 */
+		((ITextViewerExtension2) viewer).invalidateTextPresentation(start, end - start);
+	}
+
+	private Map<SemanticType, StyleRange> getStyles() {
+		if (styles != null) {
+			return styles;
+		}
+		ColorManager colorManager = BashEditorActivator.getDefault().getColorManager();
+		Map<SemanticType, StyleRange> map = new EnumMap<>(SemanticType.class);
+		map.put(SemanticType.FUNCTION_DECLARATION,
+				createTemplate(colorManager.getColor(getPreferences().getColor(COLOR_FUNCTION_DECLARATION)), SWT.BOLD));
+		map.put(SemanticType.FUNCTION_CALL,
+				createTemplate(colorManager.getColor(getPreferences().getColor(COLOR_FUNCTION_CALL)), SWT.NORMAL));
+		map.put(SemanticType.DEFINED_VARIABLE,
+				createTemplate(colorManager.getColor(getPreferences().getColor(COLOR_DEFINED_VARIABLES)), SWT.NORMAL));
+		map.put(SemanticType.UNDEFINED_VARIABLE, createTemplate(
+				colorManager.getColor(getPreferences().getColor(COLOR_UNDEFINED_VARIABLES)), SWT.ITALIC));
+		styles = map;
+		return styles;
+	}
+
+	private StyleRange createTemplate(Color color, int fontStyle) {
+		StyleRange template = new StyleRange();
+		template.foreground = color;
+		template.fontStyle = fontStyle;
+		return template;
+	}
+
+	private long getStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+}
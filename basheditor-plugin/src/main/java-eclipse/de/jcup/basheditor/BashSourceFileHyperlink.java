@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static org.eclipse.core.runtime.Assert.*;
+
+import java.io.File;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.hyperlink.IHyperlink;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.ide.IDE;
+
+/**
+ * Hyperlink for files sourced by "source" or "." command
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashSourceFileHyperlink implements IHyperlink {
+
+	private IRegion region;
+	private File file;
+	private BashEditor editor;
+
+	public BashSourceFileHyperlink(IRegion region, File file, BashEditor editor) {
+		isNotNull(region, "region may not be null!");
+		isNotNull(file, "file may not be null!");
+		isNotNull(editor, "editor may not be null!");
+		this.region = region;
+		this.file = file;
+		this.editor = editor;
+	}
+
+	@Override
+	public IRegion getHyperlinkRegion() {
+		return region;
+	}
+
+	@Override
+	public String getTypeLabel() {
+		return "Open sourced file";
+	}
+
+	@Override
+	public String getHyperlinkText() {
+		return "Opens " + file.getName();
+	}
+
+	@Override
+	public void open() {
+		IWorkbenchPage page = editor.getSite().getPage();
+		try {
+			/* prefer workspace file, so markers etc. are available */
+			IFile workspaceFile = ResourcesPlugin.getWorkspace().getRoot()
+					.getFileForLocation(Path.fromOSString(file.getAbsolutePath()));
+			if (workspaceFile != null && workspaceFile.exists()) {
+				IDE.openEditor(page, workspaceFile);
+				return;
+			}
+			IFileStore fileStore = EFS.getLocalFileSystem().getStore(file.toURI());
+			IDE.openEditorOnFileStore(page, fileStore);
+		} catch (PartInitException e) {
+			editor.setErrorMessage("Was not able to open " + file.getAbsolutePath());
+		}
+	}
+
+}
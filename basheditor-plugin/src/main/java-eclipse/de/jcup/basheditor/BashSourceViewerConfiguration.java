@@ -17,20 +17,27 @@ package de.jcup.basheditor;
 
 import static de.jcup.basheditor.BashEditorUtil.*;
 import static de.jcup.basheditor.document.BashDocumentIdentifiers.*;
+import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
 import static de.jcup.basheditor.preferences.BashEditorSyntaxColorPreferenceConstants.*;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.TextAttribute;
+import org.eclipse.jface.text.contentassist.ContentAssistant;
+import org.eclipse.jface.text.contentassist.IContentAssistant;
 import org.eclipse.jface.text.hyperlink.IHyperlinkDetector;
 import org.eclipse.jface.text.hyperlink.URLHyperlinkDetector;
 import org.eclipse.jface.text.presentation.IPresentationReconciler;
 import org.eclipse.jface.text.presentation.PresentationReconciler;
 import org.eclipse.jface.text.quickassist.IQuickAssistAssistant;
 import org.eclipse.jface.text.reconciler.IReconciler;
+import org.eclipse.jface.text.reconciler.MonoReconciler;
 import org.eclipse.jface.text.rules.DefaultDamagerRepairer;
 import org.eclipse.jface.text.rules.IToken;
 import org.eclipse.jface.text.rules.Token;
@@ -45,8 +52,15 @@ import org.eclipse.ui.editors.text.TextSourceViewerConfiguration;
 import org.eclipse.ui.texteditor.ChainedPreferenceStore;
 import org.eclipse.ui.texteditor.MarkerAnnotation;
 
+import de.jcup.basheditor.completion.BashContentAssistProcessor;
+import de.jcup.basheditor.document.BashDocumentIdentifier;
+import de.jcup.basheditor.document.BashDocumentPartitionScanner;
 import de.jcup.basheditor.presentation.BashDefaultTextScanner;
+import de.jcup.basheditor.presentation.BashLargeFileTextScanner;
+import de.jcup.basheditor.presentation.BashViewportPresentationReconciler;
+import de.jcup.basheditor.presentation.PresentationStyleCache;
 import de.jcup.basheditor.presentation.PresentationSupport;
+import de.jcup.basheditor.preferences.BashEditorSyntaxColorPreferenceConstants;
 /**
  * 
  * @author Albert Tregnaghi
@@ -60,6 +74,7 @@ public class BashSourceViewerConfiguration extends TextSourceViewerConfiguration
 	private TextAttribute defaultTextAttribute;
 	private BashEditorAnnotationHoover annotationHoover;
 	private IAdaptable adaptable;
+	private PresentationStyleCache styleCache;
 	/**
 	 * Creates configuration by given adaptable
 	 * 
@@ -87,10 +102,36 @@ public class BashSourceViewerConfiguration extends TextSourceViewerConfiguration
 		return null;
 	}
 	public IReconciler getReconciler(ISourceViewer sourceViewer) {
-		/* currently we avoid the default reconciler mechanism parts (spell checking etc.)*/
-		return null;
+		if (isLargeFileMode()) {
+			/* large files are only updated on save */
+			return null;
+		}
+		/* 
+		 * we avoid the default reconciler mechanism parts (spell checking etc.) 
+		 * but use our own strategy to update outline and validation while typing
+		 */
+		MonoReconciler reconciler = new MonoReconciler(new BashReconcilingStrategy(adaptable), false);
+		reconciler.setDelay(getPreferences().getIntegerPreference(P_EDITOR_RECONCILE_DELAY));
+		return reconciler;
 	}
 	
+	@Override
+	public IContentAssistant getContentAssistant(ISourceViewer sourceViewer) {
+		ContentAssistant assistant = new ContentAssistant();
+		BashContentAssistProcessor processor = new BashContentAssistProcessor();
+		for (String contentType : getConfiguredContentTypes(sourceViewer)) {
+			if (COMMENT.getId().equals(contentType) || SINGLE_STRING.getId().equals(contentType)) {
+				continue;
+			}
+			assistant.setContentAssistProcessor(processor, contentType);
+		}
+		assistant.enableAutoActivation(true);
+		assistant.setAutoActivationDelay(200);
+		assistant.enableAutoInsert(true);
+		assistant.setInformationControlCreator(getInformationControlCreator(sourceViewer));
+		return assistant;
+	}
+
 	@Override
 	public IAnnotationHover getAnnotationHover(ISourceViewer sourceViewer) {
 		return annotationHoover;
@@ -102,6 +143,9 @@ public class BashSourceViewerConfiguration extends TextSourceViewerConfiguration
 			if (annotation instanceof MarkerAnnotation) {
 				return true;
 			}
+			if (annotation instanceof BashProblemAnnotation) {
+				return true;
+			}
 			/* we do not support other annotations */
 			return false;
 		}
@@ -125,28 +169,90 @@ public class BashSourceViewerConfiguration extends TextSourceViewerConfiguration
 	
 	@Override
 	public IPresentationReconciler getPresentationReconciler(ISourceViewer sourceViewer) {
-		PresentationReconciler reconciler = new PresentationReconciler();
+		if (isLargeFileMode()) {
+			return createLargeFilePresentationReconciler();
+		}
+		/* only visible parts are presented, e.g. an unclosed quote damages up to document end */
+		PresentationReconciler reconciler = new BashViewportPresentationReconciler();
 
 		addDefaultPresentation(reconciler);
 
-		addPresentation(reconciler, BASH_KEYWORD.getId(), getPreferences().getColor(COLOR_BASH_KEYWORD),SWT.BOLD);
-		addPresentation(reconciler, BASH_SYSTEM_KEYWORD.getId(), getPreferences().getColor(COLOR_BASH_KEYWORD),SWT.BOLD);
+		/* one cache for all content types, so color changes need no reconfiguration */
+		styleCache = createStyleCache();
+		for (String contentType : styleCache.getContentTypes()) {
+			addPresentation(reconciler, contentType);
+		}
+		return reconciler;
+	}
+
+	/**
+	 * Updates style templates using given color preference. Presentation
+	 * supports use new templates at next repair.
+	 * 
+	 * @param colorId
+	 *            identifier of changed color preference
+	 * @return <code>true</code> when color was handled, <code>false</code> when
+	 *         viewer must be configured again
+	 */
+	public boolean updateSyntaxColor(String colorId) {
+		if (styleCache == null || isLargeFileMode()) {
+			return false;
+		}
+		for (BashEditorSyntaxColorPreferenceConstants color : BashEditorSyntaxColorPreferenceConstants.values()) {
+			if (color.getId().equals(colorId)) {
+				return styleCache.updateColor(colorId, getPreferences().getColor(color));
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Large files have no partitions, so the partition scanner is used as
+	 * token scanner for visible parts only.
+	 * 
+	 * @return presentation reconciler for large file mode
+	 */
+	private IPresentationReconciler createLargeFilePresentationReconciler() {
+		Map<String, IToken> tokens = new HashMap<>();
+		PresentationStyleCache cache = createStyleCache();
+		for (String contentType : cache.getContentTypes()) {
+			tokens.put(contentType, new Token(cache.createTextAttribute(contentType)));
+		}
+		IToken defaultToken = createColorToken(getPreferences().getColor(COLOR_NORMAL_TEXT));
+		BashLargeFileTextScanner scanner = new BashLargeFileTextScanner(new BashDocumentPartitionScanner(), tokens,
+				defaultToken);
+
+		BashViewportPresentationReconciler reconciler = new BashViewportPresentationReconciler();
+		DefaultDamagerRepairer dr = new DefaultDamagerRepairer(scanner);
+		reconciler.setDamager(dr, IDocument.DEFAULT_CONTENT_TYPE);
+		reconciler.setRepairer(dr, IDocument.DEFAULT_CONTENT_TYPE);
+		return reconciler;
+	}
+
+	private PresentationStyleCache createStyleCache() {
+		PresentationStyleCache cache = new PresentationStyleCache(colorManager, defaultTextAttribute.getBackground());
+		addStyle(cache, BASH_KEYWORD, COLOR_BASH_KEYWORD, SWT.BOLD);
+		addStyle(cache, BASH_SYSTEM_KEYWORD, COLOR_BASH_KEYWORD, SWT.BOLD);
 
 		// Groovy provides different strings: simple and GStrings, so we use separate colors:
-		addPresentation(reconciler, SINGLE_STRING.getId(), getPreferences().getColor(COLOR_NORMAL_STRING),SWT.NONE);
-		addPresentation(reconciler, DOUBLE_STRING.getId(), getPreferences().getColor(COLOR_GSTRING),SWT.NONE);
-		addPresentation(reconciler, BACKTICK_STRING.getId(), getPreferences().getColor(COLOR_BSTRING),SWT.NONE);
-		
-		addPresentation(reconciler, COMMENT.getId(), getPreferences().getColor(COLOR_COMMENT),SWT.NONE);
-		addPresentation(reconciler, PARAMETER.getId(), getPreferences().getColor(COLOR_PARAMETERS),SWT.NONE);
-		addPresentation(reconciler, INCLUDE_KEYWORD.getId(), getPreferences().getColor(COLOR_INCLUDE_KEYWORD),SWT.BOLD);
-		addPresentation(reconciler, BASH_COMMAND.getId(), getPreferences().getColor(COLOR_BASH_COMMAND),SWT.BOLD|SWT.NONE);
+		addStyle(cache, SINGLE_STRING, COLOR_NORMAL_STRING, SWT.NONE);
+		addStyle(cache, DOUBLE_STRING, COLOR_GSTRING, SWT.NONE);
+		addStyle(cache, BACKTICK_STRING, COLOR_BSTRING, SWT.NONE);
 		
+		addStyle(cache, COMMENT, COLOR_COMMENT, SWT.NONE);
+		addStyle(cache, PARAMETER, COLOR_PARAMETERS, SWT.NONE);
+		addStyle(cache, INCLUDE_KEYWORD, COLOR_INCLUDE_KEYWORD, SWT.BOLD);
+		addStyle(cache, BASH_COMMAND, COLOR_BASH_COMMAND, SWT.BOLD|SWT.NONE);
 		
-		addPresentation(reconciler, VARIABLES.getId(), getPreferences().getColor(COLOR_KNOWN_VARIABLES),SWT.NONE);
-		addPresentation(reconciler, KNOWN_VARIABLES.getId(), getPreferences().getColor(COLOR_KNOWN_VARIABLES),SWT.NONE);
 		
-		return reconciler;
+		addStyle(cache, VARIABLES, COLOR_KNOWN_VARIABLES, SWT.NONE);
+		addStyle(cache, KNOWN_VARIABLES, COLOR_KNOWN_VARIABLES, SWT.NONE);
+		return cache;
+	}
+
+	private boolean isLargeFileMode() {
+		BashEditor editor = adaptable.getAdapter(BashEditor.class);
+		return editor != null && editor.isLargeFileMode();
 	}
 
 	private void addDefaultPresentation(PresentationReconciler reconciler) {
@@ -160,10 +266,13 @@ public class BashSourceViewerConfiguration extends TextSourceViewerConfiguration
 		return token;
 	}
 
-	private void addPresentation(PresentationReconciler reconciler, String id, RGB rgb, int style) {
-		TextAttribute textAttribute = new TextAttribute(colorManager.getColor(rgb),
-				defaultTextAttribute.getBackground(), style);
-		PresentationSupport presentation = new PresentationSupport(textAttribute);
+	private void addStyle(PresentationStyleCache cache, BashDocumentIdentifier identifier,
+			BashEditorSyntaxColorPreferenceConstants color, int style) {
+		cache.put(identifier.getId(), color.getId(), getPreferences().getColor(color), style);
+	}
+
+	private void addPresentation(PresentationReconciler reconciler, String id) {
+		PresentationSupport presentation = new PresentationSupport(styleCache, id);
 		reconciler.setDamager(presentation, id);
 		reconciler.setRepairer(presentation, id);
 	}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static org.eclipse.core.runtime.Assert.*;
+
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.hyperlink.IHyperlink;
+
+public class BashVariableHyperlink implements IHyperlink {
+
+	private IRegion region;
+	private String variableName;
+	private int declarationOffset;
+	private BashEditor editor;
+
+	public BashVariableHyperlink(IRegion region, String variableName, int declarationOffset, BashEditor editor) {
+		isNotNull(region, "region may not be null!");
+		isNotNull(variableName, "variable name may not be null!");
+		isNotNull(editor, "editor may not be null!");
+		this.region = region;
+		this.variableName = variableName;
+		this.declarationOffset = declarationOffset;
+		this.editor = editor;
+	}
+
+	@Override
+	public IRegion getHyperlinkRegion() {
+		return region;
+	}
+
+	@Override
+	public String getTypeLabel() {
+		return "Open variable";
+	}
+
+	@Override
+	public String getHyperlinkText() {
+		return "Opens declaration of " + variableName;
+	}
+
+	@Override
+	public void open() {
+		editor.selectAndReveal(declarationOffset, variableName.length());
+	}
+
+}
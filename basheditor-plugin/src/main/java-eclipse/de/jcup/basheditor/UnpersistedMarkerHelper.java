@@ -16,7 +16,9 @@
 package de.jcup.basheditor;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
@@ -33,11 +35,12 @@ import org.eclipse.core.runtime.CoreException;
 @AdaptedFromEGradle
 public class UnpersistedMarkerHelper extends AbstractMarkerHelper {
 
-	private List<IMarker> markerRegistry;
+	/* a set, so removing one marker does not search a list */
+	private Set<IMarker> markerRegistry;
 
 	public UnpersistedMarkerHelper(String markerType) {
 		this.markerType = markerType;
-		markerRegistry = new ArrayList<>();
+		markerRegistry = new LinkedHashSet<>();
 	}
 
 	@Override
@@ -48,6 +51,11 @@ public class UnpersistedMarkerHelper extends AbstractMarkerHelper {
 		markerRegistry.add(marker);
 	}
 
+	@Override
+	protected void handleMarkerRemoved(IMarker marker) {
+		markerRegistry.remove(marker);
+	}
+
 	/**
 	 * Removes all created error markers
 	 * 
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.completion;
+
+import static de.jcup.basheditor.BashEditorUtil.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+import org.eclipse.jface.text.contentassist.IContextInformationValidator;
+import org.eclipse.jface.text.contentassist.IContentAssistProcessor;
+import org.eclipse.swt.graphics.Image;
+
+import de.jcup.basheditor.BashEditorActivator;
+import de.jcup.basheditor.EclipseUtil;
+import de.jcup.basheditor.SortedWordIndex;
+import de.jcup.basheditor.document.keywords.BashGnuCommandKeyWords;
+import de.jcup.basheditor.document.keywords.BashIncludeKeyWords;
+import de.jcup.basheditor.document.keywords.BashLanguageKeyWords;
+import de.jcup.basheditor.document.keywords.BashSpecialVariableKeyWords;
+import de.jcup.basheditor.document.keywords.DocumentKeyWord;
+import de.jcup.basheditor.script.BashScriptModel;
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+import de.jcup.basheditor.script.BashSymbolIndex;
+
+/**
+ * Content assist for functions, variables, keywords, builtins and commands
+ * (including executables found inside $PATH).
+ * Uses only the latest already built model - proposals are computed by prefix
+ * range lookups inside sorted word indexes, so there is no parsing and no
+ * text scan inside UI thread.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashContentAssistProcessor implements IContentAssistProcessor {
+
+	/* limits proposal creation for very short prefixes in big scripts */
+	private static final int MAX_PROPOSALS = 500;
+	private static final int MAX_PREFIX_LENGTH = 200;
+
+	private static SortedWordIndex keywords;
+	private static SortedWordIndex specialVariables;
+
+	@Override
+	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
+		IDocument document = viewer.getDocument();
+		if (document == null) {
+			return null;
+		}
+		int prefixStart = findPrefixStart(document, offset);
+		String prefix;
+		char charBefore;
+		try {
+			prefix = document.get(prefixStart, offset - prefixStart);
+			charBefore = prefixStart > 0 ? document.getChar(prefixStart - 1) : 0;
+			if (charBefore == '{' && prefixStart > 1 && document.getChar(prefixStart - 2) == '$') {
+				charBefore = '$';
+			}
+		} catch (BadLocationException e) {
+			return null;
+		}
+		BashScriptModel model = getModelServices().getLatestModel(document);
+		if (model == null) {
+			/* next content assist will have a model */
+			getModelServices().requestModel(document);
+		}
+		List<ICompletionProposal> proposals = new ArrayList<>();
+		if (charBefore == '$') {
+			if (model != null) {
+				addProposals(proposals, getNames(model, SymbolType.VARIABLE), prefix, prefixStart, "variable");
+			}
+			addProposals(proposals, getSpecialVariables(), prefix, prefixStart, "variable");
+		} else {
+			if (model != null) {
+				addProposals(proposals, getNames(model, SymbolType.FUNCTION), prefix, prefixStart, "function");
+			}
+			addProposals(proposals, getKeywords(), prefix, prefixStart, "keyword");
+			addProposals(proposals, getExecutables(), prefix, prefixStart, "command");
+		}
+		return proposals.toArray(new ICompletionProposal[proposals.size()]);
+	}
+
+	private SortedWordIndex getExecutables() {
+		BashEditorActivator activator = BashEditorActivator.getDefault();
+		if (activator == null) {
+			return SortedWordIndex.EMPTY;
+		}
+		return activator.getExecutables().getIndex().getNames();
+	}
+
+	private SortedWordIndex getNames(BashScriptModel model, SymbolType type) {
+		BashSymbolIndex symbolIndex = model.getSymbolIndex();
+		return symbolIndex.getNames(type);
+	}
+
+	private void addProposals(List<ICompletionProposal> proposals, SortedWordIndex index, String prefix,
+			int prefixStart, String type) {
+		int max = MAX_PROPOSALS - proposals.size();
+		if (max <= 0) {
+			return;
+		}
+		Image image = "function".equals(type) ? getFunctionImage() : null;
+		for (String word : index.findByPrefix(prefix, max)) {
+			if (word.equals(prefix)) {
+				/* already complete */
+				continue;
+			}
+			proposals.add(new CompletionProposal(word, prefixStart, prefix.length(), word.length(), image,
+					word + " - " + type, null, null));
+		}
+	}
+
+	private int findPrefixStart(IDocument document, int offset) {
+		int start = offset;
+		try {
+			while (start > 0 && offset - start < MAX_PREFIX_LENGTH) {
+				char c = document.getChar(start - 1);
+				if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-')) {
+					break;
+				}
+				start--;
+			}
+		} catch (BadLocationException e) {
+			return offset;
+		}
+		return start;
+	}
+
+	private Image getFunctionImage() {
+		return EclipseUtil.getImage("/icons/outline/public_co.png", BashEditorActivator.PLUGIN_ID);
+	}
+
+	private static synchronized SortedWordIndex getKeywords() {
+		if (keywords == null) {
+			List<String> words = new ArrayList<>();
+			addTexts(words, BashLanguageKeyWords.values());
+			addTexts(words, BashGnuCommandKeyWords.values());
+			addTexts(words, BashIncludeKeyWords.values());
+			keywords = new SortedWordIndex(words);
+		}
+		return keywords;
+	}
+
+	private static synchronized SortedWordIndex getSpecialVariables() {
+		if (specialVariables == null) {
+			List<String> words = new ArrayList<>();
+			addTexts(words, BashSpecialVariableKeyWords.values());
+			specialVariables = new SortedWordIndex(words);
+		}
+		return specialVariables;
+	}
+
+	private static void addTexts(List<String> words, DocumentKeyWord[] keywords) {
+		for (DocumentKeyWord keyword : keywords) {
+			words.add(keyword.getText());
+		}
+	}
+
+	@Override
+	public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
+		return null;
+	}
+
+	@Override
+	public char[] getCompletionProposalAutoActivationCharacters() {
+		return new char[] { '$' };
+	}
+
+	@Override
+	public char[] getContextInformationAutoActivationCharacters() {
+		return null;
+	}
+
+	@Override
+	public String getErrorMessage() {
+		return null;
+	}
+
+	@Override
+	public IContextInformationValidator getContextInformationValidator() {
+		return null;
+	}
+
+}
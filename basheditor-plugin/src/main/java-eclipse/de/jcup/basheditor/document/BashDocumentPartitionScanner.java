@@ -15,84 +15,42 @@
  */
 package de.jcup.basheditor.document;
 
-import static de.jcup.basheditor.document.BashDocumentIdentifiers.*;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import org.eclipse.jface.text.rules.IPredicateRule;
-import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
-import org.eclipse.jface.text.rules.SingleLineRule;
-import org.eclipse.jface.text.rules.Token;
-
-import de.jcup.basheditor.document.keywords.BashGnuCommandKeyWords;
-import de.jcup.basheditor.document.keywords.BashIncludeKeyWords;
-import de.jcup.basheditor.document.keywords.BashLanguageKeyWords;
-import de.jcup.basheditor.document.keywords.BashSpecialVariableKeyWords;
-import de.jcup.basheditor.document.keywords.BashSystemKeyWords;
-import de.jcup.basheditor.document.keywords.DocumentKeyWord;
 
+/**
+ * Partition scanner for bash documents. The rules are shared by all scanners
+ * (see {@link BashPartitionRules}), so creating a scanner per document is
+ * cheap.<br>
+ * <br>
+ * When the partitioner resumes inside a partition (e.g. typing inside a
+ * multi line string or a <code>$(...)</code> variable), scanning starts again
+ * at partition start. Rules resuming in the middle would miss escape
+ * characters and nested groups before the change.<br>
+ * <br>
+ * An unterminated quote still makes its partition run to document end. The
+ * rescan after such a change is cut behind a damage limit by
+ * {@link BashPartitioner}, which finishes the rest when typing has paused.
+ * Repainting is limited to the viewport - see
+ * {@link de.jcup.basheditor.presentation.BashViewportPresentationReconciler}.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
 public class BashDocumentPartitionScanner extends RuleBasedPartitionScanner {
 
-	private OnlyLettersKeyWordDetector onlyLettersWordDetector = new OnlyLettersKeyWordDetector();
-	private VariableDefKeyWordDetector variableDefKeyWordDetector = new VariableDefKeyWordDetector();
-
 	public BashDocumentPartitionScanner() {
-
-		IToken parameters = createToken(PARAMETER);
-		IToken comment = createToken(COMMENT);
-		IToken simpleString = createToken(SINGLE_STRING);
-		IToken doubleString = createToken(DOUBLE_STRING);
-		IToken backtickString = createToken(BACKTICK_STRING);
-
-		IToken systemKeyword = createToken(BASH_SYSTEM_KEYWORD);
-		IToken bashKeyword = createToken(BASH_KEYWORD);
-
-		IToken knownVariables = createToken(KNOWN_VARIABLES);
-		IToken variables = createToken(VARIABLES);
-		IToken includeKeyword = createToken(INCLUDE_KEYWORD);
-		IToken bashCommand = createToken(BASH_COMMAND);
-
-		List<IPredicateRule> rules = new ArrayList<>();
-		buildWordRules(rules, systemKeyword, BashSystemKeyWords.values());
-		rules.add(new BashVariableRule(variables));
-		rules.add(new SingleLineRule("#", "", comment, (char) -1, true));
-
-		rules.add(new BashStringRule("\"", "\"", doubleString));
-		rules.add(new BashStringRule("\'", "\'", simpleString));
-		rules.add(new BashStringRule("`", "`", backtickString));
-
-		rules.add(new CommandParameterRule(parameters));
-
-		buildWordRules(rules, includeKeyword, BashIncludeKeyWords.values());
-		buildWordRules(rules, bashKeyword, BashLanguageKeyWords.values());
-		buildWordRules(rules, bashCommand, BashGnuCommandKeyWords.values());
-
-		buildVarDefRules(rules, knownVariables, BashSpecialVariableKeyWords.values());
-
-		setPredicateRules(rules.toArray(new IPredicateRule[rules.size()]));
+		/* rules array is copied by scanner */
+		setPredicateRules(BashPartitionRules.getRules());
 	}
 
-	private void buildWordRules(List<IPredicateRule> rules, IToken token, DocumentKeyWord[] values) {
-		for (DocumentKeyWord keyWord : values) {
-			rules.add(new ExactWordPatternRule(onlyLettersWordDetector, createWordStart(keyWord), token,
-					keyWord.isBreakingOnEof()));
+	@Override
+	public void setPartialRange(IDocument document, int offset, int length, String contentType, int partitionOffset) {
+		if (partitionOffset > -1 && partitionOffset < offset) {
+			int delta = offset - partitionOffset;
+			super.setPartialRange(document, partitionOffset, length + delta, null, -1);
+			return;
 		}
-	}
-
-	private void buildVarDefRules(List<IPredicateRule> rules, IToken token, DocumentKeyWord[] values) {
-		for (DocumentKeyWord keyWord : values) {
-			rules.add(new VariableDefKeyWordPatternRule(variableDefKeyWordDetector, createWordStart(keyWord), token,
-					keyWord.isBreakingOnEof()));
-		}
-	}
-
-	private String createWordStart(DocumentKeyWord keyWord) {
-		return keyWord.getText();
-	}
-
-	private IToken createToken(BashDocumentIdentifier identifier) {
-		return new Token(identifier.getId());
+		super.setPartialRange(document, offset, length, contentType, partitionOffset);
 	}
 }
@@ -20,18 +20,28 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentPartitioner;
 import org.eclipse.ui.editors.text.FileDocumentProvider;
 
+import de.jcup.basheditor.BashLargeFileSupport;
+
 /**
  * Document provider for files inside workspace
  * @author albert
  *
  */
 public class BashFileDocumentProvider extends FileDocumentProvider {
+
+	@Override
+	protected IDocument createEmptyDocument() {
+		/* model is built in background jobs, which read under the lock */
+		BashSynchronizableDocument document = new BashSynchronizableDocument();
+		document.setLockObject(new Object());
+		return document;
+	}
 	
 	@Override
 	protected IDocument createDocument(Object element) throws CoreException {
 		IDocument document = super.createDocument(element);
-		if (document != null) {
-			/* installation necessary */
+		if (document != null && !BashLargeFileSupport.isLargeFileMode(element, document)) {
+			/* installation necessary - large files stay plain text */
 			IDocumentPartitioner partitioner = BashPartionerFactory.create();
 
 			partitioner.connect(document);
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import static de.jcup.basheditor.document.BashDocumentIdentifiers.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+
+import de.jcup.basheditor.document.keywords.BashGnuCommandKeyWords;
+import de.jcup.basheditor.document.keywords.BashIncludeKeyWords;
+import de.jcup.basheditor.document.keywords.BashLanguageKeyWords;
+import de.jcup.basheditor.document.keywords.BashSpecialVariableKeyWords;
+import de.jcup.basheditor.document.keywords.BashSystemKeyWords;
+import de.jcup.basheditor.document.keywords.DocumentKeyWord;
+import de.jcup.basheditor.script.parser.ParseToken;
+import de.jcup.basheditor.script.parser.TokenLexer;
+import de.jcup.basheditor.script.parser.TokenParser;
+
+/**
+ * Partition scanner using the {@link TokenParser} state machine of the script
+ * model, so highlighting and model agree on strings, comments and variables.
+ * <br>
+ * <br>
+ * Line starts where the lexer was clean are remembered as checkpoints. When
+ * the partitioner restarts after a change, lexing starts at the last
+ * checkpoint before the change instead of document start. Checkpoints passed
+ * by the lexer are verified again and removed when no longer clean.<br>
+ * <br>
+ * Checkpoints are plain offsets. {@link BashPartitioner} moves them by
+ * {@link #documentChanged(DocumentEvent)} before it rescans - document
+ * position updaters would run after the rescan. One scanner instance is used
+ * per document (see {@link BashPartionerFactory}).
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashLexerPartitionScanner implements IPartitionTokenScanner {
+
+	/* minimum distance in characters between two checkpoints */
+	private static final int CHECKPOINT_DISTANCE = 1000;
+
+	private static final IToken COMMENT_TOKEN = createToken(COMMENT);
+	private static final IToken SINGLE_STRING_TOKEN = createToken(SINGLE_STRING);
+	private static final IToken DOUBLE_STRING_TOKEN = createToken(DOUBLE_STRING);
+	private static final IToken BACKTICK_STRING_TOKEN = createToken(BACKTICK_STRING);
+	private static final IToken VARIABLES_TOKEN = createToken(VARIABLES);
+	private static final IToken PARAMETER_TOKEN = createToken(PARAMETER);
+	private static final IToken BASH_COMMAND_TOKEN = createToken(BASH_COMMAND);
+
+	private static final Map<String, IToken> KEY_WORD_TOKENS = createKeyWordTokens();
+
+	private IDocument document;
+	/* sorted offsets - moved by documentChanged */
+	private List<Integer> checkpoints = new ArrayList<>();
+
+	private TokenLexer lexer;
+	private boolean lexerFinished;
+	private int emitStart;
+	private int rangeEnd;
+	private int nextCheckpointIndex;
+	private int lastCheckpointOffset;
+
+	private int tokenOffset;
+	private int tokenLength;
+
+	/* second part of a word, e.g. the string in a="x y" */
+	private IToken pendingToken;
+	private int pendingStart;
+	private int pendingEnd;
+
+	@Override
+	public void setRange(IDocument document, int offset, int length) {
+		setPartialRange(document, offset, length, null, -1);
+	}
+
+	@Override
+	public void setPartialRange(IDocument document, int offset, int length, String contentType,
+			int partitionOffset) {
+		connect(document);
+		emitStart = offset;
+		if (partitionOffset > -1 && partitionOffset < offset) {
+			/* partition is scanned again from its start */
+			emitStart = partitionOffset;
+		}
+		rangeEnd = offset + length;
+
+		int index = findLastCheckpointIndex(emitStart);
+		int start = index == -1 ? 0 : checkpoints.get(index).intValue();
+		nextCheckpointIndex = index + 1;
+		lastCheckpointOffset = start;
+
+		lexer = new TokenLexer(new DocumentCharSequence(document), start);
+		lexerFinished = false;
+		pendingToken = null;
+		tokenOffset = start;
+		tokenLength = 0;
+	}
+
+	@Override
+	public IToken nextToken() {
+		while (true) {
+			if (pendingToken != null) {
+				IToken token = pendingToken;
+				pendingToken = null;
+				if (emit(pendingStart, pendingEnd)) {
+					return token;
+				}
+			}
+			ParseToken parseToken = lexer.poll();
+			if (parseToken != null) {
+				int start = lexer.getTextStart(parseToken);
+				if (start >= rangeEnd) {
+					return eof();
+				}
+				IToken token = toPartitionToken(parseToken.getText(), start, lexer.getTextEnd(parseToken));
+				if (token != null) {
+					return token;
+				}
+				/* default content or before scanned range */
+				continue;
+			}
+			if (lexerFinished || (lexer.getPosition() >= rangeEnd && lexer.isClean())) {
+				return eof();
+			}
+			if (lexer.step()) {
+				updateCheckpoints();
+			} else {
+				/* last token is polled in next loop */
+				lexerFinished = true;
+			}
+		}
+	}
+
+	/**
+	 * Moves checkpoints by given change. Must be called before the
+	 * partitioner rescans the changed document. Checkpoints before the change
+	 * keep their offset, checkpoints inside replaced text are removed.
+	 * 
+	 * @param event
+	 */
+	void documentChanged(DocumentEvent event) {
+		if (event.getDocument() != document) {
+			return;
+		}
+		int offset = event.getOffset();
+		int removedEnd = offset + event.getLength();
+		String text = event.getText();
+		int delta = (text == null ? 0 : text.length()) - event.getLength();
+		for (int i = checkpoints.size() - 1; i >= 0; i--) {
+			int checkpoint = checkpoints.get(i).intValue();
+			if (checkpoint <= offset) {
+				/* sorted - all others are before change as well */
+				break;
+			}
+			if (checkpoint < removedEnd) {
+				checkpoints.remove(i);
+			} else {
+				checkpoints.set(i, checkpoint + delta);
+			}
+		}
+	}
+
+	/**
+	 * Forgets document and checkpoints
+	 */
+	void disconnect() {
+		document = null;
+		lexer = null;
+		checkpoints.clear();
+	}
+
+	@Override
+	public int getTokenOffset() {
+		return tokenOffset;
+	}
+
+	@Override
+	public int getTokenLength() {
+		return tokenLength;
+	}
+
+	private IToken eof() {
+		tokenOffset = Math.min(lexer.getPosition(), rangeEnd);
+		tokenLength = 0;
+		return Token.EOF;
+	}
+
+	/**
+	 * Sets token offset and length to given range, clipped to scanned range
+	 * 
+	 * @return <code>true</code> when clipped range is not empty
+	 */
+	private boolean emit(int start, int end) {
+		int clippedStart = Math.max(start, emitStart);
+		int clippedEnd = Math.min(end, rangeEnd);
+		if (clippedEnd <= clippedStart) {
+			return false;
+		}
+		tokenOffset = clippedStart;
+		tokenLength = clippedEnd - clippedStart;
+		return true;
+	}
+
+	/**
+	 * Resolves partition token for text of a parse token and emits it
+	 * 
+	 * @return partition token or <code>null</code> when nothing was emitted
+	 */
+	private IToken toPartitionToken(String text, int start, int end) {
+		if (text.isEmpty()) {
+			return null;
+		}
+		IToken token = KEY_WORD_TOKENS.get(text);
+		if (token == null) {
+			token = toTokenByFirstChar(text);
+		}
+		if (token == null && ExecutableCommandRule.getIndex().contains(text)) {
+			token = BASH_COMMAND_TOKEN;
+		}
+		if (token != null) {
+			return emit(start, end) ? token : null;
+		}
+		/*
+		 * parser keeps quotes inside words - e.g. a="x y" is one token - so
+		 * quoted part is emitted separately
+		 */
+		int quoteIndex = indexOfQuote(text);
+		int assignIndex = text.indexOf('=');
+		if (quoteIndex > 0) {
+			pendingToken = toTokenByFirstChar(text.substring(quoteIndex, quoteIndex + 1));
+			pendingStart = start + quoteIndex;
+			pendingEnd = end;
+		}
+		if (assignIndex <= 0 || (quoteIndex != -1 && quoteIndex < assignIndex)) {
+			return null;
+		}
+		IToken assignToken = KEY_WORD_TOKENS.get(text.substring(0, assignIndex + 1));
+		if (assignToken == null || !emit(start, start + assignIndex + 1)) {
+			return null;
+		}
+		return assignToken;
+	}
+
+	private IToken toTokenByFirstChar(String text) {
+		char first = text.charAt(0);
+		switch (first) {
+		case '#':
+			return COMMENT_TOKEN;
+		case '\'':
+			return SINGLE_STRING_TOKEN;
+		case '\"':
+			return DOUBLE_STRING_TOKEN;
+		case '`':
+			return BACKTICK_STRING_TOKEN;
+		case '$':
+			return VARIABLES_TOKEN;
+		case '-':
+			return text.length() > 1 ? PARAMETER_TOKEN : null;
+		default:
+			return null;
+		}
+	}
+
+	private int indexOfQuote(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\'' || c == '\"' || c == '`') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Verifies checkpoints at lexer position and adds a new one when lexer is
+	 * clean at a line start
+	 */
+	private void updateCheckpoints() {
+		int pos = lexer.getPosition();
+		boolean keptCheckpoint = false;
+		while (nextCheckpointIndex < checkpoints.size()) {
+			int checkpoint = checkpoints.get(nextCheckpointIndex).intValue();
+			if (checkpoint < pos) {
+				/* jumped over - so no longer a clean position */
+				checkpoints.remove(nextCheckpointIndex);
+				continue;
+			}
+			if (checkpoint > pos) {
+				break;
+			}
+			if (lexer.isClean() && isLineStart(pos)) {
+				nextCheckpointIndex++;
+				lastCheckpointOffset = pos;
+				keptCheckpoint = true;
+			} else {
+				checkpoints.remove(nextCheckpointIndex);
+			}
+			break;
+		}
+		if (keptCheckpoint || pos - lastCheckpointOffset < CHECKPOINT_DISTANCE) {
+			return;
+		}
+		if (!lexer.isClean() || !isLineStart(pos)) {
+			return;
+		}
+		checkpoints.add(nextCheckpointIndex++, Integer.valueOf(pos));
+		lastCheckpointOffset = pos;
+	}
+
+	private boolean isLineStart(int pos) {
+		if (pos <= 0 || pos >= document.getLength()) {
+			return false;
+		}
+		try {
+			return document.getChar(pos - 1) == '\n';
+		} catch (BadLocationException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param offset
+	 * @return index of last valid checkpoint at or before offset or -1
+	 */
+	private int findLastCheckpointIndex(int offset) {
+		int low = 0;
+		int high = checkpoints.size() - 1;
+		int result = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (checkpoints.get(middle).intValue() <= offset) {
+				result = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return result;
+	}
+
+	private void connect(IDocument newDocument) {
+		if (newDocument == document) {
+			return;
+		}
+		/* checkpoints of another document are useless */
+		checkpoints.clear();
+		document = newDocument;
+	}
+
+	private static Map<String, IToken> createKeyWordTokens() {
+		Map<String, IToken> map = new HashMap<>();
+		/* first added wins - same order as key word rules */
+		addKeyWords(map, BashSystemKeyWords.values(), createToken(BASH_SYSTEM_KEYWORD), "");
+		addKeyWords(map, BashIncludeKeyWords.values(), createToken(INCLUDE_KEYWORD), "");
+		addKeyWords(map, BashLanguageKeyWords.values(), createToken(BASH_KEYWORD), "");
+		addKeyWords(map, BashGnuCommandKeyWords.values(), BASH_COMMAND_TOKEN, "");
+		/* parser creates an own token for an assignment like "HOME=" */
+		addKeyWords(map, BashSpecialVariableKeyWords.values(), createToken(KNOWN_VARIABLES), "=");
+		return map;
+	}
+
+	private static void addKeyWords(Map<String, IToken> map, DocumentKeyWord[] keyWords, IToken token,
+			String postfix) {
+		for (DocumentKeyWord keyWord : keyWords) {
+			String text = keyWord.getText() + postfix;
+			if (!map.containsKey(text)) {
+				map.put(text, token);
+			}
+		}
+	}
+
+	private static IToken createToken(BashDocumentIdentifier identifier) {
+		return new Token(identifier.getId());
+	}
+}
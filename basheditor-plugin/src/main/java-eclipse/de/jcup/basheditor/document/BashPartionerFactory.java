@@ -15,12 +15,26 @@
  */
  package de.jcup.basheditor.document;
 
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+
 public class BashPartionerFactory {
 
+	/**
+	 * When system property is set to <code>true</code> documents are
+	 * partitioned by the lexer of the script model instead of the partition
+	 * rules
+	 */
+	public static final String SYSTEM_PROPERTY_LEXER_PARTITIONING = "basheditor.lexer.partitioning.enabled";
+
 	public static BashPartitioner create(){
 		String[] legalContentTypes = BashDocumentIdentifiers.allIdsToStringArray();
 
-		BashDocumentPartitionScanner scanner = new BashDocumentPartitionScanner();
+		IPartitionTokenScanner scanner;
+		if (Boolean.getBoolean(SYSTEM_PROPERTY_LEXER_PARTITIONING)) {
+			scanner = new BashLexerPartitionScanner();
+		} else {
+			scanner = new BashDocumentPartitionScanner();
+		}
 		BashPartitioner partitioner = new BashPartitioner(scanner, legalContentTypes);
 		
 		return partitioner;
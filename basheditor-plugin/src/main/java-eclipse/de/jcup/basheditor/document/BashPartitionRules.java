@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import static de.jcup.basheditor.document.BashDocumentIdentifiers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.RuleBasedPartitionScanner;
+import org.eclipse.jface.text.rules.SingleLineRule;
+import org.eclipse.jface.text.rules.Token;
+
+import de.jcup.basheditor.document.keywords.BashGnuCommandKeyWords;
+import de.jcup.basheditor.document.keywords.BashIncludeKeyWords;
+import de.jcup.basheditor.document.keywords.BashLanguageKeyWords;
+import de.jcup.basheditor.document.keywords.BashSpecialVariableKeyWords;
+import de.jcup.basheditor.document.keywords.BashSystemKeyWords;
+
+/**
+ * Partition rules shared by all partition scanners. The rules are created
+ * once and keep no state between evaluations, so every document only needs
+ * its own scanner instance holding the scan position.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+final class BashPartitionRules {
+
+	private static final IPredicateRule[] RULES = createRules();
+
+	static {
+		warmUp(RULES);
+	}
+
+	private BashPartitionRules() {
+	}
+
+	/**
+	 * @return shared rules - callers may not change the array
+	 */
+	static IPredicateRule[] getRules() {
+		return RULES;
+	}
+
+	/**
+	 * Creates a new rule set. Only done once for the shared rules - before,
+	 * every scanner did this (see BashPartitionScannerBenchmark)
+	 * 
+	 * @return new rules, not warmed up
+	 */
+	static IPredicateRule[] createRules() {
+		IToken parameters = createToken(PARAMETER);
+		IToken comment = createToken(COMMENT);
+		IToken simpleString = createToken(SINGLE_STRING);
+		IToken doubleString = createToken(DOUBLE_STRING);
+		IToken backtickString = createToken(BACKTICK_STRING);
+
+		IToken systemKeyword = createToken(BASH_SYSTEM_KEYWORD);
+		IToken bashKeyword = createToken(BASH_KEYWORD);
+
+		IToken knownVariables = createToken(KNOWN_VARIABLES);
+		IToken variables = createToken(VARIABLES);
+		IToken includeKeyword = createToken(INCLUDE_KEYWORD);
+		IToken bashCommand = createToken(BASH_COMMAND);
+
+		/*
+		 * all key words are detected by one rule. It must be first, because
+		 * the sha bang starts like a comment
+		 */
+		KeyWordTrieRule keyWordRule = new KeyWordTrieRule();
+		keyWordRule.addWords(BashSystemKeyWords.values(), systemKeyword);
+		keyWordRule.addWords(BashIncludeKeyWords.values(), includeKeyword);
+		keyWordRule.addWords(BashLanguageKeyWords.values(), bashKeyword);
+		keyWordRule.addWords(BashGnuCommandKeyWords.values(), bashCommand);
+		keyWordRule.addAssignmentWords(BashSpecialVariableKeyWords.values(), knownVariables);
+
+		List<IPredicateRule> rules = new ArrayList<>();
+		rules.add(keyWordRule);
+		rules.add(new BashVariableRule(variables));
+		rules.add(new SingleLineRule("#", "", comment, (char) -1, true));
+
+		rules.add(new BashStringRule("\"", "\"", doubleString));
+		rules.add(new BashStringRule("\'", "\'", simpleString));
+		rules.add(new BashStringRule("`", "`", backtickString));
+
+		rules.add(new CommandParameterRule(parameters));
+
+		rules.add(new ExecutableCommandRule(bashCommand));
+
+		return rules.toArray(new IPredicateRule[rules.size()]);
+	}
+
+	/**
+	 * Pattern rules cache the line delimiters of the first scanner they are
+	 * used with. All documents have same delimiters, so after one scan the
+	 * cache is only read and the rules can be used by multiple threads.
+	 * 
+	 * @param rules
+	 */
+	private static void warmUp(IPredicateRule[] rules) {
+		IDocument document = new Document("#x\n\"a\" 'b' `c`\n");
+		RuleBasedPartitionScanner scanner = new RuleBasedPartitionScanner();
+		scanner.setPredicateRules(rules);
+		scanner.setRange(document, 0, document.getLength());
+		while (!scanner.nextToken().isEOF()) {
+			/* just scan */
+		}
+	}
+
+	private static IToken createToken(BashDocumentIdentifier identifier) {
+		return new Token(identifier.getId());
+	}
+}
@@ -15,13 +15,177 @@
  */
  package de.jcup.basheditor.document;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.BadPositionCategoryException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.rules.FastPartitioner;
 import org.eclipse.jface.text.rules.IPartitionTokenScanner;
 
-public class BashPartitioner extends FastPartitioner{
+/**
+ * Partitioner for bash documents with a damage limit. After a change, the
+ * rescan stops at the first known partition behind the change plus
+ * {@link #DAMAGE_LIMIT} characters (see
+ * {@link DamageLimitingPartitionScanner}). So typing an unterminated quote
+ * repartitions only up to there and not to document end. Partitions behind
+ * are stale until {@link #finishPartitioning()} is called - e.g. when typing
+ * has paused.
+ *
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashPartitioner extends FastPartitioner {
+
+	/**
+	 * Characters behind a change which are repartitioned at least - more than
+	 * a screen page of long lines plus the presentation margin
+	 */
+	public static final int DAMAGE_LIMIT = 10000;
+
+	private DamageLimitingPartitionScanner damageLimitingScanner;
+	/* sorted offsets where rescans were cut - moved by document changes */
+	private List<Integer> staleOffsets = new ArrayList<>();
 
 	public BashPartitioner(IPartitionTokenScanner scanner, String[] legalContentTypes) {
+		this(new DamageLimitingPartitionScanner(scanner), legalContentTypes);
+	}
+
+	private BashPartitioner(DamageLimitingPartitionScanner scanner, String[] legalContentTypes) {
 		super(scanner, legalContentTypes);
+		this.damageLimitingScanner = scanner;
+		scanner.setPartitionProvider(new DamageLimitingPartitionScanner.PartitionProvider() {
+
+			@Override
+			public Position[] getExistingPartitions() {
+				try {
+					return getPositions();
+				} catch (BadPositionCategoryException e) {
+					return null;
+				}
+			}
+		});
+	}
+
+	@Override
+	public IRegion documentChanged2(DocumentEvent e) {
+		IPartitionTokenScanner scanner = damageLimitingScanner.getDelegate();
+		if (scanner instanceof BashLexerPartitionScanner) {
+			/* checkpoints must be moved before the rescan uses them */
+			((BashLexerPartitionScanner) scanner).documentChanged(e);
+		}
+		int newLength = e.getText() == null ? 0 : e.getText().length();
+		moveStaleOffsets(e.getOffset(), e.getLength(), newLength);
+
+		damageLimitingScanner.setLimit(e.getOffset() + newLength + DAMAGE_LIMIT);
+		try {
+			IRegion region = super.documentChanged2(e);
+			markStale(damageLimitingScanner.getCutOffset());
+			return region;
+		} finally {
+			damageLimitingScanner.setLimit(-1);
+		}
+	}
+
+	/**
+	 * Repartitions stale partitions left by former changes. Must be called
+	 * inside UI thread, like document changes.
+	 * 
+	 * @return changed region or <code>null</code> when nothing has changed
+	 */
+	public IRegion finishPartitioning() {
+		if (staleOffsets.isEmpty() || fDocument == null) {
+			return null;
+		}
+		List<Integer> offsets = new ArrayList<>(staleOffsets);
+		staleOffsets.clear();
+
+		int documentLength = fDocument.getLength();
+		int start = -1;
+		int end = -1;
+		for (Integer staleOffset : offsets) {
+			/*
+			 * an empty change at stale offset makes the partitioner rescan
+			 * from there - without limit, until partitions are same as
+			 * before. So each cut is rescanned, one resync does not finish
+			 * a later cut.
+			 */
+			int offset = Math.min(staleOffset.intValue(), documentLength);
+			IRegion region = super.documentChanged2(new DocumentEvent(fDocument, offset, 0, ""));
+			if (region == null) {
+				continue;
+			}
+			int regionEnd = region.getOffset() + region.getLength();
+			if (start == -1) {
+				start = region.getOffset();
+				end = regionEnd;
+			} else {
+				start = Math.min(start, region.getOffset());
+				end = Math.max(end, regionEnd);
+			}
+		}
+		if (start == -1) {
+			return null;
+		}
+		return new Region(start, end - start);
+	}
+
+	/**
+	 * @return <code>true</code> when partitions behind a former change are not
+	 *         updated
+	 */
+	public boolean hasStalePartitions() {
+		return !staleOffsets.isEmpty();
+	}
+
+	@Override
+	public void disconnect() {
+		super.disconnect();
+		staleOffsets.clear();
+		IPartitionTokenScanner scanner = damageLimitingScanner.getDelegate();
+		if (scanner instanceof BashLexerPartitionScanner) {
+			((BashLexerPartitionScanner) scanner).disconnect();
+		}
+	}
+
+	private void markStale(int offset) {
+		if (offset < 0) {
+			return;
+		}
+		int index = 0;
+		while (index < staleOffsets.size() && staleOffsets.get(index).intValue() < offset) {
+			index++;
+		}
+		if (index < staleOffsets.size() && staleOffsets.get(index).intValue() == offset) {
+			return;
+		}
+		staleOffsets.add(index, Integer.valueOf(offset));
+	}
+
+	private void moveStaleOffsets(int offset, int removedLength, int newLength) {
+		int removedEnd = offset + removedLength;
+		int delta = newLength - removedLength;
+		boolean removed = false;
+		for (int i = staleOffsets.size() - 1; i >= 0; i--) {
+			int staleOffset = staleOffsets.get(i).intValue();
+			if (staleOffset <= offset) {
+				/* sorted - all others are before change as well */
+				break;
+			}
+			if (staleOffset < removedEnd) {
+				staleOffsets.remove(i);
+				removed = true;
+			} else {
+				staleOffsets.set(i, Integer.valueOf(staleOffset + delta));
+			}
+		}
+		if (removed) {
+			/* was inside replaced text - stale from change on */
+			markStale(offset);
+		}
 	}
 
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.ISynchronizable;
+import org.eclipse.jface.text.ITextStore;
+
+/**
+ * Document synchronizing text access and changes on its lock object - like
+ * documents of file buffers. So background jobs can read a consistent text
+ * while the UI thread edits the document. A background job holding the lock
+ * can read the text store directly by {@link #getLockedText()}, without a
+ * copy and without entering the monitor for every character.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashSynchronizableDocument extends Document implements ISynchronizable {
+
+	private Object lockObject;
+
+	@Override
+	public synchronized void setLockObject(Object lockObject) {
+		this.lockObject = lockObject;
+	}
+
+	@Override
+	public synchronized Object getLockObject() {
+		return lockObject;
+	}
+
+	/**
+	 * Returns a view of the text store. The view may only be read while
+	 * holding the lock object - then the store cannot change. Characters are
+	 * read directly from the store, so reading does neither copy the text nor
+	 * synchronize per character.
+	 * 
+	 * @return char sequence of current text
+	 */
+	public CharSequence getLockedText() {
+		return new TextStoreCharSequence(getStore(), 0, getLength());
+	}
+
+	@Override
+	public String get() {
+		Object lock = getLockObject();
+		if (lock == null) {
+			return super.get();
+		}
+		synchronized (lock) {
+			return super.get();
+		}
+	}
+
+	@Override
+	public String get(int offset, int length) throws BadLocationException {
+		Object lock = getLockObject();
+		if (lock == null) {
+			return super.get(offset, length);
+		}
+		synchronized (lock) {
+			return super.get(offset, length);
+		}
+	}
+
+	@Override
+	public char getChar(int offset) throws BadLocationException {
+		Object lock = getLockObject();
+		if (lock == null) {
+			return super.getChar(offset);
+		}
+		synchronized (lock) {
+			return super.getChar(offset);
+		}
+	}
+
+	@Override
+	public void replace(int offset, int length, String text, long modificationStamp) throws BadLocationException {
+		Object lock = getLockObject();
+		if (lock == null) {
+			super.replace(offset, length, text, modificationStamp);
+			return;
+		}
+		synchronized (lock) {
+			super.replace(offset, length, text, modificationStamp);
+		}
+	}
+
+	@Override
+	public void replace(int offset, int length, String text) throws BadLocationException {
+		Object lock = getLockObject();
+		if (lock == null) {
+			super.replace(offset, length, text);
+			return;
+		}
+		synchronized (lock) {
+			super.replace(offset, length, text);
+		}
+	}
+
+	@Override
+	public void set(String text, long modificationStamp) {
+		Object lock = getLockObject();
+		if (lock == null) {
+			super.set(text, modificationStamp);
+			return;
+		}
+		synchronized (lock) {
+			super.set(text, modificationStamp);
+		}
+	}
+
+	@Override
+	public void set(String text) {
+		Object lock = getLockObject();
+		if (lock == null) {
+			super.set(text);
+			return;
+		}
+		synchronized (lock) {
+			super.set(text);
+		}
+	}
+
+	private static class TextStoreCharSequence implements CharSequence {
+
+		private ITextStore store;
+		private int offset;
+		private int length;
+
+		private TextStoreCharSequence(ITextStore store, int offset, int length) {
+			this.store = store;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("index:" + index + ", length:" + length);
+			}
+			return store.get(offset + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			if (start < 0 || end > length || start > end) {
+				throw new IndexOutOfBoundsException("start:" + start + ", end:" + end + ", length:" + length);
+			}
+			return new TextStoreCharSequence(store, offset + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return store.get(offset, length);
+		}
+	}
+}
@@ -17,8 +17,11 @@ package de.jcup.basheditor.document;
 
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentPartitioner;
+import org.eclipse.jface.text.ISynchronizable;
 import org.eclipse.ui.editors.text.TextFileDocumentProvider;
 
+import de.jcup.basheditor.BashLargeFileSupport;
+
 /**
  * Document provider for files outside of workspace
  * 
@@ -33,10 +36,21 @@ public class BashTextFileDocumentProvider extends TextFileDocumentProvider {
 		if (document == null) {
 			return null;
 		}
+		if (document instanceof ISynchronizable) {
+			ISynchronizable synchronizable = (ISynchronizable) document;
+			if (synchronizable.getLockObject() == null) {
+				/* model is built in background jobs, which read under the lock */
+				synchronizable.setLockObject(new Object());
+			}
+		}
 		IDocumentPartitioner formerPartitioner = document.getDocumentPartitioner();
 		if (formerPartitioner instanceof BashPartitioner) {
 			return document;
 		}
+		if (BashLargeFileSupport.isLargeFileMode(element, document)) {
+			/* large files stay plain text */
+			return document;
+		}
 		/* installation necessary */
 		IDocumentPartitioner partitioner = BashPartionerFactory.create();
 		partitioner.connect(document);
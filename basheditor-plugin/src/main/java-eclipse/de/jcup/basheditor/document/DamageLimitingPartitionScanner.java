@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.TypedPosition;
+import org.eclipse.jface.text.rules.IPartitionTokenScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+
+/**
+ * Partition scanner limiting the rescan after a document change. When a limit
+ * is set and a token reaches behind it - e.g. the string of an unterminated
+ * quote running to document end - the token is cut at the first existing
+ * partition at or behind the limit. Then this existing partition is returned
+ * unchanged, so the partitioner finds a known partition and stops.<br>
+ * <br>
+ * When no partition starts there - e.g. the quote was closed again and the
+ * old string contains all behind the limit - the token is cut at the limit
+ * and the rest of the containing partition is returned, followed by the
+ * partition behind it.<br>
+ * <br>
+ * Partitions behind the cut are stale until {@link BashPartitioner} finishes
+ * them.
+ *
+ * @author Albert Tregnaghi
+ *
+ */
+class DamageLimitingPartitionScanner implements IPartitionTokenScanner {
+
+	/**
+	 * Provides partitions existing before the rescan
+	 */
+	interface PartitionProvider {
+
+		/**
+		 * @return sorted partitions or <code>null</code>
+		 */
+		Position[] getExistingPartitions();
+	}
+
+	private IPartitionTokenScanner delegate;
+	private PartitionProvider partitionProvider;
+
+	private int limit = -1;
+	private int cutOffset = -1;
+
+	private int tokenOffset;
+	private int tokenLength;
+
+	/* existing partitions returned after a cut */
+	private List<TypedPosition> resyncPartitions = new ArrayList<>();
+	private boolean afterResync;
+
+	DamageLimitingPartitionScanner(IPartitionTokenScanner delegate) {
+		this.delegate = delegate;
+	}
+
+	void setPartitionProvider(PartitionProvider partitionProvider) {
+		this.partitionProvider = partitionProvider;
+	}
+
+	IPartitionTokenScanner getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @param limit
+	 *            offset where tokens may be cut for next scans, -1 for no limit
+	 */
+	void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * @return offset of last cut - partitions behind are stale - or -1 when
+	 *         last scan was not cut
+	 */
+	int getCutOffset() {
+		return cutOffset;
+	}
+
+	@Override
+	public void setRange(IDocument document, int offset, int length) {
+		reset();
+		delegate.setRange(document, offset, length);
+	}
+
+	@Override
+	public void setPartialRange(IDocument document, int offset, int length, String contentType,
+			int partitionOffset) {
+		reset();
+		delegate.setPartialRange(document, offset, length, contentType, partitionOffset);
+	}
+
+	@Override
+	public IToken nextToken() {
+		if (!resyncPartitions.isEmpty()) {
+			TypedPosition partition = resyncPartitions.remove(0);
+			afterResync = true;
+			tokenOffset = partition.getOffset();
+			tokenLength = partition.getLength();
+			return new Token(partition.getType());
+		}
+		if (afterResync) {
+			/* not reached when partitioner stops at a known partition */
+			tokenOffset = tokenOffset + tokenLength;
+			tokenLength = 0;
+			return Token.EOF;
+		}
+		IToken token = delegate.nextToken();
+		tokenOffset = delegate.getTokenOffset();
+		tokenLength = delegate.getTokenLength();
+		if (limit < 0 || token.isEOF()) {
+			return token;
+		}
+		int end = tokenOffset + tokenLength;
+		if (end <= limit) {
+			return token;
+		}
+		int cut = Math.max(limit, tokenOffset);
+		Position[] partitions = getExistingPartitions();
+		int index = findFirstPartitionIndex(partitions, cut);
+		TypedPosition next = index < partitions.length ? (TypedPosition) partitions[index] : null;
+		TypedPosition containing = findContainingPartition(partitions, index, cut);
+		if (next != null && next.getOffset() < end) {
+			if (isSame(next, token)) {
+				/* same as before - partitioner stops by itself */
+				return token;
+			}
+			cutOffset = next.getOffset();
+			resyncPartitions.add(next);
+		} else if (containing != null && !isSame(containing, token)) {
+			int containingEnd = containing.getOffset() + containing.getLength();
+			cutOffset = cut;
+			resyncPartitions.add(new TypedPosition(cut, containingEnd - cut, containing.getType()));
+			index = findFirstPartitionIndex(partitions, containingEnd);
+			if (index < partitions.length) {
+				resyncPartitions.add((TypedPosition) partitions[index]);
+			}
+		} else {
+			/* nothing to keep inside this token */
+			return token;
+		}
+		if (cutOffset == tokenOffset) {
+			return nextToken();
+		}
+		tokenLength = cutOffset - tokenOffset;
+		return token;
+	}
+
+	@Override
+	public int getTokenOffset() {
+		return tokenOffset;
+	}
+
+	@Override
+	public int getTokenLength() {
+		return tokenLength;
+	}
+
+	private void reset() {
+		cutOffset = -1;
+		resyncPartitions.clear();
+		afterResync = false;
+	}
+
+	private boolean isSame(TypedPosition partition, IToken token) {
+		return partition.getOffset() == tokenOffset && partition.getLength() == tokenLength
+				&& partition.getType().equals(token.getData());
+	}
+
+	private Position[] getExistingPartitions() {
+		Position[] partitions = null;
+		if (partitionProvider != null) {
+			partitions = partitionProvider.getExistingPartitions();
+		}
+		if (partitions == null) {
+			return new Position[0];
+		}
+		return partitions;
+	}
+
+	/**
+	 * @return index of first typed partition starting at or after given
+	 *         offset or length of array
+	 */
+	private int findFirstPartitionIndex(Position[] partitions, int offset) {
+		int low = 0;
+		int high = partitions.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (partitions[middle].getOffset() < offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		while (low < partitions.length && !isTypedPartition(partitions[low])) {
+			low++;
+		}
+		return low;
+	}
+
+	/**
+	 * @return typed partition before given index containing offset or
+	 *         <code>null</code>
+	 */
+	private TypedPosition findContainingPartition(Position[] partitions, int index, int offset) {
+		for (int i = index - 1; i >= 0; i--) {
+			Position partition = partitions[i];
+			if (!isTypedPartition(partition)) {
+				continue;
+			}
+			if (partition.getOffset() < offset && offset < partition.getOffset() + partition.getLength()) {
+				return (TypedPosition) partition;
+			}
+			/* sorted and not overlapping - others end before */
+			return null;
+		}
+		return null;
+	}
+
+	private boolean isTypedPartition(Position partition) {
+		return !partition.isDeleted() && partition instanceof TypedPosition;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import java.util.ConcurrentModificationException;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+/**
+ * Read only char sequence view of a document. Characters are read directly
+ * from the document, so no copy of the complete text is necessary. When the
+ * document is changed while the sequence is read, a
+ * {@link ConcurrentModificationException} is thrown.<br>
+ * <br>
+ * Changes are only detected after the document has updated its modification
+ * stamp, so the sequence should be read by the thread changing the document
+ * (e.g. partition scanners inside UI thread) or while holding the lock of a
+ * synchronizable document. Other readers must check the modification stamp
+ * again after reading.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class DocumentCharSequence implements CharSequence {
+
+	private IDocument document;
+	private int offset;
+	private int length;
+	private long modificationStamp;
+
+	public DocumentCharSequence(IDocument document) {
+		this(document, 0, document.getLength(), getModificationStamp(document));
+	}
+
+	private DocumentCharSequence(IDocument document, int offset, int length, long modificationStamp) {
+		this.document = document;
+		this.offset = offset;
+		this.length = length;
+		this.modificationStamp = modificationStamp;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index:" + index + ", length:" + length);
+		}
+		assertNotModified();
+		try {
+			return document.getChar(offset + index);
+		} catch (BadLocationException e) {
+			throw new ConcurrentModificationException("Document changed while reading");
+		}
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException("start:" + start + ", end:" + end + ", length:" + length);
+		}
+		return new DocumentCharSequence(document, offset + start, end - start, modificationStamp);
+	}
+
+	@Override
+	public String toString() {
+		assertNotModified();
+		try {
+			return document.get(offset, length);
+		} catch (BadLocationException e) {
+			throw new ConcurrentModificationException("Document changed while reading");
+		}
+	}
+
+	private void assertNotModified() {
+		if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP) {
+			return;
+		}
+		if (getModificationStamp(document) != modificationStamp) {
+			throw new ConcurrentModificationException("Document changed while reading");
+		}
+	}
+
+	private static long getModificationStamp(IDocument document) {
+		if (document instanceof IDocumentExtension4) {
+			return ((IDocumentExtension4) document).getModificationStamp();
+		}
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+}
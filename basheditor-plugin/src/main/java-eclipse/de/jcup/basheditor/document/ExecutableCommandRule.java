@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import org.eclipse.jface.text.rules.ICharacterScanner;
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+
+import de.jcup.basheditor.executables.ExecutableIndex;
+import de.jcup.basheditor.executables.ExecutableIndexProvider;
+
+/**
+ * Rule for words being an executable found inside $PATH. Instead of one rule
+ * per command, the word is read once and looked up inside the sorted
+ * executable index. Like {@link ExactWordPatternRule} the word must be
+ * surrounded by whitespaces.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class ExecutableCommandRule implements IPredicateRule {
+
+	private static final int MAX_WORD_LENGTH = 128;
+
+	private static volatile ExecutableIndexProvider indexProvider;
+
+	private IToken token;
+
+	public ExecutableCommandRule(IToken token) {
+		this.token = token;
+	}
+
+	@Override
+	public IToken getSuccessToken() {
+		return token;
+	}
+
+	@Override
+	public IToken evaluate(ICharacterScanner scanner) {
+		return evaluate(scanner, false);
+	}
+
+	@Override
+	public IToken evaluate(ICharacterScanner scanner, boolean resume) {
+		ExecutableIndex index = getIndex();
+		if (index.getNames().size() == 0) {
+			return Token.UNDEFINED;
+		}
+		int first = scanner.read();
+		scanner.unread();
+		if (first == ICharacterScanner.EOF || !isWordPart((char) first)) {
+			/* fast exit without column calculation */
+			return Token.UNDEFINED;
+		}
+		if (scanner.getColumn() > 0) {
+			scanner.unread();
+			int charBefore = scanner.read();
+			if (!Character.isWhitespace(charBefore)) {
+				return Token.UNDEFINED;
+			}
+		}
+		/* rule is shared by all scanners, so no builder field */
+		StringBuilder sb = new StringBuilder();
+		int c = scanner.read();
+		while (c != ICharacterScanner.EOF && isWordPart((char) c) && sb.length() < MAX_WORD_LENGTH) {
+			sb.append((char) c);
+			c = scanner.read();
+		}
+		/* last read character does not belong to word */
+		scanner.unread();
+		boolean wordEnds = c == ICharacterScanner.EOF || Character.isWhitespace(c);
+		if (sb.length() > 0 && wordEnds && index.contains(sb.toString())) {
+			return token;
+		}
+		for (int i = 0; i < sb.length(); i++) {
+			scanner.unread();
+		}
+		return Token.UNDEFINED;
+	}
+
+	private boolean isWordPart(char c) {
+		return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == '+';
+	}
+
+	/**
+	 * Set provider for executables. Without a provider - e.g. when partitions
+	 * are created outside a running workbench - no executables are found.
+	 * 
+	 * @param provider
+	 *            provider or <code>null</code>
+	 */
+	public static void setIndexProvider(ExecutableIndexProvider provider) {
+		indexProvider = provider;
+	}
+
+	static ExecutableIndex getIndex() {
+		ExecutableIndexProvider provider = indexProvider;
+		if (provider == null) {
+			return ExecutableIndex.EMPTY;
+		}
+		return provider.getIndex();
+	}
+}
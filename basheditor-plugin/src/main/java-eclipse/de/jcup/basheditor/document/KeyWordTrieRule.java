@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import org.eclipse.jface.text.rules.ICharacterScanner;
+import org.eclipse.jface.text.rules.IPredicateRule;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+
+import de.jcup.basheditor.document.keywords.DocumentKeyWord;
+
+/**
+ * One rule for all key words. Instead of trying one {@link ExactWordPatternRule}
+ * per key word, the characters at scanner position are read once along a char
+ * trie, so scanning costs do not depend on the amount of key words.<br>
+ * <br>
+ * Same as with the former rules a key word must have a whitespace (or line
+ * start) before. Words are matched when followed by a whitespace or end of
+ * document, assignment words (e.g. "HOME=") when followed by '='. In this case
+ * the token contains the '=' and following letters too.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class KeyWordTrieRule implements IPredicateRule {
+
+	private Node root = new Node();
+
+	/**
+	 * Adds key words which must be followed by a whitespace or end of
+	 * document. When a word is already added, the former token is kept.
+	 * 
+	 * @param keyWords
+	 * @param token
+	 */
+	public void addWords(DocumentKeyWord[] keyWords, IToken token) {
+		for (DocumentKeyWord keyWord : keyWords) {
+			Node node = root.getOrCreate(keyWord.getText());
+			if (node.wordToken == null) {
+				node.wordToken = token;
+			}
+		}
+	}
+
+	/**
+	 * Adds key words which must be followed by '='. When a word is already
+	 * added, the former token is kept.
+	 * 
+	 * @param keyWords
+	 * @param token
+	 */
+	public void addAssignmentWords(DocumentKeyWord[] keyWords, IToken token) {
+		for (DocumentKeyWord keyWord : keyWords) {
+			Node node = root.getOrCreate(keyWord.getText());
+			if (node.assignmentToken == null) {
+				node.assignmentToken = token;
+			}
+		}
+	}
+
+	/**
+	 * Key words are never resumed, because there are different tokens - so
+	 * the undefined token is returned
+	 */
+	@Override
+	public IToken getSuccessToken() {
+		return Token.UNDEFINED;
+	}
+
+	@Override
+	public IToken evaluate(ICharacterScanner scanner) {
+		return evaluate(scanner, false);
+	}
+
+	@Override
+	public IToken evaluate(ICharacterScanner scanner, boolean resume) {
+		int c = scanner.read();
+		Node node = c == ICharacterScanner.EOF ? null : root.get((char) c);
+		if (node == null) {
+			/* fast exit without column calculation */
+			scanner.unread();
+			return Token.UNDEFINED;
+		}
+		if (scanner.getColumn() > 1) {
+			scanner.unread();
+			scanner.unread();
+			int charBefore = scanner.read();
+			scanner.read();
+			if (!Character.isWhitespace(charBefore)) {
+				scanner.unread();
+				return Token.UNDEFINED;
+			}
+		}
+		int read = 1;
+		int matchLength = 0;
+		IToken match = null;
+		boolean assignment = false;
+		while (true) {
+			c = scanner.read();
+			read++;
+			if (node.wordToken != null && (c == ICharacterScanner.EOF || Character.isWhitespace(c))) {
+				match = node.wordToken;
+				matchLength = read - 1;
+				assignment = false;
+			} else if (node.assignmentToken != null && c == '=') {
+				match = node.assignmentToken;
+				matchLength = read - 1;
+				assignment = true;
+			}
+			if (c == ICharacterScanner.EOF) {
+				break;
+			}
+			node = node.get((char) c);
+			if (node == null) {
+				break;
+			}
+		}
+		for (int i = matchLength; i < read; i++) {
+			scanner.unread();
+		}
+		if (match == null) {
+			return Token.UNDEFINED;
+		}
+		if (assignment) {
+			/* like former variable definition rule: '=' and following letters */
+			c = scanner.read();
+			while (c == '=' || (c != ICharacterScanner.EOF && Character.isLetter(c))) {
+				c = scanner.read();
+			}
+			scanner.unread();
+		}
+		return match;
+	}
+
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private IToken wordToken;
+		private IToken assignmentToken;
+
+		private Node get(char c) {
+			/* only a few children per node, so linear search is fast enough */
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node getOrCreate(String text) {
+			Node node = this;
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				Node child = node.get(c);
+				if (child == null) {
+					child = node.add(c);
+				}
+				node = child;
+			}
+			return node;
+		}
+
+		private Node add(char c) {
+			int length = keys.length;
+			char[] newKeys = new char[length + 1];
+			Node[] newChildren = new Node[length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, length);
+			System.arraycopy(children, 0, newChildren, 0, length);
+			Node child = new Node();
+			newKeys[length] = c;
+			newChildren[length] = child;
+			keys = newKeys;
+			children = newChildren;
+			return child;
+		}
+	}
+}
@@ -13,27 +13,16 @@
  * and limitations under the License.
  *
  */
- package de.jcup.basheditor.document;
-import org.eclipse.jface.text.rules.IWordDetector;
+ package de.jcup.basheditor.handlers;
 
-public class VariableDefKeyWordDetector implements IWordDetector{
-	
-	@Override
-	public boolean isWordStart(char c) {
-		if (! Character.isLetter(c)){
-			return false;
-		}
-		return true;
-	}
+import de.jcup.basheditor.BashEditor;
+
+public class ToggleLargeFileModeHandler extends AbstractBashEditorHandler{
 
 	@Override
-	public boolean isWordPart(char c) {
-		if (c=='='){
-			return true;
-		}
-		if (! Character.isLetter(c)){
-			return false;
-		}
-		return true;
+	protected void executeOnBashEditor(BashEditor bashEditor) {
+		bashEditor.toggleLargeFileMode();
 	}
+
+
 }
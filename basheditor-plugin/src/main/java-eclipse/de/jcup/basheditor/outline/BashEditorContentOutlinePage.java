@@ -28,6 +28,7 @@ import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.IActionBars;
 import org.eclipse.ui.IWorkbenchCommandConstants;
 import org.eclipse.ui.views.contentoutline.ContentOutlinePage;
@@ -42,6 +43,8 @@ public class BashEditorContentOutlinePage extends ContentOutlinePage implements
 			BashEditorActivator.PLUGIN_ID);
 	private static ImageDescriptor IMG_DESC_NOT_LINKED = EclipseUtil
 			.createImageDescriptor("/icons/outline/sync_broken.png", BashEditorActivator.PLUGIN_ID);
+	/* caret moves inside this time are coalesced to one tree update */
+	private static final int CARET_SYNC_DELAY_IN_MILLISECONDS = 50;
 
 	private BashEditorTreeContentProvider contentProvider;
 	private Object input;
@@ -52,6 +55,18 @@ public class BashEditorContentOutlinePage extends ContentOutlinePage implements
 	private boolean ignoreNextSelectionEvents;
 	private ToggleLinkingAction toggleLinkingAction;
 
+	private int pendingCaretOffset;
+	private boolean caretSyncScheduled;
+	private Item lastCaretItem;
+	private Runnable caretSyncRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			caretSyncScheduled = false;
+			selectItemAtCaret(pendingCaretOffset);
+		}
+	};
+
 	public BashEditorContentOutlinePage(BashEditor editor) {
 		this.editor = editor;
 		this.contentProvider = new BashEditorTreeContentProvider();
@@ -124,24 +139,57 @@ public class BashEditorContentOutlinePage extends ContentOutlinePage implements
 		if (ignoreNextSelectionEvents) {
 			return;
 		}
+		/* selection changed by user, so next caret move must update tree */
+		lastCaretItem = null;
 		ISelection selection = event.getSelection();
 		editor.openSelectedTreeItemInEditor(selection, false);
 	}
 
+	/**
+	 * Selects outline item at caret when linking is enabled. Must be called
+	 * inside UI thread. Caret moves are coalesced - the tree is updated at
+	 * most once per {@value #CARET_SYNC_DELAY_IN_MILLISECONDS} ms and only
+	 * when the item at caret has changed.
+	 * 
+	 * @param caretOffset
+	 */
 	public void onEditorCaretMoved(int caretOffset) {
 		if (!linkingWithEditorEnabled) {
 			return;
 		}
+		pendingCaretOffset = caretOffset;
+		if (caretSyncScheduled) {
+			/* scheduled update will use new offset */
+			return;
+		}
+		Control control = getControl();
+		if (control == null || control.isDisposed()) {
+			return;
+		}
+		caretSyncScheduled = true;
+		control.getDisplay().timerExec(CARET_SYNC_DELAY_IN_MILLISECONDS, caretSyncRunnable);
+	}
+
+	private void selectItemAtCaret(int caretOffset) {
+		if (!linkingWithEditorEnabled) {
+			return;
+		}
+		TreeViewer treeViewer = getTreeViewer();
+		if (treeViewer == null || treeViewer.getControl().isDisposed()) {
+			return;
+		}
+		Item item = contentProvider.tryToFindByOffset(caretOffset);
+		if (item == null || item == lastCaretItem) {
+			/* nothing to select or already selected - avoid expensive reveal */
+			return;
+		}
+		lastCaretItem = item;
 		ignoreNextSelectionEvents = true;
-		if (contentProvider instanceof BashEditorTreeContentProvider) {
-			BashEditorTreeContentProvider gcp = (BashEditorTreeContentProvider) contentProvider;
-			Item item = gcp.tryToFindByOffset(caretOffset);
-			if (item != null) {
-				StructuredSelection selection = new StructuredSelection(item);
-				getTreeViewer().setSelection(selection, true);
-			}
+		try {
+			treeViewer.setSelection(new StructuredSelection(item), true);
+		} finally {
+			ignoreNextSelectionEvents = false;
 		}
-		ignoreNextSelectionEvents = false;
 	}
 
 	public void rebuild(BashScriptModel model) {
@@ -149,6 +197,8 @@ public class BashEditorContentOutlinePage extends ContentOutlinePage implements
 			return;
 		}
 		contentProvider.rebuildTree(model);
+		/* items are recreated, so caret item must be selected again */
+		lastCaretItem = null;
 
 		TreeViewer treeViewer = getTreeViewer();
 		if (treeViewer != null) {
@@ -170,6 +220,7 @@ public class BashEditorContentOutlinePage extends ContentOutlinePage implements
 		@Override
 		public void run() {
 			linkingWithEditorEnabled = !linkingWithEditorEnabled;
+			lastCaretItem = null;
 
 			initText();
 			initImage();
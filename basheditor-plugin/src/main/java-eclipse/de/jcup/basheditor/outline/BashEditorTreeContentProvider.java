@@ -85,7 +85,8 @@ public class BashEditorTreeContentProvider implements ITreeContentProvider {
 			item.endOffset=0;
 			list.add(item);
 		}
-		if (model.hasErrors()) {
+		/* errors are only shown when already validated - outline shall not wait for validation */
+		if (model.isValidated() && model.hasErrors()) {
 			Item item = new Item();
 			item.name = BASH_SCRIPT_CONTAINS_ERRORS;
 			item.type = ItemType.META_ERROR;
@@ -30,6 +30,20 @@ public enum BashEditorPreferenceConstants implements PreferenceIdentifiable{
 	P_EDITOR_AUTO_CREATE_END_BRACKETSY("autoCreateEndBrackets"),
 	
 	P_LINK_OUTLINE_WITH_EDITOR("linkOutlineWithEditor"),
+	
+	P_EDITOR_RECONCILE_DELAY("reconcileDelay"),
+	P_EDITOR_RECONCILE_MAX_FILE_SIZE("reconcileMaxFileSize"),
+	P_EDITOR_LARGE_FILE_MAX_SIZE("largeFileMaxSize"),
+	P_EDITOR_LARGE_FILE_MAX_LINES("largeFileMaxLines"),
+	
+	P_EDITOR_MARK_OCCURRENCES("markOccurrences"),
+	
+	P_EDITOR_SEMANTIC_HIGHLIGHTING("semanticHighlighting"),
+	
+	P_EDITOR_SHOW_TIMINGS("showTimings"),
+	
+	P_EDITOR_PATH_EXECUTABLES_ENABLED("pathExecutablesEnabled"),
+	P_EDITOR_ADDITIONAL_EXECUTABLE_DIRECTORIES("additionalExecutableDirectories"),
 	;
 
 	private String id;
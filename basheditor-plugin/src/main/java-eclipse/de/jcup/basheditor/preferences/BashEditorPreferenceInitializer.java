@@ -25,6 +25,8 @@ import static de.jcup.basheditor.preferences.BashEditorValidationPreferenceConst
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
 
+import de.jcup.basheditor.script.BashScriptModelBuilder;
+
 /**
  * Class used to initialize default preference values.
  */
@@ -37,6 +39,25 @@ public class BashEditorPreferenceInitializer extends AbstractPreferenceInitializ
 		/* Outline */
 		store.setDefault(P_LINK_OUTLINE_WITH_EDITOR.getId(), true);
 		
+		/* Reconciling while typing */
+		store.setDefault(P_EDITOR_RECONCILE_DELAY.getId(), 500);
+		store.setDefault(P_EDITOR_RECONCILE_MAX_FILE_SIZE.getId(), 1000000);
+		store.setDefault(P_EDITOR_LARGE_FILE_MAX_SIZE.getId(), 2000000);
+		store.setDefault(P_EDITOR_LARGE_FILE_MAX_LINES.getId(), 50000);
+		
+		/* Mark occurrences */
+		store.setDefault(P_EDITOR_MARK_OCCURRENCES.getId(), true);
+		
+		/* Semantic highlighting */
+		store.setDefault(P_EDITOR_SEMANTIC_HIGHLIGHTING.getId(), true);
+		
+		/* Timings */
+		store.setDefault(P_EDITOR_SHOW_TIMINGS.getId(), false);
+		
+		/* Executables */
+		store.setDefault(P_EDITOR_PATH_EXECUTABLES_ENABLED.getId(), true);
+		store.setDefault(P_EDITOR_ADDITIONAL_EXECUTABLE_DIRECTORIES.getId(), "");
+		
 		/* ++++++++++++ */
 		/* + Brackets + */
 		/* ++++++++++++ */
@@ -67,6 +88,10 @@ public class BashEditorPreferenceInitializer extends AbstractPreferenceInitializ
 		preferences.setDefaultColor(COLOR_BASH_COMMAND, TASK_DEFAULT_RED);
 		preferences.setDefaultColor(COLOR_KNOWN_VARIABLES, DARK_GRAY);
 		preferences.setDefaultColor(COLOR_PARAMETERS, DARK_BLUE);
+		preferences.setDefaultColor(COLOR_FUNCTION_DECLARATION, STEELBLUE);
+		preferences.setDefaultColor(COLOR_FUNCTION_CALL, STEELBLUE);
+		preferences.setDefaultColor(COLOR_DEFINED_VARIABLES, DARK_GRAY);
+		preferences.setDefaultColor(COLOR_UNDEFINED_VARIABLES, MIDDLE_RED);
 		
 		/* ++++++++++++++ */
 		/* + Validation + */
@@ -75,6 +100,8 @@ public class BashEditorPreferenceInitializer extends AbstractPreferenceInitializ
 		store.setDefault(VALIDATE_DO_STATEMENTS.getId(),true);
 		store.setDefault(VALIDATE_IF_STATEMENTS.getId(),true);
 		store.setDefault(VALIDATE_FUNCTION_STATEMENTS.getId(),true);
+		store.setDefault(VALIDATE_MAX_ERRORS.getId(),BashScriptModelBuilder.DEFAULT_MAX_ERRORS);
+		store.setDefault(VALIDATE_PROBLEMS_AS_ANNOTATIONS.getId(),false);
 	}
 	
 	
@@ -18,12 +18,15 @@ package de.jcup.basheditor.preferences;
 import static de.jcup.basheditor.BashEditorUtil.*;
 import static de.jcup.basheditor.preferences.BashEditorPreferenceConstants.*;
 
+import java.io.File;
 import java.util.ArrayList;
 
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.ColorFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
+import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
@@ -124,6 +127,70 @@ public class BashEditorPreferencePage extends FieldEditorPreferencePage implemen
 		.setToolTipText("Via this setting the default behaviour for new opened outlines is set");
 		addField(linkEditorWithOutline);
 		
+		/* reconciling */
+		IntegerFieldEditor reconcileDelay = new IntegerFieldEditor(P_EDITOR_RECONCILE_DELAY.getId(),
+				"Delay before outline and validation are updated while typing (ms)", otherComposite);
+		reconcileDelay.setValidRange(0, 60000);
+		reconcileDelay.getLabelControl(otherComposite)
+		.setToolTipText("Changes are used by new opened editors");
+		addField(reconcileDelay);
+		
+		IntegerFieldEditor reconcileMaxFileSize = new IntegerFieldEditor(P_EDITOR_RECONCILE_MAX_FILE_SIZE.getId(),
+				"Maximum file size for updates while typing (characters)", otherComposite);
+		reconcileMaxFileSize.setValidRange(0, Integer.MAX_VALUE);
+		reconcileMaxFileSize.getLabelControl(otherComposite)
+		.setToolTipText("Bigger files are only updated on save");
+		addField(reconcileMaxFileSize);
+		
+		/* large files */
+		IntegerFieldEditor largeFileMaxSize = new IntegerFieldEditor(P_EDITOR_LARGE_FILE_MAX_SIZE.getId(),
+				"Large file mode for files bigger than (characters, 0 = never)", otherComposite);
+		largeFileMaxSize.setValidRange(0, Integer.MAX_VALUE);
+		largeFileMaxSize.getLabelControl(otherComposite)
+		.setToolTipText("Large files start as plain text, highlighting is done only for visible parts and other features are enabled in background");
+		addField(largeFileMaxSize);
+		
+		IntegerFieldEditor largeFileMaxLines = new IntegerFieldEditor(P_EDITOR_LARGE_FILE_MAX_LINES.getId(),
+				"Large file mode for files having more lines than (0 = never)", otherComposite);
+		largeFileMaxLines.setValidRange(0, Integer.MAX_VALUE);
+		largeFileMaxLines.getLabelControl(otherComposite)
+		.setToolTipText("Changes are used by new opened editors");
+		addField(largeFileMaxLines);
+		
+		/* mark occurrences */
+		BooleanFieldEditor markOccurrences = new BooleanFieldEditor(P_EDITOR_MARK_OCCURRENCES.getId(),
+				"Mark occurrences of function or variable at caret", otherComposite);
+		markOccurrences.getDescriptionControl(otherComposite)
+		.setToolTipText("Colors can be changed at General > Editors > Text Editors > Annotations ('Bash Occurrences')");
+		addField(markOccurrences);
+		
+		/* semantic highlighting */
+		BooleanFieldEditor semanticHighlighting = new BooleanFieldEditor(P_EDITOR_SEMANTIC_HIGHLIGHTING.getId(),
+				"Highlight functions and variables by their definition in script", otherComposite);
+		semanticHighlighting.getDescriptionControl(otherComposite)
+		.setToolTipText("Colors can be changed at syntax color preferences");
+		addField(semanticHighlighting);
+		
+		/* timings */
+		BooleanFieldEditor showTimings = new BooleanFieldEditor(P_EDITOR_SHOW_TIMINGS.getId(),
+				"Show timings of model updates in status line", otherComposite);
+		showTimings.getDescriptionControl(otherComposite)
+		.setToolTipText("Shows lex, model build, validation, marker and outline times of last update. Enabled always when started with -Dbasheditor.debug.enabled=true - then timings are written to error log as well");
+		addField(showTimings);
+		
+		/* executables */
+		BooleanFieldEditor pathExecutablesEnabled = new BooleanFieldEditor(P_EDITOR_PATH_EXECUTABLES_ENABLED.getId(),
+				"Highlight and propose executables found in $PATH", otherComposite);
+		pathExecutablesEnabled.getDescriptionControl(otherComposite)
+		.setToolTipText("Executables are discovered in background and the result is cached until a directory changes");
+		addField(pathExecutablesEnabled);
+		
+		StringFieldEditor additionalExecutableDirectories = new StringFieldEditor(
+				P_EDITOR_ADDITIONAL_EXECUTABLE_DIRECTORIES.getId(), "Additional executable directories", otherComposite);
+		additionalExecutableDirectories.getLabelControl(otherComposite)
+		.setToolTipText("Directories separated by '" + File.pathSeparator + "' which are scanned in addition to $PATH");
+		addField(additionalExecutableDirectories);
+		
 
 		/* BRACKETS */
 		/*
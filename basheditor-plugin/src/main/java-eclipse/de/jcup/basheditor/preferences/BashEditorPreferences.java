@@ -51,13 +51,22 @@ public class BashEditorPreferences {
 				if (property == null) {
 					return;
 				}
+				if (property.equals(P_EDITOR_PATH_EXECUTABLES_ENABLED.getId())
+						|| property.equals(P_EDITOR_ADDITIONAL_EXECUTABLE_DIRECTORIES.getId())) {
+					BashEditorActivator.getDefault().getExecutables().update();
+				}
 				ChangeContext context = new ChangeContext();
+				/* semantic highlighting is switched by reconfiguring editors like color changes */
+				context.colorChanged = property.equals(P_EDITOR_SEMANTIC_HIGHLIGHTING.getId());
 				for (BashEditorSyntaxColorPreferenceConstants c : BashEditorSyntaxColorPreferenceConstants.values()) {
 					if (property.equals(c.getId())) {
 						context.colorChanged = true;
+						context.changedColorId = c.getId();
 						break;
 					}
 				}
+				/* timings are recorded by model builders, so handle like validation changes */
+				context.validationChanged = property.equals(P_EDITOR_SHOW_TIMINGS.getId());
 				for (BashEditorValidationPreferenceConstants c : BashEditorValidationPreferenceConstants.values()) {
 					if (property.equals(c.getId())) {
 						context.validationChanged = true;
@@ -73,6 +82,10 @@ public class BashEditorPreferences {
 				if (!context.hasChanges()) {
 					return;
 				}
+				if (context.validationChanged) {
+					/* existing models were built with old validation setup */
+					BashEditorActivator.getDefault().getModelServices().invalidateAll();
+				}
 				/* inform all Bash editors about color changes */
 				IWorkbenchPage activePage = EclipseUtil.getActivePage();
 				if (activePage == null) {
@@ -88,7 +101,10 @@ public class BashEditorPreferences {
 						continue;
 					}
 					BashEditor geditor = (BashEditor) editor;
-					if (context.colorChanged){
+					if (context.changedColorId != null) {
+						/* single color - editor replaces only styles using it */
+						geditor.handleSyntaxColorChanged(context.changedColorId);
+					} else if (context.colorChanged){
 						geditor.handleColorSettingsChanged();
 					}
 					if (context.validationChanged){
@@ -103,6 +119,7 @@ public class BashEditorPreferences {
 	private class ChangeContext {
 		private boolean colorChanged = false;
 		private boolean validationChanged = false;
+		private String changedColorId;
 
 		private boolean hasChanges() {
 			boolean changedAtAll = colorChanged;
@@ -124,6 +141,11 @@ public class BashEditorPreferences {
 		return data;
 	}
 
+	public int getIntegerPreference(BashEditorPreferenceConstants id) {
+		int data = getPreferenceStore().getInt(id.getId());
+		return data;
+	}
+
 	public void setBooleanPreference(BashEditorPreferenceConstants id, boolean value) {
 		getPreferenceStore().setValue(id.getId(), value);
 	}
@@ -29,6 +29,10 @@ public enum BashEditorSyntaxColorPreferenceConstants implements PreferenceIdenti
 	COLOR_BASH_COMMAND("colorCommands","Commands"),
 	COLOR_KNOWN_VARIABLES("colorKnownVariables","Known variables"),
 	COLOR_PARAMETERS("colorParameters","Parameters"),
+	COLOR_FUNCTION_DECLARATION("colorFunctionDeclarations","Function declarations"),
+	COLOR_FUNCTION_CALL("colorFunctionCalls","Calls of script functions"),
+	COLOR_DEFINED_VARIABLES("colorDefinedVariables","Variables defined in script"),
+	COLOR_UNDEFINED_VARIABLES("colorUndefinedVariables","Variables not defined in script"),
 	
 	;
 
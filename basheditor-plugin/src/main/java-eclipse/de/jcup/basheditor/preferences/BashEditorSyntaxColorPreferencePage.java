@@ -72,6 +72,10 @@ public class BashEditorSyntaxColorPreferencePage extends FieldEditorPreferencePa
 				changeColor(editorMap, COLOR_BASH_COMMAND, BashEditorColorConstants.TASK_CYAN);
 				changeColor(editorMap, COLOR_KNOWN_VARIABLES, BashEditorColorConstants.DARK_THEME_GRAY);
 				changeColor(editorMap, COLOR_PARAMETERS, BashEditorColorConstants.BRIGHT_CYAN);
+				changeColor(editorMap, COLOR_FUNCTION_DECLARATION, BashEditorColorConstants.MEDIUM_CYAN);
+				changeColor(editorMap, COLOR_FUNCTION_CALL, BashEditorColorConstants.MEDIUM_CYAN);
+				changeColor(editorMap, COLOR_DEFINED_VARIABLES, BashEditorColorConstants.DARK_THEME_GRAY);
+				changeColor(editorMap, COLOR_UNDEFINED_VARIABLES, BashEditorColorConstants.BRIGHT_RED);
 				
 			}
 
@@ -27,6 +27,10 @@ public enum BashEditorValidationPreferenceConstants implements PreferenceIdentif
 	
 	VALIDATE_FUNCTION_STATEMENTS("validateIf","Functions"),
 	
+	VALIDATE_MAX_ERRORS("validateMaxErrors","Maximum problems per file (0 = unlimited)"),
+	
+	VALIDATE_PROBLEMS_AS_ANNOTATIONS("validateProblemsAsAnnotations","Show problems of unsaved changes only inside editor"),
+	
 	;
 
 	private String id;
@@ -19,6 +19,7 @@ import static de.jcup.basheditor.preferences.BashEditorValidationPreferenceConst
 
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
@@ -45,6 +46,13 @@ public class BashEditorValidationPreferencePage extends FieldEditorPreferencePag
 		createEditor(VALIDATE_FUNCTION_STATEMENTS, parent);
 		createEditor(VALIDATE_BLOCK_STATEMENTS, parent);
 		
+		IntegerFieldEditor maxErrors = new IntegerFieldEditor(VALIDATE_MAX_ERRORS.getId(), VALIDATE_MAX_ERRORS.getLabelText(), parent);
+		maxErrors.setValidRange(0, Integer.MAX_VALUE);
+		addField(maxErrors);
+		
+		BooleanFieldEditor problemsAsAnnotations = createEditor(VALIDATE_PROBLEMS_AS_ANNOTATIONS, parent);
+		problemsAsAnnotations.getDescriptionControl(parent)
+		.setToolTipText("When enabled problem markers are only updated on save");
 	}
 	
 	private BooleanFieldEditor createEditor(BashEditorValidationPreferenceConstants constant, Composite parent){
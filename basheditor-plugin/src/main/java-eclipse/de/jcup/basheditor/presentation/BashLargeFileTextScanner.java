@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.presentation;
+
+import java.util.Map;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.ITokenScanner;
+
+/**
+ * Text scanner used for documents in large file mode. Those documents have no
+ * partitioner, so the partition scanner is used directly as token scanner and
+ * its content type tokens are mapped to colored tokens.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashLargeFileTextScanner implements ITokenScanner {
+
+	private ITokenScanner partitionScanner;
+	private Map<String, IToken> tokensByContentType;
+	private IToken defaultToken;
+
+	/**
+	 * Creates scanner
+	 * 
+	 * @param partitionScanner
+	 *            scanner returning tokens having content type as data
+	 * @param tokensByContentType
+	 *            colored tokens for content types
+	 * @param defaultToken
+	 *            token used for parts without content type
+	 */
+	public BashLargeFileTextScanner(ITokenScanner partitionScanner, Map<String, IToken> tokensByContentType,
+			IToken defaultToken) {
+		this.partitionScanner = partitionScanner;
+		this.tokensByContentType = tokensByContentType;
+		this.defaultToken = defaultToken;
+	}
+
+	@Override
+	public void setRange(IDocument document, int offset, int length) {
+		partitionScanner.setRange(document, offset, length);
+	}
+
+	@Override
+	public IToken nextToken() {
+		IToken token = partitionScanner.nextToken();
+		if (token.isEOF()) {
+			return token;
+		}
+		Object data = token.getData();
+		if (data instanceof String) {
+			IToken mapped = tokensByContentType.get(data);
+			if (mapped != null) {
+				return mapped;
+			}
+		}
+		return defaultToken;
+	}
+
+	@Override
+	public int getTokenOffset() {
+		return partitionScanner.getTokenOffset();
+	}
+
+	@Override
+	public int getTokenLength() {
+		return partitionScanner.getTokenLength();
+	}
+
+}
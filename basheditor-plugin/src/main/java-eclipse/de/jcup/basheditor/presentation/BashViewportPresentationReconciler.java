@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.presentation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.jface.text.ITextViewerExtension2;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextPresentation;
+import org.eclipse.jface.text.presentation.PresentationReconciler;
+
+/**
+ * Presentation reconciler which creates presentations only for the visible
+ * part of the document plus a margin. Damaged parts outside are remembered as
+ * pending document positions - so they move with later edits - and are
+ * presented when scrolled into view. An unterminated quote damages the
+ * document up to its end, but only the visible part is repainted until the
+ * quote is closed.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashViewportPresentationReconciler extends PresentationReconciler {
+
+	/**
+	 * Characters before and after the visible region which are presented too,
+	 * so small scroll steps need no new presentation
+	 */
+	public static final int VISIBLE_MARGIN = 2000;
+
+	private ITextViewer viewer;
+	private IDocument pendingDocument;
+	/* only accessed in UI thread */
+	private List<Position> pending = new ArrayList<>();
+	private IViewportListener viewportListener = new IViewportListener() {
+
+		@Override
+		public void viewportChanged(int verticalOffset) {
+			presentVisiblePending();
+		}
+	};
+
+	/**
+	 * Computes visible region of given viewer inside model (master document)
+	 * 
+	 * @param viewer
+	 * @param margin
+	 *            characters added before and after visible lines
+	 * @return region or <code>null</code> when not computable
+	 */
+	public static IRegion computeVisibleRegion(ITextViewer viewer, int margin) {
+		if (viewer == null) {
+			return null;
+		}
+		IDocument document = viewer.getDocument();
+		if (document == null) {
+			return null;
+		}
+		/* top and bottom index are model lines, so folding is respected */
+		int top = viewer.getTopIndex();
+		int bottom = viewer.getBottomIndex();
+		if (top < 0 || bottom < top) {
+			return null;
+		}
+		try {
+			int start = document.getLineOffset(top);
+			IRegion bottomLine = document.getLineInformation(bottom);
+			int end = bottomLine.getOffset() + bottomLine.getLength();
+			start = Math.max(0, start - margin);
+			end = Math.min(document.getLength(), end + margin);
+			return new Region(start, end - start);
+		} catch (BadLocationException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void install(ITextViewer viewer) {
+		super.install(viewer);
+		this.viewer = viewer;
+		viewer.addViewportListener(viewportListener);
+	}
+
+	@Override
+	public void uninstall() {
+		if (viewer != null) {
+			viewer.removeViewportListener(viewportListener);
+			viewer = null;
+		}
+		clearPending();
+		super.uninstall();
+	}
+
+	@Override
+	protected void setDocumentToDamagers(IDocument document) {
+		/* pending positions belong to former document */
+		clearPending();
+		pendingDocument = document;
+		super.setDocumentToDamagers(document);
+	}
+
+	@Override
+	protected TextPresentation createPresentation(IRegion damage, IDocument document) {
+		IRegion window = computeVisibleRegion(viewer, VISIBLE_MARGIN);
+		if (window == null) {
+			/* viewer not laid out - start of document is shown first */
+			window = new Region(0, Math.min(document.getLength(), VISIBLE_MARGIN));
+		}
+		int damageStart = damage.getOffset();
+		int damageEnd = damageStart + damage.getLength();
+		int start = Math.max(damageStart, window.getOffset());
+		int end = Math.min(damageEnd, window.getOffset() + window.getLength());
+		if (end <= start) {
+			/* not visible - will be presented when scrolled into view */
+			addPending(damageStart, damageEnd);
+			return null;
+		}
+		if (damageStart < start) {
+			addPending(damageStart, start);
+		}
+		if (end < damageEnd) {
+			addPending(end, damageEnd);
+		}
+		removePending(start, end);
+		return super.createPresentation(new Region(start, end - start), document);
+	}
+
+	private void presentVisiblePending() {
+		if (pending.isEmpty() || !(viewer instanceof ITextViewerExtension2)) {
+			return;
+		}
+		IRegion window = computeVisibleRegion(viewer, VISIBLE_MARGIN);
+		if (window == null) {
+			return;
+		}
+		int windowStart = window.getOffset();
+		int windowEnd = windowStart + window.getLength();
+		/* collect first - invalidation changes pending positions */
+		List<Region> visible = new ArrayList<>();
+		for (Iterator<Position> it = pending.iterator(); it.hasNext();) {
+			Position position = it.next();
+			if (position.isDeleted() || position.getLength() == 0) {
+				removePosition(position);
+				it.remove();
+				continue;
+			}
+			int start = Math.max(position.getOffset(), windowStart);
+			int end = Math.min(position.getOffset() + position.getLength(), windowEnd);
+			if (start < end) {
+				visible.add(new Region(start, end - start));
+			}
+		}
+		for (Region region : visible) {
+			((ITextViewerExtension2) viewer).invalidateTextPresentation(region.getOffset(), region.getLength());
+		}
+	}
+
+	private void addPending(int start, int end) {
+		if (pendingDocument == null || end <= start) {
+			return;
+		}
+		/* merge with overlapping or adjacent positions */
+		for (Iterator<Position> it = pending.iterator(); it.hasNext();) {
+			Position position = it.next();
+			int positionEnd = position.getOffset() + position.getLength();
+			if (position.isDeleted() || (position.getOffset() <= end && start <= positionEnd)) {
+				if (!position.isDeleted()) {
+					start = Math.min(start, position.getOffset());
+					end = Math.max(end, positionEnd);
+				}
+				removePosition(position);
+				it.remove();
+			}
+		}
+		addPosition(start, end);
+	}
+
+	private void removePending(int start, int end) {
+		List<Position> remaining = new ArrayList<>();
+		for (Iterator<Position> it = pending.iterator(); it.hasNext();) {
+			Position position = it.next();
+			int positionStart = position.getOffset();
+			int positionEnd = positionStart + position.getLength();
+			if (!position.isDeleted() && (positionEnd <= start || end <= positionStart)) {
+				continue;
+			}
+			removePosition(position);
+			it.remove();
+			if (position.isDeleted()) {
+				continue;
+			}
+			if (positionStart < start) {
+				remaining.add(new Position(positionStart, start - positionStart));
+			}
+			if (end < positionEnd) {
+				remaining.add(new Position(end, positionEnd - end));
+			}
+		}
+		for (Position position : remaining) {
+			addPosition(position.getOffset(), position.getOffset() + position.getLength());
+		}
+	}
+
+	private void addPosition(int start, int end) {
+		Position position = new Position(start, end - start);
+		try {
+			/* default category is updated by document on every change */
+			pendingDocument.addPosition(position);
+			pending.add(position);
+		} catch (BadLocationException e) {
+			/* outside document - nothing to present */
+		}
+	}
+
+	private void removePosition(Position position) {
+		if (pendingDocument != null) {
+			pendingDocument.removePosition(position);
+		}
+	}
+
+	private void clearPending() {
+		for (Position position : pending) {
+			removePosition(position);
+		}
+		pending.clear();
+	}
+}
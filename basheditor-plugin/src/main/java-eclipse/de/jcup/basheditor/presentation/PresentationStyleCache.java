@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.presentation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jface.text.TextAttribute;
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.RGB;
+
+import de.jcup.basheditor.ColorManager;
+
+/**
+ * Style templates per content type, shared by all {@link PresentationSupport}
+ * instances of one presentation reconciler. Templates are never changed after
+ * creation - a color change replaces the templates using the color, so
+ * presentations created before are not touched.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class PresentationStyleCache {
+
+	private ColorManager colorManager;
+	private Color background;
+	private Map<String, StyleEntry> entries = new LinkedHashMap<>();
+
+	public PresentationStyleCache(ColorManager colorManager, Color background) {
+		this.colorManager = colorManager;
+		this.background = background;
+	}
+
+	/**
+	 * Defines style for given content type
+	 * 
+	 * @param contentType
+	 * @param colorId
+	 *            identifier of color preference, used by
+	 *            {@link #updateColor(String, RGB)}
+	 * @param rgb
+	 * @param style
+	 *            SWT font style
+	 */
+	public void put(String contentType, String colorId, RGB rgb, int style) {
+		StyleEntry entry = new StyleEntry();
+		entry.colorId = colorId;
+		entry.style = style;
+		entry.template = createTemplate(rgb, style);
+		entries.put(contentType, entry);
+	}
+
+	/**
+	 * @param contentType
+	 * @return style template for content type or <code>null</code>. Callers
+	 *         must not change the template
+	 */
+	public StyleRange getTemplate(String contentType) {
+		StyleEntry entry = entries.get(contentType);
+		if (entry == null) {
+			return null;
+		}
+		return entry.template;
+	}
+
+	/**
+	 * @param contentType
+	 * @return text attribute for content type or <code>null</code>
+	 */
+	public TextAttribute createTextAttribute(String contentType) {
+		StyleRange template = getTemplate(contentType);
+		if (template == null) {
+			return null;
+		}
+		return new TextAttribute(template.foreground, template.background, template.fontStyle);
+	}
+
+	public List<String> getContentTypes() {
+		return new ArrayList<>(entries.keySet());
+	}
+
+	/**
+	 * Replaces templates using given color preference
+	 * 
+	 * @param colorId
+	 * @param rgb
+	 *            new color
+	 * @return <code>true</code> when color is used by this cache
+	 */
+	public boolean updateColor(String colorId, RGB rgb) {
+		boolean used = false;
+		for (StyleEntry entry : entries.values()) {
+			if (!entry.colorId.equals(colorId)) {
+				continue;
+			}
+			used = true;
+			entry.template = createTemplate(rgb, entry.style);
+		}
+		return used;
+	}
+
+	private StyleRange createTemplate(RGB rgb, int style) {
+		return new StyleRange(0, 0, colorManager.getColor(rgb), background, style);
+	}
+
+	private class StyleEntry {
+		private String colorId;
+		private int style;
+		private StyleRange template;
+	}
+}
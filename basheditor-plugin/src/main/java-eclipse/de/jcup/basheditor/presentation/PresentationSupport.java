@@ -38,12 +38,31 @@ public class PresentationSupport implements IPresentationDamager, IPresentationR
 	 */
 	protected TextAttribute fDefaultTextAttribute;
 
+	private PresentationStyleCache styleCache;
+	private String contentType;
+
 	public PresentationSupport(TextAttribute defaultTextAttribute) {
 		Assert.isNotNull(defaultTextAttribute);
 
 		fDefaultTextAttribute = defaultTextAttribute;
 	}
 
+	/**
+	 * Creates presentation support using style template of given content type.
+	 * Template is fetched on every repair, so color changes inside cache are
+	 * used without new presentation support.
+	 * 
+	 * @param styleCache
+	 * @param contentType
+	 */
+	public PresentationSupport(PresentationStyleCache styleCache, String contentType) {
+		Assert.isNotNull(styleCache);
+		Assert.isNotNull(contentType);
+
+		this.styleCache = styleCache;
+		this.contentType = contentType;
+	}
+
 	@Override
 	public void setDocument(IDocument document) {
 		fDocument = document;
@@ -105,7 +124,40 @@ public class PresentationSupport implements IPresentationDamager, IPresentationR
 
 	@Override
 	public void createPresentation(TextPresentation presentation, ITypedRegion region) {
-		addRange(presentation, region.getOffset(), region.getLength(), fDefaultTextAttribute);
+		if (styleCache == null) {
+			addRange(presentation, region.getOffset(), region.getLength(), fDefaultTextAttribute);
+			return;
+		}
+		addRange(presentation, region.getOffset(), region.getLength(), styleCache.getTemplate(contentType));
+	}
+
+	/**
+	 * Adds a copy of given style template to the text presentation. When the
+	 * last range of the presentation ends at offset and has same style, the
+	 * last range is extended instead.
+	 *
+	 * @param presentation
+	 *            the text presentation to be extended
+	 * @param offset
+	 *            the offset of the range to be styled
+	 * @param length
+	 *            the length of the range to be styled
+	 * @param template
+	 *            the style template, will not be changed
+	 */
+	protected void addRange(TextPresentation presentation, int offset, int length, StyleRange template) {
+		if (template == null) {
+			return;
+		}
+		StyleRange last = presentation.getLastStyleRange();
+		if (last != null && last.start + last.length == offset && last.similarTo(template)) {
+			last.length += length;
+			return;
+		}
+		StyleRange range = (StyleRange) template.clone();
+		range.start = offset;
+		range.length = length;
+		presentation.addStyleRange(range);
 	}
 
 	/**
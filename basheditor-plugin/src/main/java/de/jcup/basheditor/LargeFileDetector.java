@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+/**
+ * Detects large files by size or line count. Callers provide both values -
+ * e.g. a document knows them by its line tracker - so no text is read.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class LargeFileDetector {
+
+	private int maxCharacters;
+	private int maxLines;
+
+	/**
+	 * Creates a detector
+	 * 
+	 * @param maxCharacters
+	 *            files having more characters are large. When lower or equal
+	 *            to zero characters are not checked
+	 * @param maxLines
+	 *            files having more lines are large. When lower or equal to
+	 *            zero lines are not checked
+	 */
+	public LargeFileDetector(int maxCharacters, int maxLines) {
+		this.maxCharacters = maxCharacters;
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * @param length
+	 *            amount of characters
+	 * @param lines
+	 *            amount of lines
+	 * @return <code>true</code> when length or lines are too big
+	 */
+	public boolean isLarge(int length, int lines) {
+		if (maxCharacters > 0 && length > maxCharacters) {
+			return true;
+		}
+		return maxLines > 0 && lines > maxLines;
+	}
+}
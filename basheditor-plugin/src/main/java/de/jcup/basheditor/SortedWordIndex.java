@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable word index for prefix lookups. Words are kept inside one sorted
+ * array, so all words starting with a prefix are a consecutive range which is
+ * found by two binary searches.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class SortedWordIndex {
+
+	public static final SortedWordIndex EMPTY = new SortedWordIndex(new String[0]);
+
+	private String[] words;
+
+	/**
+	 * Creates index for given words. Duplicates and <code>null</code> or
+	 * empty words are ignored.
+	 * 
+	 * @param words
+	 */
+	public SortedWordIndex(Collection<String> words) {
+		TreeSet<String> set = new TreeSet<>();
+		for (String word : words) {
+			if (word != null && !word.isEmpty()) {
+				set.add(word);
+			}
+		}
+		this.words = set.toArray(new String[set.size()]);
+	}
+
+	private SortedWordIndex(String[] sortedWords) {
+		this.words = sortedWords;
+	}
+
+	/**
+	 * Find words starting with given prefix
+	 * 
+	 * @param prefix
+	 *            prefix, an empty prefix matches all words
+	 * @param max
+	 *            maximum amount of returned words
+	 * @return sorted list of words starting with prefix, never
+	 *         <code>null</code>
+	 */
+	public List<String> findByPrefix(String prefix, int max) {
+		List<String> result = new ArrayList<>();
+		if (prefix == null || max <= 0) {
+			return result;
+		}
+		int start = lowerBound(prefix);
+		int end = upperBound(prefix);
+		if (end - start > max) {
+			end = start + max;
+		}
+		for (int i = start; i < end; i++) {
+			result.add(words[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * @param prefix
+	 * @return amount of words starting with given prefix
+	 */
+	public int countByPrefix(String prefix) {
+		if (prefix == null) {
+			return 0;
+		}
+		return upperBound(prefix) - lowerBound(prefix);
+	}
+
+	public int size() {
+		return words.length;
+	}
+
+	public boolean contains(String word) {
+		return word != null && Arrays.binarySearch(words, word) >= 0;
+	}
+
+	/**
+	 * Two indexes are equal when they contain the same words
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SortedWordIndex)) {
+			return false;
+		}
+		return Arrays.equals(words, ((SortedWordIndex) obj).words);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(words);
+	}
+
+	/**
+	 * @return index after last word starting with given prefix
+	 */
+	private int upperBound(String prefix) {
+		/* all words having prefix are sorted before prefix + highest char */
+		return lowerBound(prefix + Character.MAX_VALUE);
+	}
+
+	/**
+	 * @return index of first word not lower than given text
+	 */
+	private int lowerBound(String text) {
+		int low = 0;
+		int high = words.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (words[middle].compareTo(text) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.executables;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.jcup.basheditor.SortedWordIndex;
+
+/**
+ * Immutable index of executable names found inside a list of directories.
+ * Remembers the modification time of every scanned directory, so a cheap
+ * check can tell if the index is still valid - adding or removing a file
+ * changes the modification time of its directory.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class ExecutableIndex {
+
+	public static final ExecutableIndex EMPTY = new ExecutableIndex(Collections.<String, Long>emptyMap(),
+			SortedWordIndex.EMPTY);
+
+	private Map<String, Long> directoryModificationTimes;
+	private SortedWordIndex names;
+
+	/**
+	 * @param directoryModificationTimes
+	 *            absolute directory path to modification time, in scan order
+	 * @param names
+	 *            executable names
+	 */
+	public ExecutableIndex(Map<String, Long> directoryModificationTimes, SortedWordIndex names) {
+		this.directoryModificationTimes = Collections
+				.unmodifiableMap(new LinkedHashMap<String, Long>(directoryModificationTimes));
+		this.names = names;
+	}
+
+	/**
+	 * @param name
+	 * @return <code>true</code> when an executable with given name exists
+	 */
+	public boolean contains(String name) {
+		return names.contains(name);
+	}
+
+	public SortedWordIndex getNames() {
+		return names;
+	}
+
+	public Map<String, Long> getDirectoryModificationTimes() {
+		return directoryModificationTimes;
+	}
+
+	/**
+	 * Checks if this index is still valid for given directories - only
+	 * directory modification times are compared, no directory is listed.
+	 * 
+	 * @param directories
+	 * @return <code>true</code> when same directories are used and none of
+	 *         them has changed
+	 */
+	public boolean isValidFor(List<File> directories) {
+		if (directories.size() != directoryModificationTimes.size()) {
+			return false;
+		}
+		Collection<String> paths = directoryModificationTimes.keySet();
+		int i = 0;
+		for (String path : paths) {
+			File directory = directories.get(i++);
+			if (!path.equals(directory.getAbsolutePath())) {
+				return false;
+			}
+			Long lastModified = directoryModificationTimes.get(path);
+			if (lastModified.longValue() != directory.lastModified()) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
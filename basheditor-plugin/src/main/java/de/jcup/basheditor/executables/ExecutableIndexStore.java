@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.executables;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.jcup.basheditor.SortedWordIndex;
+
+/**
+ * Persists an {@link ExecutableIndex} as a simple text file:
+ * 
+ * <pre>
+ * # header
+ * d &lt;modification time&gt; &lt;directory path&gt;
+ * x &lt;executable name&gt;
+ * </pre>
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class ExecutableIndexStore {
+
+	private static final String HEADER = "# bash editor executables v1";
+
+	public void write(ExecutableIndex index, File file) throws IOException {
+		File parent = file.getParentFile();
+		if (parent != null && !parent.exists()) {
+			parent.mkdirs();
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.write('\n');
+			for (Map.Entry<String, Long> entry : index.getDirectoryModificationTimes().entrySet()) {
+				writer.write("d ");
+				writer.write(entry.getValue().toString());
+				writer.write(' ');
+				writer.write(entry.getKey());
+				writer.write('\n');
+			}
+			for (String name : index.getNames().findByPrefix("", index.getNames().size())) {
+				writer.write("x ");
+				writer.write(name);
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Reads index from given file
+	 * 
+	 * @param file
+	 * @return index or <code>null</code> when file does not exist or has not
+	 *         the expected format
+	 * @throws IOException
+	 */
+	public ExecutableIndex read(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		Map<String, Long> modificationTimes = new LinkedHashMap<>();
+		List<String> names = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			if (!HEADER.equals(reader.readLine())) {
+				return null;
+			}
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("x ")) {
+					names.add(line.substring(2));
+				} else if (line.startsWith("d ")) {
+					int separator = line.indexOf(' ', 2);
+					if (separator == -1) {
+						return null;
+					}
+					try {
+						long lastModified = Long.parseLong(line.substring(2, separator));
+						modificationTimes.put(line.substring(separator + 1), lastModified);
+					} catch (NumberFormatException e) {
+						return null;
+					}
+				} else if (!line.isEmpty()) {
+					return null;
+				}
+			}
+		}
+		return new ExecutableIndex(modificationTimes, new SortedWordIndex(names));
+	}
+}
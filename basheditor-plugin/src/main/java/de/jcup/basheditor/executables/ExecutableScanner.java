@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.executables;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.jcup.basheditor.SortedWordIndex;
+
+/**
+ * Scans directories - e.g. all entries of $PATH - for executable files
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class ExecutableScanner {
+
+	/**
+	 * Resolves existing directories to scan
+	 * 
+	 * @param pathVariable
+	 *            value of PATH variable, may be <code>null</code>
+	 * @param additionalDirectories
+	 *            additional directories, separated by path separator, may be
+	 *            <code>null</code>
+	 * @return list of existing directories without duplicates, in given order
+	 */
+	public List<File> resolveDirectories(String pathVariable, String additionalDirectories) {
+		Set<String> paths = new LinkedHashSet<>();
+		addPaths(paths, pathVariable);
+		addPaths(paths, additionalDirectories);
+
+		List<File> directories = new ArrayList<>();
+		for (String path : paths) {
+			File directory = new File(path);
+			if (directory.isDirectory()) {
+				directories.add(directory.getAbsoluteFile());
+			}
+		}
+		return directories;
+	}
+
+	/**
+	 * Scans given directories for executable files
+	 * 
+	 * @param directories
+	 * @return index, never <code>null</code>
+	 */
+	public ExecutableIndex scan(List<File> directories) {
+		Map<String, Long> modificationTimes = new LinkedHashMap<>();
+		List<String> names = new ArrayList<>();
+		for (File directory : directories) {
+			/* fetch time before listing, so a change while listing invalidates index */
+			modificationTimes.put(directory.getAbsolutePath(), directory.lastModified());
+			File[] files = directory.listFiles();
+			if (files == null) {
+				continue;
+			}
+			for (File file : files) {
+				if (file.isFile() && file.canExecute()) {
+					names.add(file.getName());
+				}
+			}
+		}
+		return new ExecutableIndex(modificationTimes, new SortedWordIndex(names));
+	}
+
+	private void addPaths(Set<String> paths, String pathList) {
+		if (pathList == null) {
+			return;
+		}
+		for (String path : pathList.split(File.pathSeparator)) {
+			String trimmed = path.trim();
+			if (!trimmed.isEmpty()) {
+				paths.add(trimmed);
+			}
+		}
+	}
+}
@@ -51,4 +51,38 @@ public class BashError implements ValidationResult {
 	public Type getType() {
 		return Type.ERROR;
 	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + end;
+		result = prime * result + ((message == null) ? 0 : message.hashCode());
+		result = prime * result + start;
+		return result;
+	}
+
+	/**
+	 * Two errors are equal when they have same range and same message
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BashError)) {
+			return false;
+		}
+		BashError other = (BashError) obj;
+		if (end != other.end) {
+			return false;
+		}
+		if (start != other.start) {
+			return false;
+		}
+		if (message == null) {
+			return other.message == null;
+		}
+		return message.equals(other.message);
+	}
 }
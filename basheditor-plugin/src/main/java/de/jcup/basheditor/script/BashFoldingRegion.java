@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+/**
+ * A region inside a bash script which can be folded
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashFoldingRegion {
+
+	public enum FoldingType {
+		FUNCTION,
+
+		IF,
+
+		CASE,
+
+		LOOP,
+
+		HERE_DOC,
+
+		COMMENT,
+	}
+
+	private FoldingType type;
+	private int start;
+	private int end;
+
+	public BashFoldingRegion(FoldingType type, int start, int end) {
+		this.type = type;
+		this.start = start;
+		this.end = end;
+	}
+
+	public FoldingType getType() {
+		return type;
+	}
+
+	/**
+	 * @return start offset of first token
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return end offset of last token - can be the offset of the last
+	 *         character (e.g. for a closing curly bracket) or the offset after
+	 *         it, so use only to identify the last line
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	@Override
+	public String toString() {
+		return type + "[" + start + "-" + end + "]";
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import de.jcup.basheditor.script.BashFoldingRegion.FoldingType;
+import de.jcup.basheditor.script.parser.ParseToken;
+
+/**
+ * Builds folding regions for functions, if/case/loop blocks, here documents
+ * and runs of comment lines. Regions are computed from the already parsed
+ * tokens of a model, so no additional parsing is necessary.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashFoldingRegionBuilder {
+
+	/**
+	 * Builds folding regions for given model
+	 * 
+	 * @param model
+	 * @return folding regions sorted by start offset, never <code>null</code>
+	 */
+	public List<BashFoldingRegion> build(BashScriptModel model) {
+		List<BashFoldingRegion> regions = new ArrayList<>();
+		if (model == null) {
+			return regions;
+		}
+		for (BashFunction function : model.getFunctions()) {
+			if (function.getEnd() > function.getPosition()) {
+				regions.add(new BashFoldingRegion(FoldingType.FUNCTION, function.getPosition(), function.getEnd()));
+			}
+		}
+		addTokenRegions(model.getTokens(), regions);
+
+		Collections.sort(regions, new Comparator<BashFoldingRegion>() {
+
+			@Override
+			public int compare(BashFoldingRegion o1, BashFoldingRegion o2) {
+				return o1.getStart() - o2.getStart();
+			}
+		});
+		return regions;
+	}
+
+	private void addTokenRegions(List<ParseToken> tokens, List<BashFoldingRegion> regions) {
+		Deque<ParseToken> ifStack = new ArrayDeque<>();
+		Deque<ParseToken> caseStack = new ArrayDeque<>();
+		Deque<ParseToken> loopStack = new ArrayDeque<>();
+
+		ParseToken firstComment = null;
+		ParseToken lastComment = null;
+
+		for (int i = 0; i < tokens.size(); i++) {
+			ParseToken token = tokens.get(i);
+			if (token.isComment()) {
+				if (firstComment == null) {
+					firstComment = token;
+				}
+				lastComment = token;
+				continue;
+			}
+			addCommentRegion(firstComment, lastComment, regions);
+			firstComment = null;
+			lastComment = null;
+
+			if (token.isHereDocStart()) {
+				i = addHereDocRegion(tokens, i, regions);
+			} else if (token.isIf()) {
+				ifStack.push(token);
+			} else if (token.isFi()) {
+				addBlockRegion(FoldingType.IF, ifStack, token, regions);
+			} else if (token.isCase()) {
+				caseStack.push(token);
+			} else if (token.isEsac()) {
+				addBlockRegion(FoldingType.CASE, caseStack, token, regions);
+			} else if (token.isLoopKeyword()) {
+				loopStack.push(token);
+			} else if (token.isDone()) {
+				addBlockRegion(FoldingType.LOOP, loopStack, token, regions);
+			}
+		}
+		addCommentRegion(firstComment, lastComment, regions);
+	}
+
+	private void addBlockRegion(FoldingType type, Deque<ParseToken> stack, ParseToken closeToken,
+			List<BashFoldingRegion> regions) {
+		if (stack.isEmpty()) {
+			/* not balanced - ignore */
+			return;
+		}
+		ParseToken openToken = stack.pop();
+		regions.add(new BashFoldingRegion(type, openToken.getStart(), closeToken.getEnd()));
+	}
+
+	private void addCommentRegion(ParseToken firstComment, ParseToken lastComment, List<BashFoldingRegion> regions) {
+		if (firstComment == null || firstComment == lastComment) {
+			/* a single comment line is not folded */
+			return;
+		}
+		regions.add(new BashFoldingRegion(FoldingType.COMMENT, firstComment.getStart(), lastComment.getEnd()));
+	}
+
+	/**
+	 * Adds region for here document starting at given token index
+	 * 
+	 * @return index of last token belonging to here document
+	 */
+	private int addHereDocRegion(List<ParseToken> tokens, int index, List<BashFoldingRegion> regions) {
+		ParseToken startToken = tokens.get(index);
+		int delimiterIndex = index;
+		String delimiter = startToken.getText().substring(2);
+		if (delimiter.startsWith("-")) {
+			delimiter = delimiter.substring(1);
+		}
+		if (delimiter.isEmpty() && index + 1 < tokens.size()) {
+			/* something like "<< EOF" */
+			delimiterIndex = index + 1;
+			delimiter = tokens.get(delimiterIndex).getText();
+		}
+		delimiter = unquote(delimiter);
+		if (delimiter.isEmpty()) {
+			return index;
+		}
+		for (int i = delimiterIndex + 1; i < tokens.size(); i++) {
+			ParseToken token = tokens.get(i);
+			if (delimiter.equals(token.getText())) {
+				regions.add(new BashFoldingRegion(FoldingType.HERE_DOC, startToken.getStart(), token.getEnd()));
+				return i;
+			}
+		}
+		/* not closed */
+		return index;
+	}
+
+	private String unquote(String delimiter) {
+		StringBuilder sb = new StringBuilder();
+		for (char c : delimiter.toCharArray()) {
+			if (c == '\'' || c == '"' || c == '\\') {
+				continue;
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -17,6 +17,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import de.jcup.basheditor.script.parser.ParseToken;
@@ -26,34 +27,182 @@ public class BashScriptModel {
 	Collection<BashFunction> functions = new ArrayList<>();
 	Collection<BashError> errors = new ArrayList<>();
 	List<ParseToken> debugTokenList;
+	int[] lineOffsets;
+	/**
+	 * Lazy computed parts or <code>null</code> when model was not created by a
+	 * builder
+	 */
+	BashScriptModelFacets facets;
 
 	public Collection<BashFunction> getFunctions() {
+		if (facets != null) {
+			return facets.getFunctions();
+		}
 		return functions;
 	}
 
+	/**
+	 * Returns errors of this model. If validation was not already done for
+	 * this model, this will be done now.
+	 * 
+	 * @return errors, never <code>null</code>
+	 */
 	public Collection<BashError> getErrors() {
+		if (facets != null) {
+			return facets.getErrors();
+		}
 		return errors;
 	}
 	
 	public boolean hasErrors(){
 		return !getErrors().isEmpty();
 	}
+
+	/**
+	 * @return <code>true</code> when validation results are available without
+	 *         further computation
+	 */
+	public boolean isValidated() {
+		if (facets != null) {
+			return facets.isValidated();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns all tokens of the script. If the script is not already parsed,
+	 * this will be done now.
+	 * 
+	 * @return token list, never <code>null</code>
+	 */
+	public List<ParseToken> getTokens() {
+		if (facets != null) {
+			return facets.getTokens();
+		}
+		if (debugTokenList != null) {
+			return debugTokenList;
+		}
+		return Collections.emptyList();
+	}
 	
+	/**
+	 * Resolves index of token at given offset by binary search. An offset
+	 * directly after a token text is accepted as well.
+	 * 
+	 * @param offset
+	 * @return index inside {@link #getTokens()} or -1 when there is no token
+	 *         at given offset
+	 */
+	public int getTokenIndexAt(int offset) {
+		List<ParseToken> tokens = getTokens();
+		int low = 0;
+		int high = tokens.size() - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (tokens.get(middle).getStart() <= offset) {
+				/* candidate - but there can be a later one */
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (found == -1) {
+			return -1;
+		}
+		ParseToken token = tokens.get(found);
+		String text = token.getText();
+		if (text == null || offset > token.getStart() + text.length()) {
+			return -1;
+		}
+		return found;
+	}
+
+	/**
+	 * Returns start offsets of all lines of the script. If the script is not
+	 * already parsed, this will be done now. The returned array may not be
+	 * changed.
+	 * 
+	 * @return line start offsets, never <code>null</code>, empty when model
+	 *         has no line information
+	 */
+	public int[] getLineOffsets() {
+		if (facets != null) {
+			return facets.getLineOffsets();
+		}
+		if (lineOffsets != null) {
+			return lineOffsets;
+		}
+		return new int[0];
+	}
+
+	/**
+	 * Resolves zero based line of given offset by binary search
+	 * 
+	 * @param offset
+	 * @return line index or -1 when model has no line information
+	 */
+	public int getLineIndexAt(int offset) {
+		int[] offsets = getLineOffsets();
+		int low = 0;
+		int high = offsets.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (offsets[middle] <= offset) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Returns index of all function and variable occurrences. If the index is
+	 * not already built, this will be done now.
+	 * 
+	 * @return symbol index, never <code>null</code>
+	 */
+	public BashSymbolIndex getSymbolIndex() {
+		if (facets != null) {
+			return facets.getSymbolIndex();
+		}
+		return new BashSymbolIndexBuilder().build(getTokens(), functions);
+	}
+
+	/**
+	 * @return timings recorded while building this model or <code>null</code>
+	 *         when timings were not enabled
+	 */
+	public BashScriptTimings getTimings() {
+		if (facets != null) {
+			return facets.getTimings();
+		}
+		return null;
+	}
+
 	/**
 	 * Returns a debug token list - if list is null, a new one will be created
 	 * @return debug token list, never <code>null</code>
 	 */
-	public List<ParseToken> getDebugTokens(){
+	public synchronized List<ParseToken> getDebugTokens(){
 		if (debugTokenList==null){
 			debugTokenList=new ArrayList<>();
+			if (facets != null && facets.isDebugMode()) {
+				debugTokenList.addAll(facets.getTokens());
+			}
 		}
 		return debugTokenList;
 	}
 	
-	public boolean hasDebugTokens() {
+	public synchronized boolean hasDebugTokens() {
+		if (facets != null && facets.isDebugMode()) {
+			return true;
+		}
 		return debugTokenList!=null;
 	}
-	
-	
 
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Constants and helper methods for the binary representation of a
+ * {@link BashScriptModel}. Layout of version 2:
+ * 
+ * <pre>
+ * header    : magic 'BSHM' (4 bytes), version (1 byte), flags (1 byte),
+ *             byte length of sections strings, functions, errors, tokens, lines (5 x int32)
+ * strings   : count, then for each string: length of UTF-8 bytes, UTF-8 bytes
+ * functions : count, then for each function: position delta, length to name end, 
+ *             end - position, name string index
+ * errors    : count, then for each error: start delta, end - start, message string index
+ * tokens    : count, then for each token: start delta, end - start, text string index
+ * lines     : count, then for each line: start offset delta
+ * </pre>
+ * 
+ * All numbers inside sections are var ints, deltas and differences are zig zag
+ * encoded, so negative values are possible. Token and line sections are empty
+ * when the related flag is not set.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashScriptModelBinaryFormat {
+
+	static final byte[] MAGIC = new byte[] { 'B', 'S', 'H', 'M' };
+	static final byte VERSION = 2;
+
+	static final int FLAG_HAS_TOKENS = 1;
+	static final int FLAG_HAS_LINES = 2;
+
+	static final int SECTION_STRINGS = 0;
+	static final int SECTION_FUNCTIONS = 1;
+	static final int SECTION_ERRORS = 2;
+	static final int SECTION_TOKENS = 3;
+	static final int SECTION_LINES = 4;
+	static final int AMOUNT_OF_SECTIONS = 5;
+
+	static final int HEADER_LENGTH = MAGIC.length + 2 + AMOUNT_OF_SECTIONS * 4;
+
+	static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private BashScriptModelBinaryFormat() {
+	}
+
+	static void writeVarInt(ByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	static void writeSignedVarInt(ByteArrayOutputStream out, int value) {
+		writeVarInt(out, (value << 1) ^ (value >> 31));
+	}
+
+	static int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		int shift = 0;
+		while (shift < 35) {
+			if (!buffer.hasRemaining()) {
+				throw new IllegalArgumentException("Corrupt bash script model - section truncated");
+			}
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+		throw new IllegalArgumentException("Malformed var int at position " + buffer.position());
+	}
+
+	static int readSignedVarInt(ByteBuffer buffer) {
+		int value = readVarInt(buffer);
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * Reads amount of following entries. Every entry needs at least one byte,
+	 * so an amount greater than remaining bytes is rejected before arrays are
+	 * allocated.
+	 * 
+	 * @param buffer
+	 * @return amount
+	 * @throws IllegalArgumentException
+	 *             when amount is not possible
+	 */
+	static int readCount(ByteBuffer buffer) {
+		int count = readVarInt(buffer);
+		if (count < 0 || count > buffer.remaining()) {
+			throw new IllegalArgumentException("Corrupt bash script model - invalid amount:" + count);
+		}
+		return count;
+	}
+
+	/**
+	 * Reads a length of following bytes
+	 * 
+	 * @param buffer
+	 * @return length
+	 * @throws IllegalArgumentException
+	 *             when there are not enough bytes
+	 */
+	static int readLength(ByteBuffer buffer) {
+		int length = readVarInt(buffer);
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Corrupt bash script model - invalid length:" + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Reads a string table index
+	 * 
+	 * @param buffer
+	 * @param amountOfStrings
+	 * @return index
+	 * @throws IllegalArgumentException
+	 *             when index is outside string table
+	 */
+	static int readStringIndex(ByteBuffer buffer, int amountOfStrings) {
+		int index = readVarInt(buffer);
+		if (index < 0 || index >= amountOfStrings) {
+			throw new IllegalArgumentException("Corrupt bash script model - invalid string index:" + index);
+		}
+		return index;
+	}
+
+	/**
+	 * Reads and checks header of given buffer. The position of the buffer is
+	 * not changed.
+	 * 
+	 * @param buffer
+	 * @return section lengths
+	 * @throws IllegalArgumentException
+	 *             when buffer does not contain a supported bash script model
+	 */
+	static int[] readSectionLengths(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER_LENGTH) {
+			throw new IllegalArgumentException("Not a bash script model - data too short");
+		}
+		int start = buffer.position();
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get(start + i) != MAGIC[i]) {
+				throw new IllegalArgumentException("Not a bash script model - magic bytes not found");
+			}
+		}
+		byte version = buffer.get(start + MAGIC.length);
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported bash script model version:" + version);
+		}
+		int[] lengths = new int[AMOUNT_OF_SECTIONS];
+		/* long - corrupt lengths may not overflow */
+		long total = HEADER_LENGTH;
+		for (int i = 0; i < AMOUNT_OF_SECTIONS; i++) {
+			lengths[i] = buffer.getInt(start + MAGIC.length + 2 + i * 4);
+			if (lengths[i] < 0) {
+				throw new IllegalArgumentException("Corrupt bash script model - negative section length");
+			}
+			total += lengths[i];
+		}
+		if (buffer.remaining() < total) {
+			throw new IllegalArgumentException("Corrupt bash script model - data truncated");
+		}
+		return lengths;
+	}
+
+	static int readFlags(ByteBuffer buffer) {
+		return buffer.get(buffer.position() + MAGIC.length + 1);
+	}
+
+	/**
+	 * Creates a view to given section. The returned buffer shares content with
+	 * given one, its position is at section start and limit at section end.
+	 * 
+	 * @param buffer
+	 * @param sectionLengths
+	 * @param section
+	 * @return section buffer
+	 */
+	static ByteBuffer slice(ByteBuffer buffer, int[] sectionLengths, int section) {
+		int offset = buffer.position() + HEADER_LENGTH;
+		for (int i = 0; i < section; i++) {
+			offset += sectionLengths[i];
+		}
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset);
+		slice.limit(offset + sectionLengths[section]);
+		return slice;
+	}
+}
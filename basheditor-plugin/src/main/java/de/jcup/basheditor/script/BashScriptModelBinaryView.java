@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static de.jcup.basheditor.script.BashScriptModelBinaryFormat.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read only view to a bash script model encoded by
+ * {@link BashScriptModelEncoder}. The view works directly on the given buffer
+ * and does not deserialize the complete model - e.g. a function lookup by name
+ * only decodes the function found.<br>
+ * <br>
+ * Corrupt data is detected when read, all methods throw an
+ * {@link IllegalArgumentException} in this case.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptModelBinaryView {
+
+	private ByteBuffer buffer;
+	private int[] sectionLengths;
+	private int flags;
+	private int[] stringOffsets;
+
+	/**
+	 * Creates a view for given buffer. The buffer content is shared, its
+	 * position is not changed.
+	 * 
+	 * @param buffer
+	 * @throws IllegalArgumentException
+	 *             when buffer does not contain a supported bash script model
+	 */
+	public BashScriptModelBinaryView(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("buffer may not be null");
+		}
+		this.buffer = buffer.duplicate();
+		this.sectionLengths = readSectionLengths(this.buffer);
+		this.flags = readFlags(this.buffer);
+	}
+
+	public int getFunctionCount() {
+		return readCount(section(SECTION_FUNCTIONS));
+	}
+
+	public int getErrorCount() {
+		return readCount(section(SECTION_ERRORS));
+	}
+
+	public boolean hasErrors() {
+		return getErrorCount() > 0;
+	}
+
+	public boolean hasDebugTokens() {
+		return (flags & FLAG_HAS_TOKENS) != 0;
+	}
+
+	public boolean hasLineIndex() {
+		return (flags & FLAG_HAS_LINES) != 0;
+	}
+
+	public int getLineCount() {
+		if (!hasLineIndex()) {
+			return 0;
+		}
+		return readCount(section(SECTION_LINES));
+	}
+
+	/**
+	 * Resolves zero based line of given offset
+	 * 
+	 * @param offset
+	 * @return line index or -1 when there is no line index
+	 */
+	public int getLineIndexAt(int offset) {
+		if (!hasLineIndex()) {
+			return -1;
+		}
+		ByteBuffer lines = section(SECTION_LINES);
+		int amount = readCount(lines);
+		int lineOffset = 0;
+		int found = -1;
+		for (int i = 0; i < amount; i++) {
+			lineOffset += readVarInt(lines);
+			if (lineOffset > offset) {
+				break;
+			}
+			found = i;
+		}
+		return found;
+	}
+
+	/**
+	 * Find function by name
+	 * 
+	 * @param functionName
+	 * @return function or <code>null</code>
+	 */
+	public BashFunction findFunction(String functionName) {
+		if (functionName == null) {
+			return null;
+		}
+		int nameIndex = findStringIndex(functionName);
+		if (nameIndex == -1) {
+			return null;
+		}
+		ByteBuffer functions = section(SECTION_FUNCTIONS);
+		int amount = readCount(functions);
+		int position = 0;
+		for (int i = 0; i < amount; i++) {
+			position += readSignedVarInt(functions);
+			int lengthToNameEnd = readVarInt(functions);
+			int endDelta = readSignedVarInt(functions);
+			if (readVarInt(functions) == nameIndex) {
+				return createFunction(functionName, position, lengthToNameEnd, endDelta);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find function containing given offset
+	 * 
+	 * @param offset
+	 * @return function or <code>null</code>
+	 */
+	public BashFunction findFunctionAt(int offset) {
+		ByteBuffer functions = section(SECTION_FUNCTIONS);
+		int amount = readCount(functions);
+		int position = 0;
+		for (int i = 0; i < amount; i++) {
+			position += readSignedVarInt(functions);
+			int lengthToNameEnd = readVarInt(functions);
+			int endDelta = readSignedVarInt(functions);
+			int nameIndex = readStringIndex(functions, getStringOffsets().length);
+			if (offset >= position && offset <= position + endDelta) {
+				return createFunction(readString(nameIndex), position, lengthToNameEnd, endDelta);
+			}
+		}
+		return null;
+	}
+
+	private BashFunction createFunction(String name, int position, int lengthToNameEnd, int endDelta) {
+		BashFunction function = new BashFunction();
+		function.name = name;
+		function.position = position;
+		function.lengthToNameEnd = lengthToNameEnd;
+		function.end = position + endDelta;
+		return function;
+	}
+
+	private ByteBuffer section(int section) {
+		return slice(buffer, sectionLengths, section);
+	}
+
+	private int findStringIndex(String string) {
+		byte[] expected = string.getBytes(UTF_8);
+		int[] offsets = getStringOffsets();
+		ByteBuffer strings = section(SECTION_STRINGS);
+		for (int i = 0; i < offsets.length; i++) {
+			strings.position(offsets[i]);
+			int length = readLength(strings);
+			if (length != expected.length) {
+				continue;
+			}
+			int pos = strings.position();
+			boolean same = true;
+			for (int b = 0; b < length && same; b++) {
+				same = strings.get(pos + b) == expected[b];
+			}
+			if (same) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private String readString(int index) {
+		ByteBuffer strings = section(SECTION_STRINGS);
+		strings.position(getStringOffsets()[index]);
+		byte[] bytes = new byte[readLength(strings)];
+		strings.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+	/**
+	 * @return absolute buffer positions of all string table entries
+	 */
+	private int[] getStringOffsets() {
+		if (stringOffsets != null) {
+			return stringOffsets;
+		}
+		ByteBuffer strings = section(SECTION_STRINGS);
+		int[] offsets = new int[readCount(strings)];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = strings.position();
+			int length = readLength(strings);
+			strings.position(strings.position() + length);
+		}
+		stringOffsets = offsets;
+		return offsets;
+	}
+}
@@ -16,10 +16,13 @@
 package de.jcup.basheditor.script;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import de.jcup.basheditor.script.parser.ParseToken;
-import de.jcup.basheditor.script.parser.TokenParser;
 import de.jcup.basheditor.script.parser.validator.ClosedBlocksValidator;
 import de.jcup.basheditor.script.parser.validator.DoEndsWithDoneValidator;
 import de.jcup.basheditor.script.parser.validator.IfEndsWithFiValidator;
@@ -31,47 +34,142 @@ import de.jcup.basheditor.script.parser.validator.IfEndsWithFiValidator;
  *
  */
 public class BashScriptModelBuilder {
+	/**
+	 * Default maximum of errors inside one model
+	 */
+	public static final int DEFAULT_MAX_ERRORS = 100;
+
 	private boolean ignoreDoValidation;
 	private boolean ignoreBlockValidation;
 	private boolean ignoreIfValidation;
 	private boolean ignoreFunctionValidation;
 	private boolean debugMode;
+	private int maxErrors = DEFAULT_MAX_ERRORS;
+	private boolean timingsEnabled;
+	private BashScriptTimings timings;
 
 	/**
-	 * Parses given script and creates a bash script model
+	 * Parses given script and creates a bash script model. The model parts are
+	 * computed lazy on first access - e.g. when only functions are fetched no
+	 * validation is done at all. The current builder setup is used for the
+	 * computation, later changes of this builder do not change the model.
 	 * 
 	 * @param bashScript
+	 *            script to parse. Characters are read directly (no copy), so
+	 *            the sequence may not change until first model part is
+	 *            accessed
 	 * @return a simple model with some information about bash script
 	 */
-	public BashScriptModel build(String bashScript) {
+	public BashScriptModel build(CharSequence bashScript) {
 		BashScriptModel model = new BashScriptModel();
+		model.facets = new BashScriptModelFacets(bashScript, copy());
+		return model;
+	}
 
-		TokenParser parser = new TokenParser();
-		List<ParseToken> tokens = parser.parse(bashScript);
-		
+	/**
+	 * @return a copy of this builder having same setup
+	 */
+	private BashScriptModelBuilder copy() {
+		BashScriptModelBuilder copy = new BashScriptModelBuilder();
+		copy.ignoreBlockValidation = ignoreBlockValidation;
+		copy.ignoreDoValidation = ignoreDoValidation;
+		copy.ignoreFunctionValidation = ignoreFunctionValidation;
+		copy.ignoreIfValidation = ignoreIfValidation;
+		copy.debugMode = debugMode;
+		copy.maxErrors = maxErrors;
+		if (timingsEnabled) {
+			/* every build records into its own timings */
+			copy.timings = new BashScriptTimings();
+		}
+		return copy;
+	}
 
-		buildFunctionsByTokens(model, tokens);
+	boolean isDebugMode() {
+		return debugMode;
+	}
 
+	/**
+	 * @return timings recorder of the model built with this builder copy or
+	 *         <code>null</code> when timings are not recorded
+	 */
+	BashScriptTimings getTimings() {
+		return timings;
+	}
+
+	public boolean isTimingsEnabled() {
+		return timingsEnabled;
+	}
+
+	/**
+	 * Enables or disables timings. When enabled, every model built afterwards
+	 * records its timings into an own recorder - see
+	 * {@link BashScriptModel#getTimings()}
+	 * 
+	 * @param timingsEnabled
+	 */
+	public void setTimingsEnabled(boolean timingsEnabled) {
+		this.timingsEnabled = timingsEnabled;
+	}
+
+	/**
+	 * Validates given tokens
+	 * 
+	 * @param tokens
+	 * @param functionErrors
+	 *            errors found while building functions
+	 * @return errors, never <code>null</code>
+	 */
+	Collection<BashError> validate(List<ParseToken> tokens, Collection<BashError> functionErrors) {
+		List<BashError> errors = new ArrayList<>();
+		if (!ignoreFunctionValidation) {
+			errors.addAll(functionErrors);
+		}
 		List<ValidationResult> results = new ArrayList<>();
 		for (BashScriptValidator<List<ParseToken>> validator : createParseTokenValidators()) {
+			if (timings == null) {
+				results.addAll(validator.validate(tokens));
+				continue;
+			}
+			long start = System.nanoTime();
 			results.addAll(validator.validate(tokens));
+			timings.recordValidator(validator.getClass().getSimpleName(), System.nanoTime() - start);
 		}
 
 		for (ValidationResult result : results) {
 			if (result instanceof BashError) {
-				model.errors.add((BashError) result);
+				errors.add((BashError) result);
 			}
 		}
-		
-		if (debugMode){
-			appendDebugTokens(model, tokens);
-		}
-		
-		return model;
+		return reduceErrors(errors);
 	}
 
-	private void appendDebugTokens(BashScriptModel model, List<ParseToken> tokens) {
-		model.getDebugTokens().addAll(tokens);
+	/**
+	 * Removes duplicated errors (same range and message) and limits the amount
+	 * of errors to {@link #maxErrors}. When errors are dropped, a summary error
+	 * is added instead, so marker creation for broken or non bash files stays
+	 * bounded.
+	 * 
+	 * @param errors
+	 * @return reduced errors
+	 */
+	private Collection<BashError> reduceErrors(Collection<BashError> errors) {
+		Set<BashError> unique = new LinkedHashSet<>(errors);
+		if (maxErrors <= 0 || unique.size() <= maxErrors) {
+			if (unique.size() != errors.size()) {
+				return new ArrayList<>(unique);
+			}
+			return errors;
+		}
+		List<BashError> reduced = new ArrayList<>(maxErrors + 1);
+		Iterator<BashError> it = unique.iterator();
+		while (reduced.size() < maxErrors) {
+			reduced.add(it.next());
+		}
+		BashError firstSuppressed = it.next();
+		int suppressed = unique.size() - maxErrors;
+		reduced.add(new BashError(firstSuppressed.getStart(), firstSuppressed.getEnd(),
+				suppressed + " further problems suppressed"));
+		return reduced;
 	}
 
 	public void setIgnoreBlockValidation(boolean ignoreBlockValidation) {
@@ -89,6 +187,17 @@ public class BashScriptModelBuilder {
 	public void setIgnoreFunctionValidation(boolean ignoreFunctionValidation) {
 		this.ignoreFunctionValidation = ignoreFunctionValidation;
 	}
+
+	/**
+	 * Set maximum amount of errors inside a created model
+	 * 
+	 * @param maxErrors
+	 *            maximum amount of errors. When lower or equal to zero there
+	 *            is no limit
+	 */
+	public void setMaxErrors(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
 	
 
 	private List<BashScriptValidator<List<ParseToken>>> createParseTokenValidators() {
@@ -105,7 +214,17 @@ public class BashScriptModelBuilder {
 		return validators;
 	}
 
-	private void buildFunctionsByTokens(BashScriptModel model, List<ParseToken> tokens) {
+	/**
+	 * Builds functions by given tokens
+	 * 
+	 * @param tokens
+	 * @param functions
+	 *            collection where found functions are added
+	 * @param functionErrors
+	 *            collection where function errors are added
+	 */
+	void buildFunctionsByTokens(List<ParseToken> tokens, Collection<BashFunction> functions,
+			Collection<BashError> functionErrors) {
 
 		for (int tokenNr = 0; tokenNr < tokens.size(); tokenNr++) {
 			int currentTokenNr = tokenNr;
@@ -142,16 +261,12 @@ public class BashScriptModelBuilder {
 				/* ++++++++++++++++++++++++++++++ */
 
 				if (!hasPos(currentTokenNr, tokens)) {
-					if (!ignoreFunctionValidation){
-						model.errors.add(createBashErrorFunctionMissingCurlyBrace(token, functionName));
-					}
+					functionErrors.add(createBashErrorFunctionMissingCurlyBrace(token, functionName));
 					break;
 				}
 				ParseToken openCurlyBraceToken = tokens.get(currentTokenNr++);
 				if (!openCurlyBraceToken.isOpenBlock()) {
-					if (!ignoreFunctionValidation){
-						model.errors.add(createBashErrorFunctionMissingCurlyBrace(token, functionName));
-					}
+					functionErrors.add(createBashErrorFunctionMissingCurlyBrace(token, functionName));
 					continue;
 				}
 				/* +++++++++++++++++++++++++++++++ */
@@ -173,13 +288,11 @@ public class BashScriptModelBuilder {
 				}
 				if (function.end == -1) {
 					/* no close block found - mark this as an error */
-					if (!ignoreFunctionValidation){
-						model.errors.add(createBashErrorCloseFunctionCurlyBraceMissing(functionName, openCurlyBraceToken));
-					}
+					functionErrors.add(createBashErrorCloseFunctionCurlyBraceMissing(functionName, openCurlyBraceToken));
 					break;
 				}
 
-				model.functions.add(function);
+				functions.add(function);
 				/*
 				 * function created - last currentTokenNr++ was too much because
 				 * it will be done by loop to- so reduce with 1
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static de.jcup.basheditor.script.BashScriptModelBinaryFormat.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import de.jcup.basheditor.script.parser.ParseToken;
+
+/**
+ * Decodes a bash script model from data created by
+ * {@link BashScriptModelEncoder}. When only some information is needed, the
+ * {@link BashScriptModelBinaryView} should be used instead, because it does not
+ * deserialize all data.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptModelDecoder {
+
+	/**
+	 * Decodes given data
+	 * 
+	 * @param data
+	 * @return model, never <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             when data is not a supported bash script model
+	 */
+	public BashScriptModel decode(byte[] data) {
+		if (data == null) {
+			throw new IllegalArgumentException("data may not be null");
+		}
+		return decode(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Decodes given buffer. Position of buffer is not changed
+	 * 
+	 * @param buffer
+	 * @return model, never <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             when data is not a supported bash script model or corrupt
+	 */
+	public BashScriptModel decode(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("buffer may not be null");
+		}
+		int[] sectionLengths = readSectionLengths(buffer);
+		int flags = readFlags(buffer);
+
+		ByteBuffer stringSection = slice(buffer, sectionLengths, SECTION_STRINGS);
+		String[] strings = new String[readCount(stringSection)];
+		for (int i = 0; i < strings.length; i++) {
+			int length = readLength(stringSection);
+			byte[] bytes = new byte[length];
+			stringSection.get(bytes);
+			strings[i] = new String(bytes, UTF_8);
+		}
+
+		BashScriptModel model = new BashScriptModel();
+
+		ByteBuffer functionSection = slice(buffer, sectionLengths, SECTION_FUNCTIONS);
+		int amount = readCount(functionSection);
+		int position = 0;
+		for (int i = 0; i < amount; i++) {
+			BashFunction function = new BashFunction();
+			position += readSignedVarInt(functionSection);
+			function.position = position;
+			function.lengthToNameEnd = readVarInt(functionSection);
+			function.end = position + readSignedVarInt(functionSection);
+			function.name = strings[readStringIndex(functionSection, strings.length)];
+			model.functions.add(function);
+		}
+
+		ByteBuffer errorSection = slice(buffer, sectionLengths, SECTION_ERRORS);
+		amount = readCount(errorSection);
+		int start = 0;
+		for (int i = 0; i < amount; i++) {
+			start += readSignedVarInt(errorSection);
+			int end = start + readSignedVarInt(errorSection);
+			String message = strings[readStringIndex(errorSection, strings.length)];
+			model.errors.add(new BashError(start, end, message));
+		}
+
+		if ((flags & FLAG_HAS_TOKENS) != 0) {
+			ByteBuffer tokenSection = slice(buffer, sectionLengths, SECTION_TOKENS);
+			amount = readCount(tokenSection);
+			List<ParseToken> tokens = model.getDebugTokens();
+			start = 0;
+			for (int i = 0; i < amount; i++) {
+				start += readSignedVarInt(tokenSection);
+				int end = start + readSignedVarInt(tokenSection);
+				String text = strings[readStringIndex(tokenSection, strings.length)];
+				tokens.add(new ParseToken(text, start, end));
+			}
+		}
+
+		if ((flags & FLAG_HAS_LINES) != 0) {
+			ByteBuffer lineSection = slice(buffer, sectionLengths, SECTION_LINES);
+			int[] lineOffsets = new int[readCount(lineSection)];
+			int lineOffset = 0;
+			for (int i = 0; i < lineOffsets.length; i++) {
+				lineOffset += readVarInt(lineSection);
+				lineOffsets[i] = lineOffset;
+			}
+			model.lineOffsets = lineOffsets;
+		}
+		return model;
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static de.jcup.basheditor.script.BashScriptModelBinaryFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.jcup.basheditor.script.parser.ParseToken;
+
+/**
+ * Encodes a bash script model into a compact binary format. Offsets are delta
+ * encoded var ints and all texts are stored only once inside a string table.
+ * Functions, errors and line offsets are always encoded, tokens optionally.
+ * Use {@link BashScriptModelDecoder} or {@link BashScriptModelBinaryView} to
+ * read the data.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptModelEncoder {
+
+	private boolean tokensIncluded;
+
+	/**
+	 * When set, all tokens of the model are encoded - if necessary the script
+	 * is parsed for this. Otherwise tokens are only encoded when model has
+	 * debug tokens. Default is <code>false</code>.
+	 * 
+	 * @param tokensIncluded
+	 */
+	public void setTokensIncluded(boolean tokensIncluded) {
+		this.tokensIncluded = tokensIncluded;
+	}
+
+	/**
+	 * Encodes given model
+	 * 
+	 * @param model
+	 *            model to encode, may not be <code>null</code>
+	 * @return encoded data, never <code>null</code>
+	 */
+	public byte[] encode(BashScriptModel model) {
+		if (model == null) {
+			throw new IllegalArgumentException("model may not be null");
+		}
+		StringTable strings = new StringTable();
+
+		ByteArrayOutputStream functions = new ByteArrayOutputStream();
+		writeVarInt(functions, model.getFunctions().size());
+		int lastPosition = 0;
+		for (BashFunction function : model.getFunctions()) {
+			writeSignedVarInt(functions, function.getPosition() - lastPosition);
+			writeVarInt(functions, function.getLengthToNameEnd());
+			writeSignedVarInt(functions, function.getEnd() - function.getPosition());
+			writeVarInt(functions, strings.indexOf(function.getName()));
+			lastPosition = function.getPosition();
+		}
+
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		writeVarInt(errors, model.getErrors().size());
+		int lastStart = 0;
+		for (BashError error : model.getErrors()) {
+			writeSignedVarInt(errors, error.getStart() - lastStart);
+			writeSignedVarInt(errors, error.getEnd() - error.getStart());
+			writeVarInt(errors, strings.indexOf(error.getMessage()));
+			lastStart = error.getStart();
+		}
+
+		int flags = 0;
+		ByteArrayOutputStream tokens = new ByteArrayOutputStream();
+		if (tokensIncluded || model.hasDebugTokens()) {
+			flags |= FLAG_HAS_TOKENS;
+			List<ParseToken> tokenList = tokensIncluded ? model.getTokens() : model.getDebugTokens();
+			writeVarInt(tokens, tokenList.size());
+			lastStart = 0;
+			for (ParseToken token : tokenList) {
+				writeSignedVarInt(tokens, token.getStart() - lastStart);
+				writeSignedVarInt(tokens, token.getEnd() - token.getStart());
+				writeVarInt(tokens, strings.indexOf(token.getText()));
+				lastStart = token.getStart();
+			}
+		}
+
+		ByteArrayOutputStream lines = new ByteArrayOutputStream();
+		int[] lineOffsets = model.getLineOffsets();
+		if (lineOffsets.length > 0) {
+			flags |= FLAG_HAS_LINES;
+			writeVarInt(lines, lineOffsets.length);
+			int lastOffset = 0;
+			for (int lineOffset : lineOffsets) {
+				writeVarInt(lines, lineOffset - lastOffset);
+				lastOffset = lineOffset;
+			}
+		}
+
+		byte[][] sections = new byte[AMOUNT_OF_SECTIONS][];
+		sections[SECTION_STRINGS] = strings.toByteArray();
+		sections[SECTION_FUNCTIONS] = functions.toByteArray();
+		sections[SECTION_ERRORS] = errors.toByteArray();
+		sections[SECTION_TOKENS] = tokens.toByteArray();
+		sections[SECTION_LINES] = lines.toByteArray();
+
+		int length = HEADER_LENGTH;
+		for (byte[] section : sections) {
+			length += section.length;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.put(MAGIC);
+		buffer.put(VERSION);
+		buffer.put((byte) flags);
+		for (byte[] section : sections) {
+			buffer.putInt(section.length);
+		}
+		for (byte[] section : sections) {
+			buffer.put(section);
+		}
+		return buffer.array();
+	}
+
+	private static class StringTable {
+		private Map<String, Integer> indexes = new HashMap<>();
+		private List<String> strings = new ArrayList<>();
+
+		private int indexOf(String string) {
+			if (string == null) {
+				string = "";
+			}
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = Integer.valueOf(strings.size());
+				strings.add(string);
+				indexes.put(string, index);
+			}
+			return index.intValue();
+		}
+
+		private byte[] toByteArray() {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			writeVarInt(out, strings.size());
+			for (String string : strings) {
+				byte[] bytes = string.getBytes(UTF_8);
+				writeVarInt(out, bytes.length);
+				out.write(bytes, 0, bytes.length);
+			}
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import de.jcup.basheditor.script.parser.ParseToken;
+import de.jcup.basheditor.script.parser.TokenParser;
+
+/**
+ * Lazy computed parts of a bash script model. Every facet is computed on first
+ * access and then reused:
+ * <ul>
+ * <li>tokens</li>
+ * <li>functions (needs tokens)</li>
+ * <li>validation results (needs tokens and functions)</li>
+ * <li>symbol index (needs tokens and functions)</li>
+ * <li>debug tokens (needs tokens, only in debug mode)</li>
+ * </ul>
+ * So an outline or a hyperlink does only pay for tokens and functions, and
+ * functions can be shown before validation is done.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashScriptModelFacets {
+
+	private CharSequence script;
+	private BashScriptModelBuilder builder;
+
+	private List<ParseToken> tokens;
+	private int[] lineOffsets;
+	private Collection<BashFunction> functions;
+	private Collection<BashError> functionErrors;
+	private Collection<BashError> errors;
+	private BashSymbolIndex symbolIndex;
+
+	/**
+	 * @param script
+	 *            script to parse - may not change until tokens are computed
+	 * @param builder
+	 *            builder setup to use - may not be changed afterwards
+	 */
+	BashScriptModelFacets(CharSequence script, BashScriptModelBuilder builder) {
+		this.script = script;
+		this.builder = builder;
+	}
+
+	synchronized List<ParseToken> getTokens() {
+		if (tokens == null) {
+			BashScriptTimings timings = builder.getTimings();
+			long start = timings == null ? 0 : System.nanoTime();
+			TokenParser parser = new TokenParser();
+			tokens = parser.parse(script);
+			if (timings != null) {
+				timings.recordLex(System.nanoTime() - start, tokens.size());
+			}
+			lineOffsets = createLineOffsets(script);
+			/* script is no longer necessary */
+			script = null;
+		}
+		return tokens;
+	}
+
+	synchronized int[] getLineOffsets() {
+		getTokens();
+		return lineOffsets;
+	}
+
+	synchronized Collection<BashFunction> getFunctions() {
+		if (functions == null) {
+			List<ParseToken> tokenList = getTokens();
+			BashScriptTimings timings = builder.getTimings();
+			long start = timings == null ? 0 : System.nanoTime();
+			List<BashFunction> list = new ArrayList<>();
+			List<BashError> errorList = new ArrayList<>();
+			builder.buildFunctionsByTokens(tokenList, list, errorList);
+			if (timings != null) {
+				timings.recordModelBuild(System.nanoTime() - start, list.size());
+			}
+			functionErrors = errorList;
+			functions = list;
+		}
+		return functions;
+	}
+
+	synchronized Collection<BashError> getErrors() {
+		if (errors == null) {
+			getFunctions();
+			errors = builder.validate(getTokens(), functionErrors);
+			functionErrors = null;
+		}
+		return errors;
+	}
+
+	synchronized BashSymbolIndex getSymbolIndex() {
+		if (symbolIndex == null) {
+			symbolIndex = new BashSymbolIndexBuilder().build(getTokens(), getFunctions());
+		}
+		return symbolIndex;
+	}
+
+	synchronized boolean isValidated() {
+		return errors != null;
+	}
+
+	boolean isDebugMode() {
+		return builder.isDebugMode();
+	}
+
+	BashScriptTimings getTimings() {
+		return builder.getTimings();
+	}
+
+	private static int[] createLineOffsets(CharSequence script) {
+		int length = script.length();
+		int[] offsets = new int[16];
+		int count = 1;
+		for (int i = 0; i < length; i++) {
+			if (script.charAt(i) != '\n') {
+				continue;
+			}
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = i + 1;
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+}
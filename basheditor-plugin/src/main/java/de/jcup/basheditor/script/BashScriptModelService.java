@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Owns the current bash script model of one document. Models are versioned by
+ * a document version (e.g. a modification stamp). Requests for a version
+ * already built return the existing model, concurrent requests for the same
+ * version share one build. Callers which cannot wait can use
+ * {@link #getLatestModel()} which returns the last built - maybe stale -
+ * model immediately.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptModelService {
+
+	/**
+	 * Version marker for documents not providing a version. Models for this
+	 * version are never reused.
+	 */
+	public static final long UNKNOWN_VERSION = -1;
+
+	private static final Executor DIRECT = new Executor() {
+
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	private BashScriptModelBuilder builder;
+	private Executor executor;
+	private Object monitor = new Object();
+
+	private int generation;
+	private long sequence;
+
+	private BashScriptModel latestModel;
+	private long latestVersion = UNKNOWN_VERSION;
+	private int latestGeneration;
+	private long latestSequence;
+
+	private CompletableFuture<BashScriptModel> pending;
+	private long pendingVersion = UNKNOWN_VERSION;
+	private int pendingGeneration;
+
+	/**
+	 * Creates a model service
+	 * 
+	 * @param builder
+	 *            builder used to create models. Setup changes of the builder
+	 *            must be followed by {@link #invalidate()}
+	 * @param executor
+	 *            executor used for asynchronous builds
+	 */
+	public BashScriptModelService(BashScriptModelBuilder builder, Executor executor) {
+		if (builder == null) {
+			throw new IllegalArgumentException("builder may not be null");
+		}
+		if (executor == null) {
+			throw new IllegalArgumentException("executor may not be null");
+		}
+		this.builder = builder;
+		this.executor = executor;
+	}
+
+	public BashScriptModelBuilder getBuilder() {
+		return builder;
+	}
+
+	/**
+	 * Requests model for given version. When model is not already built or
+	 * building, a new build is started by executor
+	 * 
+	 * @param version
+	 * @param textSupplier
+	 *            supplies text of given version, only called when a new build
+	 *            is necessary
+	 * @return future for model, never <code>null</code>
+	 */
+	public CompletableFuture<BashScriptModel> requestModel(long version, Supplier<? extends CharSequence> textSupplier) {
+		return request(version, createTextSource(textSupplier), executor);
+	}
+
+	/**
+	 * Requests model for given version. When model is not already built or
+	 * building, a new build is started by executor
+	 * 
+	 * @param version
+	 * @param textSource
+	 *            source for text of given version, only read when a new build
+	 *            is necessary. The text is tokenized inside
+	 *            {@link BashScriptTextSource#read(Function)}
+	 * @return future for model, never <code>null</code>
+	 */
+	public CompletableFuture<BashScriptModel> requestModel(long version, BashScriptTextSource textSource) {
+		return request(version, textSource, executor);
+	}
+
+	/**
+	 * Get model for given version. When model is not already built or
+	 * building, it is built inside caller thread. When another thread builds
+	 * the same version, this call waits for that build.
+	 * 
+	 * @param version
+	 * @param textSupplier
+	 *            supplies text of given version, only called when a new build
+	 *            is necessary
+	 * @return model, never <code>null</code>
+	 */
+	public BashScriptModel getModel(long version, Supplier<? extends CharSequence> textSupplier) {
+		return request(version, createTextSource(textSupplier), DIRECT).join();
+	}
+
+	/**
+	 * Get model for given version. When model is not already built or
+	 * building, it is built inside caller thread. When another thread builds
+	 * the same version, this call waits for that build.
+	 * 
+	 * @param version
+	 * @param textSource
+	 *            source for text of given version, only read when a new build
+	 *            is necessary. The text is tokenized inside
+	 *            {@link BashScriptTextSource#read(Function)}
+	 * @return model, never <code>null</code>
+	 */
+	public BashScriptModel getModel(long version, BashScriptTextSource textSource) {
+		return request(version, textSource, DIRECT).join();
+	}
+
+	/**
+	 * @return last built model - may be outdated or <code>null</code> when no
+	 *         model was built
+	 */
+	public BashScriptModel getLatestModel() {
+		synchronized (monitor) {
+			return latestModel;
+		}
+	}
+
+	/**
+	 * Get model for given version only when already built - never builds and
+	 * never waits. Models of an older builder setup are accepted, because
+	 * setup changes only affect validation.
+	 * 
+	 * @param version
+	 * @return model or <code>null</code> when model for version is not built
+	 */
+	public BashScriptModel getModelIfAvailable(long version) {
+		synchronized (monitor) {
+			if (version == UNKNOWN_VERSION || latestVersion != version) {
+				return null;
+			}
+			return latestModel;
+		}
+	}
+
+	/**
+	 * Marks all existing models as outdated - e.g. after builder setup has
+	 * changed. The latest model is still available by
+	 * {@link #getLatestModel()} until a new one is built.
+	 */
+	public void invalidate() {
+		synchronized (monitor) {
+			generation++;
+			pending = null;
+		}
+	}
+
+	private CompletableFuture<BashScriptModel> request(long version, BashScriptTextSource textSource,
+			Executor executorToUse) {
+		CompletableFuture<BashScriptModel> future;
+		int buildGeneration;
+		long buildSequence;
+		synchronized (monitor) {
+			if (version != UNKNOWN_VERSION) {
+				if (latestModel != null && latestVersion == version && latestGeneration == generation) {
+					return CompletableFuture.completedFuture(latestModel);
+				}
+				if (pending != null && pendingVersion == version && pendingGeneration == generation) {
+					return pending;
+				}
+			}
+			future = new CompletableFuture<>();
+			buildGeneration = generation;
+			buildSequence = ++sequence;
+
+			pending = future;
+			pendingVersion = version;
+			pendingGeneration = buildGeneration;
+		}
+		executorToUse.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				build(version, textSource, future, buildGeneration, buildSequence);
+			}
+		});
+		return future;
+	}
+
+	private void build(long version, BashScriptTextSource textSource, CompletableFuture<BashScriptModel> future,
+			int buildGeneration, long buildSequence) {
+		BashScriptModel model;
+		try {
+			model = textSource.read(new Function<CharSequence, BashScriptModel>() {
+
+				@Override
+				public BashScriptModel apply(CharSequence text) {
+					BashScriptModel built = builder.build(text);
+					/* tokens keep no reference to text, so parse while text is readable */
+					built.getTokens();
+					return built;
+				}
+			});
+			/* functions are needed by nearly all features, so compute them here */
+			model.getFunctions();
+		} catch (RuntimeException e) {
+			synchronized (monitor) {
+				if (pending == future) {
+					pending = null;
+				}
+			}
+			future.completeExceptionally(e);
+			return;
+		}
+		synchronized (monitor) {
+			if (pending == future) {
+				pending = null;
+			}
+			/* an older build finishing after a newer one may not replace it */
+			if (buildSequence > latestSequence) {
+				latestModel = model;
+				latestVersion = version;
+				latestGeneration = buildGeneration;
+				latestSequence = buildSequence;
+			}
+		}
+		future.complete(model);
+	}
+
+	private static BashScriptTextSource createTextSource(Supplier<? extends CharSequence> textSupplier) {
+		return new BashScriptTextSource() {
+
+			@Override
+			public <T> T read(Function<CharSequence, T> reader) {
+				return reader.apply(textSupplier.get());
+			}
+		};
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.function.Function;
+
+/**
+ * Source of the script text for one model build. The text is only used while
+ * {@link #read(Function)} runs, so implementations can provide a view of their
+ * origin - e.g. a document read under its lock - instead of a copy.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public interface BashScriptTextSource {
+
+	/**
+	 * Calls given reader with the script text
+	 * 
+	 * @param reader
+	 *            reader, may not use the text after returning
+	 * @return result of reader
+	 */
+	<T> T read(Function<CharSequence, T> reader);
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records timings and counts of one model update. Every model built with
+ * timings enabled has its own recorder, otherwise there is none - all callers
+ * check for <code>null</code>, so there is no overhead. Times are recorded in
+ * nanoseconds by the build job and the UI thread, so all methods are
+ * synchronized.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashScriptTimings {
+
+	private long lexNanos;
+	private long modelNanos;
+	private Map<String, Long> validatorNanos = new LinkedHashMap<>();
+	private long markerUpdateNanos;
+	private long outlineRefreshNanos;
+	private int tokenCount;
+	private int functionCount;
+
+	public synchronized void recordLex(long nanos, int tokenCount) {
+		this.lexNanos = nanos;
+		this.tokenCount = tokenCount;
+	}
+
+	public synchronized void recordModelBuild(long nanos, int functionCount) {
+		this.modelNanos = nanos;
+		this.functionCount = functionCount;
+	}
+
+	public synchronized void recordValidator(String validatorName, long nanos) {
+		validatorNanos.put(validatorName, nanos);
+	}
+
+	public synchronized void recordMarkerUpdate(long nanos) {
+		this.markerUpdateNanos = nanos;
+	}
+
+	public synchronized void recordOutlineRefresh(long nanos) {
+		this.outlineRefreshNanos = nanos;
+	}
+
+	public synchronized int getTokenCount() {
+		return tokenCount;
+	}
+
+	public synchronized int getFunctionCount() {
+		return functionCount;
+	}
+
+	public synchronized long getValidatorNanos(String validatorName) {
+		Long nanos = validatorNanos.get(validatorName);
+		return nanos == null ? -1 : nanos.longValue();
+	}
+
+	/**
+	 * Creates a one line summary
+	 * 
+	 * @param mode
+	 *            editor mode to show - e.g. "normal" or "large file"
+	 * @return summary
+	 */
+	public synchronized String createSummary(String mode) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("lex ").append(toMillis(lexNanos));
+		sb.append(", model ").append(toMillis(modelNanos));
+		for (Map.Entry<String, Long> entry : validatorNanos.entrySet()) {
+			sb.append(", ").append(entry.getKey()).append(' ').append(toMillis(entry.getValue()));
+		}
+		sb.append(", markers ").append(toMillis(markerUpdateNanos));
+		sb.append(", outline ").append(toMillis(outlineRefreshNanos));
+		sb.append(", ").append(tokenCount).append(" tokens");
+		sb.append(", ").append(functionCount).append(" functions");
+		sb.append(", ").append(mode).append(" mode");
+		return sb.toString();
+	}
+
+	private String toMillis(long nanos) {
+		/* one decimal place is enough */
+		long tenthMillis = nanos / 100000;
+		return (tenthMillis / 10) + "." + (tenthMillis % 10) + " ms";
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+
+/**
+ * Semantic highlighting ranges of a script, sorted by offset. Created from
+ * the symbol index of a model:
+ * <ul>
+ * <li>function declarations</li>
+ * <li>calls of functions defined inside the script</li>
+ * <li>variables defined inside the script</li>
+ * <li>variables not defined inside the script</li>
+ * </ul>
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashSemanticHighlighting {
+
+	public enum SemanticType {
+		FUNCTION_DECLARATION,
+
+		FUNCTION_CALL,
+
+		DEFINED_VARIABLE,
+
+		UNDEFINED_VARIABLE,
+	}
+
+	public static final BashSemanticHighlighting EMPTY = new BashSemanticHighlighting(new int[0], new int[0],
+			new SemanticType[0]);
+
+	private int[] offsets;
+	private int[] lengths;
+	private SemanticType[] types;
+
+	BashSemanticHighlighting(int[] offsets, int[] lengths, SemanticType[] types) {
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.types = types;
+	}
+
+	/**
+	 * Creates semantic highlighting for given symbol index
+	 * 
+	 * @param index
+	 * @return highlighting, never <code>null</code>
+	 */
+	public static BashSemanticHighlighting create(BashSymbolIndex index) {
+		int size = index.getOccurrenceCount();
+		if (size == 0) {
+			return EMPTY;
+		}
+		int[] offsets = new int[size];
+		int[] lengths = new int[size];
+		SemanticType[] types = new SemanticType[size];
+		for (int i = 0; i < size; i++) {
+			int offset = index.getSortedOccurrenceOffset(i);
+			BashSymbol symbol = index.getSortedOccurrenceSymbol(i);
+			int declarationOffset = index.getDeclarationOffset(symbol);
+			offsets[i] = offset;
+			lengths[i] = symbol.getName().length();
+			if (symbol.getType() == SymbolType.FUNCTION) {
+				types[i] = declarationOffset == offset ? SemanticType.FUNCTION_DECLARATION : SemanticType.FUNCTION_CALL;
+			} else {
+				types[i] = declarationOffset == -1 ? SemanticType.UNDEFINED_VARIABLE : SemanticType.DEFINED_VARIABLE;
+			}
+		}
+		return new BashSemanticHighlighting(offsets, lengths, types);
+	}
+
+	public int size() {
+		return offsets.length;
+	}
+
+	public int getOffset(int index) {
+		return offsets[index];
+	}
+
+	public int getLength(int index) {
+		return lengths[index];
+	}
+
+	public SemanticType getType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * Binary search for first range ending after given offset
+	 * 
+	 * @param offset
+	 * @return index of first range ending after offset or {@link #size()} when
+	 *         there is none
+	 */
+	public int indexOfFirstEndingAfter(int offset) {
+		int low = 0;
+		int high = offsets.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (offsets[middle] + lengths[middle] <= offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Computes the region where this highlighting differs from an older one.
+	 * Ranges behind an edit are compared with given length difference, so
+	 * ranges only moved by an edit are not reported.
+	 * 
+	 * @param old
+	 *            older highlighting
+	 * @param lengthDelta
+	 *            new document length minus old document length
+	 * @return array with start (inclusive) and end (exclusive) offset inside
+	 *         new document or <code>null</code> when nothing has changed
+	 */
+	public int[] computeChangedRange(BashSemanticHighlighting old, int lengthDelta) {
+		int newSize = size();
+		int oldSize = old.size();
+		int prefix = 0;
+		while (prefix < newSize && prefix < oldSize && isSame(prefix, old, prefix, 0)) {
+			prefix++;
+		}
+		if (prefix == newSize && prefix == oldSize) {
+			return null;
+		}
+		int newLast = newSize - 1;
+		int oldLast = oldSize - 1;
+		while (newLast >= prefix && oldLast >= prefix && isSame(newLast, old, oldLast, lengthDelta)) {
+			newLast--;
+			oldLast--;
+		}
+		if (prefix > newLast && prefix > oldLast) {
+			/* only moved by edit */
+			return null;
+		}
+		int start = Integer.MAX_VALUE;
+		int end = Integer.MIN_VALUE;
+		if (prefix <= newLast) {
+			start = offsets[prefix];
+			end = offsets[newLast] + lengths[newLast];
+		}
+		if (prefix <= oldLast) {
+			start = Math.min(start, old.offsets[prefix]);
+			end = Math.max(end, old.offsets[oldLast] + old.lengths[oldLast] + lengthDelta);
+		}
+		start = Math.max(0, start);
+		if (end <= start) {
+			end = start;
+		}
+		return new int[] { start, end };
+	}
+
+	private boolean isSame(int index, BashSemanticHighlighting old, int oldIndex, int delta) {
+		return offsets[index] == old.offsets[oldIndex] + delta && lengths[index] == old.lengths[oldIndex]
+				&& types[index] == old.types[oldIndex];
+	}
+}
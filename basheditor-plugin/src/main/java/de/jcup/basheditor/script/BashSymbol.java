@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+/**
+ * A named symbol inside a bash script - a function or a variable
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashSymbol {
+
+	public enum SymbolType {
+		FUNCTION,
+
+		VARIABLE,
+	}
+
+	private SymbolType type;
+	private String name;
+
+	public BashSymbol(SymbolType type, String name) {
+		if (type == null) {
+			throw new IllegalArgumentException("type may not be null");
+		}
+		if (name == null) {
+			throw new IllegalArgumentException("name may not be null");
+		}
+		this.type = type;
+		this.name = name;
+	}
+
+	public SymbolType getType() {
+		return type;
+	}
+
+	/**
+	 * @return name of symbol - for variables without "$"
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * type.hashCode() + name.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BashSymbol)) {
+			return false;
+		}
+		BashSymbol other = (BashSymbol) obj;
+		return type == other.type && name.equals(other.name);
+	}
+
+	@Override
+	public String toString() {
+		return type + ":" + name;
+	}
+}
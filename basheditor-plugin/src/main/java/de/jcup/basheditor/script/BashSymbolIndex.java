@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.jcup.basheditor.SortedWordIndex;
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+
+/**
+ * Index of all symbol occurrences inside a bash script. Occurrences of a
+ * symbol are available by one map lookup and the symbol at an offset is
+ * found by binary search, so no text scan is necessary.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class BashSymbolIndex {
+
+	private static final int[] NO_OFFSETS = new int[0];
+
+	static final BashSymbolIndex EMPTY = new BashSymbolIndex(Collections.<BashSymbol, int[]>emptyMap(), NO_OFFSETS,
+			new BashSymbol[0], Collections.<BashSymbol, Integer>emptyMap());
+
+	private Map<BashSymbol, int[]> offsetsBySymbol;
+	private int[] sortedOffsets;
+	private BashSymbol[] symbolsBySortedOffset;
+	private Map<BashSymbol, Integer> declarationOffsets;
+	private Map<SymbolType, SortedWordIndex> namesByType = new EnumMap<>(SymbolType.class);
+
+	/**
+	 * @param offsetsBySymbol
+	 *            sorted offsets for every symbol
+	 * @param sortedOffsets
+	 *            all offsets, sorted
+	 * @param symbolsBySortedOffset
+	 *            symbols at same index as offset inside sorted offsets
+	 * @param declarationOffsets
+	 *            offset of first declaration for every declared symbol
+	 */
+	BashSymbolIndex(Map<BashSymbol, int[]> offsetsBySymbol, int[] sortedOffsets, BashSymbol[] symbolsBySortedOffset,
+			Map<BashSymbol, Integer> declarationOffsets) {
+		this.offsetsBySymbol = offsetsBySymbol;
+		this.sortedOffsets = sortedOffsets;
+		this.symbolsBySortedOffset = symbolsBySortedOffset;
+		this.declarationOffsets = declarationOffsets;
+	}
+
+	/**
+	 * Resolves symbol at given offset. An offset directly after the name is
+	 * accepted as well, so a caret at the end of a name does resolve it.
+	 * 
+	 * @param offset
+	 * @return symbol or <code>null</code>
+	 */
+	public BashSymbol getSymbolAt(int offset) {
+		int index = getOccurrenceIndex(offset);
+		if (index < 0) {
+			return null;
+		}
+		return symbolsBySortedOffset[index];
+	}
+
+	/**
+	 * Resolves start offset of symbol occurrence at given offset
+	 * 
+	 * @param offset
+	 * @return start offset of occurrence or -1 when there is no symbol at
+	 *         given offset
+	 */
+	public int getOccurrenceOffset(int offset) {
+		int index = getOccurrenceIndex(offset);
+		if (index < 0) {
+			return -1;
+		}
+		return sortedOffsets[index];
+	}
+
+	/**
+	 * @param symbol
+	 * @return offset of first declaration of given symbol (e.g. "a=1" or
+	 *         "local a") or -1 when symbol is not declared inside script
+	 */
+	public int getDeclarationOffset(BashSymbol symbol) {
+		Integer offset = declarationOffsets.get(symbol);
+		if (offset == null) {
+			return -1;
+		}
+		return offset.intValue();
+	}
+
+	/**
+	 * @param symbol
+	 * @return sorted start offsets of all occurrences of given symbol, never
+	 *         <code>null</code>. Callers may not change the array.
+	 */
+	public int[] getOffsets(BashSymbol symbol) {
+		int[] offsets = offsetsBySymbol.get(symbol);
+		if (offsets == null) {
+			return NO_OFFSETS;
+		}
+		return offsets;
+	}
+
+	/**
+	 * @return all indexed symbols
+	 */
+	public Set<BashSymbol> getSymbols() {
+		return Collections.unmodifiableSet(offsetsBySymbol.keySet());
+	}
+
+	/**
+	 * Returns names of all symbols of given type for prefix lookup. Is
+	 * created on first call and then reused.
+	 * 
+	 * @param type
+	 * @return names, never <code>null</code>
+	 */
+	public synchronized SortedWordIndex getNames(SymbolType type) {
+		SortedWordIndex names = namesByType.get(type);
+		if (names == null) {
+			List<String> list = new ArrayList<>();
+			for (BashSymbol symbol : offsetsBySymbol.keySet()) {
+				if (symbol.getType() == type) {
+					list.add(symbol.getName());
+				}
+			}
+			names = new SortedWordIndex(list);
+			namesByType.put(type, names);
+		}
+		return names;
+	}
+
+	int getOccurrenceCount() {
+		return sortedOffsets.length;
+	}
+
+	int getSortedOccurrenceOffset(int index) {
+		return sortedOffsets[index];
+	}
+
+	BashSymbol getSortedOccurrenceSymbol(int index) {
+		return symbolsBySortedOffset[index];
+	}
+
+	private int getOccurrenceIndex(int offset) {
+		int index = Arrays.binarySearch(sortedOffsets, offset);
+		if (index < 0) {
+			/* use occurrence starting before offset */
+			index = -index - 2;
+		}
+		if (index < 0) {
+			return -1;
+		}
+		if (offset > sortedOffsets[index] + symbolsBySortedOffset[index].getName().length()) {
+			return -1;
+		}
+		return index;
+	}
+}
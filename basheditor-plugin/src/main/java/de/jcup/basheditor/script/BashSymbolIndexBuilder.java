@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+import de.jcup.basheditor.script.parser.ParseToken;
+
+/**
+ * Builds a {@link BashSymbolIndex} from already parsed tokens. Indexed are
+ * <ul>
+ * <li>function definitions and calls of known functions</li>
+ * <li>variable assignments ("a=1"), declarations ("local a", "for a in")
+ * and usages ("$a", "${a}", "${#a[@]}", also inside double and back ticked
+ * strings)</li>
+ * </ul>
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+class BashSymbolIndexBuilder {
+
+	private static final Set<String> DECLARATION_KEYWORDS = new HashSet<>(
+			Arrays.asList("local", "declare", "typeset", "export", "readonly", "for"));
+
+	BashSymbolIndex build(List<ParseToken> tokens, Collection<BashFunction> functions) {
+		Set<String> functionNames = new HashSet<>();
+		for (BashFunction function : functions) {
+			functionNames.add(function.getName());
+		}
+		Map<BashSymbol, IntList> offsetsBySymbol = new LinkedHashMap<>();
+		Map<BashSymbol, Integer> declarationOffsets = new HashMap<>();
+		List<Occurrence> occurrences = new ArrayList<>();
+
+		ParseToken tokenBefore = null;
+		for (ParseToken token : tokens) {
+			String text = token.getText();
+			if (text == null || text.isEmpty() || token.isComment() || token.isSingleString()) {
+				tokenBefore = token;
+				continue;
+			}
+			int start = token.getStart();
+			if (token.isDoubleString() || token.isDoubleTickedString()) {
+				addVariableUsages(text, start, offsetsBySymbol, occurrences);
+			} else if (functionNames.contains(token.getTextAsFunctionName())) {
+				BashSymbol symbol = new BashSymbol(SymbolType.FUNCTION, token.getTextAsFunctionName());
+				add(symbol, start, offsetsBySymbol, occurrences);
+				if (token.isFunction() || (tokenBefore != null && tokenBefore.isFunctionKeyword())) {
+					addDeclaration(symbol, start, declarationOffsets);
+				}
+			} else if (tokenBefore != null && DECLARATION_KEYWORDS.contains(tokenBefore.getText())
+					&& identifierLength(text, 0) == text.length()) {
+				BashSymbol symbol = new BashSymbol(SymbolType.VARIABLE, text);
+				add(symbol, start, offsetsBySymbol, occurrences);
+				addDeclaration(symbol, start, declarationOffsets);
+			} else {
+				int assignmentNameLength = identifierLength(text, 0);
+				if (assignmentNameLength > 0 && isAssignment(text, assignmentNameLength)) {
+					BashSymbol symbol = new BashSymbol(SymbolType.VARIABLE, text.substring(0, assignmentNameLength));
+					add(symbol, start, offsetsBySymbol, occurrences);
+					addDeclaration(symbol, start, declarationOffsets);
+				}
+				addVariableUsages(text, start, offsetsBySymbol, occurrences);
+			}
+			tokenBefore = token;
+		}
+		return createIndex(offsetsBySymbol, occurrences, declarationOffsets);
+	}
+
+	private void addDeclaration(BashSymbol symbol, int offset, Map<BashSymbol, Integer> declarationOffsets) {
+		if (!declarationOffsets.containsKey(symbol)) {
+			/* first declaration wins */
+			declarationOffsets.put(symbol, offset);
+		}
+	}
+
+	private BashSymbolIndex createIndex(Map<BashSymbol, IntList> offsetsBySymbol, List<Occurrence> occurrences,
+			Map<BashSymbol, Integer> declarationOffsets) {
+		if (occurrences.isEmpty()) {
+			return BashSymbolIndex.EMPTY;
+		}
+		/* tokens are ordered, so this is normally already sorted */
+		occurrences.sort(new Comparator<Occurrence>() {
+
+			@Override
+			public int compare(Occurrence o1, Occurrence o2) {
+				return o1.offset - o2.offset;
+			}
+		});
+		int[] sortedOffsets = new int[occurrences.size()];
+		BashSymbol[] symbols = new BashSymbol[occurrences.size()];
+		for (int i = 0; i < sortedOffsets.length; i++) {
+			Occurrence occurrence = occurrences.get(i);
+			sortedOffsets[i] = occurrence.offset;
+			symbols[i] = occurrence.symbol;
+		}
+		Map<BashSymbol, int[]> map = new HashMap<>();
+		for (Map.Entry<BashSymbol, IntList> entry : offsetsBySymbol.entrySet()) {
+			int[] offsets = entry.getValue().toArray();
+			Arrays.sort(offsets);
+			map.put(entry.getKey(), offsets);
+		}
+		return new BashSymbolIndex(map, sortedOffsets, symbols, declarationOffsets);
+	}
+
+	private void addVariableUsages(String text, int tokenStart, Map<BashSymbol, IntList> offsetsBySymbol,
+			List<Occurrence> occurrences) {
+		int pos = text.indexOf('$');
+		while (pos != -1) {
+			if (pos > 0 && text.charAt(pos - 1) == '\\') {
+				/* escaped */
+				pos = text.indexOf('$', pos + 1);
+				continue;
+			}
+			int nameStart = pos + 1;
+			if (nameStart < text.length() && text.charAt(nameStart) == '{') {
+				nameStart++;
+				if (nameStart < text.length() && (text.charAt(nameStart) == '#' || text.charAt(nameStart) == '!')) {
+					nameStart++;
+				}
+			}
+			int length = identifierLength(text, nameStart);
+			if (length > 0) {
+				add(new BashSymbol(SymbolType.VARIABLE, text.substring(nameStart, nameStart + length)),
+						tokenStart + nameStart, offsetsBySymbol, occurrences);
+			}
+			pos = text.indexOf('$', nameStart + Math.max(length, 0));
+		}
+	}
+
+	private boolean isAssignment(String text, int nameLength) {
+		if (nameLength >= text.length()) {
+			return false;
+		}
+		char c = text.charAt(nameLength);
+		if (c == '=' || c == '[') {
+			return text.indexOf('=', nameLength) != -1;
+		}
+		/* a+=1 */
+		return c == '+' && text.startsWith("=", nameLength + 1);
+	}
+
+	/**
+	 * @return length of identifier starting at given position, 0 when there
+	 *         is no identifier (e.g. "$1" or "$?")
+	 */
+	private int identifierLength(String text, int start) {
+		if (start >= text.length()) {
+			return 0;
+		}
+		char first = text.charAt(start);
+		if (!(Character.isLetter(first) || first == '_')) {
+			return 0;
+		}
+		int pos = start + 1;
+		while (pos < text.length()) {
+			char c = text.charAt(pos);
+			if (!(Character.isLetterOrDigit(c) || c == '_')) {
+				break;
+			}
+			pos++;
+		}
+		return pos - start;
+	}
+
+	private void add(BashSymbol symbol, int offset, Map<BashSymbol, IntList> offsetsBySymbol,
+			List<Occurrence> occurrences) {
+		IntList offsets = offsetsBySymbol.get(symbol);
+		if (offsets == null) {
+			offsets = new IntList();
+			offsetsBySymbol.put(symbol, offsets);
+		}
+		offsets.add(offset);
+		occurrences.add(new Occurrence(symbol, offset));
+	}
+
+	private static class Occurrence {
+		private BashSymbol symbol;
+		private int offset;
+
+		private Occurrence(BashSymbol symbol, int offset) {
+			this.symbol = symbol;
+			this.offset = offset;
+		}
+	}
+
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
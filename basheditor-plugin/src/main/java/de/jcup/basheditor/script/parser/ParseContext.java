@@ -20,7 +20,7 @@ import java.util.List;
 
 class ParseContext {
 
-	char[] chars;
+	CharSequence chars;
 	int pos;
 	StringBuilder sb;
 	List<ParseToken> tokens = new ArrayList<ParseToken>();
@@ -28,6 +28,7 @@ class ParseContext {
 	private ParserState parserState = ParserState.INIT;
 	private ParserState stateBeforeString;
 	private VariableContext variableContext;
+	private int lastAppendPos = -1;
 
 	ParseContext() {
 		currentToken = createToken();
@@ -124,6 +125,7 @@ class ParseContext {
 		
 		currentToken.text = sb.toString();
 		currentToken.end = pos;
+		currentToken.textEnd = lastAppendPos + 1;
 		tokens.add(currentToken);
 
 		/* new token on next position */
@@ -135,17 +137,22 @@ class ParseContext {
 
 	void appendCharToText() {
 		getSb().append(getCharAtPos());
+		lastAppendPos = pos;
+	}
+
+	boolean isTextEmpty() {
+		return sb == null || sb.length() == 0;
 	}
 
 	char getCharAtPos() {
-		return chars[pos];
+		return chars.charAt(pos);
 	}
 
 	char getCharBefore() {
 		int posBefore = pos - 1;
 		if (posBefore >= 0) {
-			if (chars.length > 0) {
-				return chars[posBefore];
+			if (chars.length() > 0) {
+				return chars.charAt(posBefore);
 			}
 		}
 		return 0;
@@ -227,7 +234,7 @@ class ParseContext {
 	}
 
 	public boolean hasValidPos() {
-		return pos < chars.length;
+		return pos < chars.length();
 	}
 
 	public void moveForward() {
@@ -235,7 +242,7 @@ class ParseContext {
 	}
 
 	public boolean canMoveForward() {
-		return pos < chars.length-1;
+		return pos < chars.length()-1;
 	}
 
 	public boolean isCharBeforeEscapeSign() {
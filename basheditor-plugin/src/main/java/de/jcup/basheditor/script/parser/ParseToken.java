@@ -21,6 +21,8 @@ public class ParseToken {
 	String text;
 	int start;
 	int end;
+	/* exclusive end of text inside script, -1 when unknown */
+	int textEnd = -1;
 
 	ParseToken() {
 
@@ -30,7 +32,7 @@ public class ParseToken {
 		this(text, 0, 0);
 	}
 
-	ParseToken(String text, int start, int end) {
+	public ParseToken(String text, int start, int end) {
 		if (text == null) {
 			text = "";
 		}
@@ -189,4 +191,31 @@ public class ParseToken {
 	public boolean isFi() {
 		return getSafeText().equals("fi");
 	}
+
+	public boolean isCase() {
+		return getSafeText().equals("case");
+	}
+
+	public boolean isEsac() {
+		return getSafeText().equals("esac");
+	}
+
+	/**
+	 * @return <code>true</code> when token starts a loop ending with 'done'
+	 */
+	public boolean isLoopKeyword() {
+		String safeText = getSafeText();
+		return safeText.equals("for") || safeText.equals("while") || safeText.equals("until")
+				|| safeText.equals("select");
+	}
+
+	/**
+	 * @return <code>true</code> when token starts a here document - e.g.
+	 *         "&lt;&lt;EOF" or "&lt;&lt;-EOF", but not a here string
+	 *         "&lt;&lt;&lt;"
+	 */
+	public boolean isHereDocStart() {
+		String safeText = getSafeText();
+		return safeText.startsWith("<<") && !safeText.startsWith("<<<");
+	}
 }
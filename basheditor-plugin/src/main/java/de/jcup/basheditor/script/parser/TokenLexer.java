@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script.parser;
+
+import static de.jcup.basheditor.script.parser.ParserState.*;
+
+/**
+ * Incremental usage of the {@link TokenParser} state machine. Tokens are
+ * created on demand, and lexing can start at any position where the parser
+ * is in a clean state (see {@link #isClean()}) - e.g. a line start remembered
+ * by a former run. So highlighting can use the same lexer as the script
+ * model without parsing the complete script.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class TokenLexer {
+
+	private TokenParser parser = new TokenParser();
+	private ParseContext context = new ParseContext();
+	private int polled;
+	private boolean finished;
+
+	/**
+	 * Creates a lexer
+	 * 
+	 * @param chars
+	 *            characters - read directly, no copy is created
+	 * @param startPos
+	 *            position where lexing starts. Must be a position where the
+	 *            lexer was clean in a former run or 0
+	 */
+	public TokenLexer(CharSequence chars, int startPos) {
+		context.chars = chars;
+		context.pos = startPos;
+		context.currentToken.start = startPos;
+	}
+
+	/**
+	 * Lexes next character(s)
+	 * 
+	 * @return <code>false</code> when end was reached
+	 */
+	public boolean step() {
+		if (finished) {
+			return false;
+		}
+		if (!context.hasValidPos()) {
+			// add last token if existing
+			context.addTokenAndResetText();
+			finished = true;
+			return false;
+		}
+		parser.parseCharAtPos(context);
+		context.moveForward();
+		return true;
+	}
+
+	/**
+	 * @return next created token not polled before or <code>null</code>
+	 */
+	public ParseToken poll() {
+		if (polled >= context.tokens.size()) {
+			return null;
+		}
+		ParseToken token = context.tokens.get(polled++);
+		if (polled == context.tokens.size()) {
+			/* polled tokens are no longer needed */
+			context.tokens.clear();
+			polled = 0;
+		}
+		return token;
+	}
+
+	/**
+	 * @return next token or <code>null</code> when end reached
+	 */
+	public ParseToken next() {
+		ParseToken token = poll();
+		while (token == null) {
+			boolean more = step();
+			/* last step can add the last token */
+			token = poll();
+			if (!more) {
+				break;
+			}
+		}
+		return token;
+	}
+
+	/**
+	 * @return position of next character to lex
+	 */
+	public int getPosition() {
+		return context.pos;
+	}
+
+	/**
+	 * @return <code>true</code> when lexer is not inside a token, a string, a
+	 *         comment or a variable - so lexing can be started again at
+	 *         current position with a new lexer
+	 */
+	public boolean isClean() {
+		boolean codeState = context.inState(CODE) || context.inState(INIT);
+		return codeState && context.isTextEmpty();
+	}
+
+	/**
+	 * @param token
+	 *            token created by this lexer
+	 * @return exact start offset of token text inside characters
+	 */
+	public int getTextStart(ParseToken token) {
+		return token.textEnd - token.getText().length();
+	}
+
+	/**
+	 * @param token
+	 *            token created by this lexer
+	 * @return exact end offset (exclusive) of token text inside characters
+	 */
+	public int getTextEnd(ParseToken token) {
+		return token.textEnd;
+	}
+}
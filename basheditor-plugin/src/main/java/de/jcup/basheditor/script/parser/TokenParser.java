@@ -25,31 +25,47 @@ import de.jcup.basheditor.script.parser.ParseContext.VariableType;
 
 public class TokenParser {
 
-	public List<ParseToken> parse(String bashScript) {
+	/**
+	 * Parses given script. The characters are read directly from given
+	 * sequence, no copy is created.
+	 * 
+	 * @param bashScript
+	 * @return tokens, never <code>null</code>
+	 */
+	public List<ParseToken> parse(CharSequence bashScript) {
 		if (bashScript == null) {
 			return new ArrayList<>();
 		}
 		ParseContext context = new ParseContext();
-		context.chars = bashScript.toCharArray();
+		context.chars = bashScript;
 
 		for (; context.hasValidPos(); context.moveForward()) {
-
-			if (isVariableStateHandled(context)) {
-				continue;
-			}
-			if (isCommentStateHandled(context)) {
-				continue;
-			}
-			if (isStringStateHandled(context)) {
-				continue;
-			}
-			handleNotVariableNorCommentOrString(context);
+			parseCharAtPos(context);
 		}
 		// add last token if existing
 		context.addTokenAndResetText();
 		return context.tokens;
 	}
 
+	/**
+	 * Handles character at current position. Can move position forward (e.g.
+	 * for strings inside variables), but never behind the last handled char.
+	 * 
+	 * @param context
+	 */
+	void parseCharAtPos(ParseContext context) {
+		if (isVariableStateHandled(context)) {
+			return;
+		}
+		if (isCommentStateHandled(context)) {
+			return;
+		}
+		if (isStringStateHandled(context)) {
+			return;
+		}
+		handleNotVariableNorCommentOrString(context);
+	}
+
 	private boolean isStringStateHandled(ParseContext context) {
 		char c = context.getCharAtPos();
 
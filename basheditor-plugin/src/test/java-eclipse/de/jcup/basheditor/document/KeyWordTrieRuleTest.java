@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.document;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.jface.text.rules.ICharacterScanner;
+import org.eclipse.jface.text.rules.IToken;
+import org.eclipse.jface.text.rules.Token;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.document.keywords.DocumentKeyWord;
+
+/**
+ * Sorrowly not executable by gradle because of eclipse dependencies. But at
+ * least executable in eclipse environment.
+ * 
+ * @author Albert Tregnaghi
+ *
+ */
+public class KeyWordTrieRuleTest {
+
+	private IToken keyword;
+	private IToken command;
+	private IToken variable;
+	private KeyWordTrieRule rule;
+
+	@Before
+	public void before() {
+		keyword = new Token("keyword");
+		command = new Token("command");
+		variable = new Token("variable");
+
+		rule = new KeyWordTrieRule();
+		rule.addWords(keyWords("if", "in", "done"), keyword);
+		rule.addWords(keyWords("ls", "if"), command);
+		rule.addAssignmentWords(keyWords("HOME"), variable);
+	}
+
+	@Test
+	public void word_at_end_of_document_is_found() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("done");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertEquals(keyword, result);
+		assertEquals(4, scanner.offset);
+	}
+
+	@Test
+	public void word_followed_by_whitespace_is_found_without_whitespace() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("ls -l");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertEquals(command, result);
+		assertEquals(2, scanner.offset);
+	}
+
+	@Test
+	public void first_added_token_wins_for_same_word() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("if ");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertEquals(keyword, result);
+	}
+
+	@Test
+	public void longer_word_is_not_found_and_scanner_is_reset() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("index");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertTrue(result.isUndefined());
+		assertEquals(0, scanner.offset);
+	}
+
+	@Test
+	public void word_with_prefix_is_not_found() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("xif");
+		scanner.offset = 1;
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertTrue(result.isUndefined());
+		assertEquals(1, scanner.offset);
+	}
+
+	@Test
+	public void word_after_whitespace_is_found() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("x in y");
+		scanner.offset = 2;
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertEquals(keyword, result);
+		assertEquals(4, scanner.offset);
+	}
+
+	@Test
+	public void assignment_word_contains_equal_sign_and_following_letters() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("HOME=abc/def");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertEquals(variable, result);
+		assertEquals(8, scanner.offset);
+	}
+
+	@Test
+	public void assignment_word_without_equal_sign_is_not_found() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("HOME ");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertTrue(result.isUndefined());
+		assertEquals(0, scanner.offset);
+	}
+
+	@Test
+	public void unknown_first_character_is_not_found() {
+		/* prepare */
+		TestCharacterScanner scanner = new TestCharacterScanner("x");
+
+		/* execute */
+		IToken result = rule.evaluate(scanner);
+
+		/* test */
+		assertTrue(result.isUndefined());
+		assertEquals(0, scanner.offset);
+	}
+
+	private DocumentKeyWord[] keyWords(String... texts) {
+		DocumentKeyWord[] result = new DocumentKeyWord[texts.length];
+		for (int i = 0; i < texts.length; i++) {
+			String text = texts[i];
+			result[i] = new DocumentKeyWord() {
+
+				@Override
+				public String getText() {
+					return text;
+				}
+
+				@Override
+				public boolean isBreakingOnEof() {
+					return true;
+				}
+			};
+		}
+		return result;
+	}
+
+	/**
+	 * Single line scanner - like the rule based scanners offset is increased
+	 * also when EOF is read
+	 */
+	private class TestCharacterScanner implements ICharacterScanner {
+		private int offset;
+		private String text;
+
+		private TestCharacterScanner(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public char[][] getLegalLineDelimiters() {
+			return new char[][] { "\n".toCharArray() };
+		}
+
+		@Override
+		public int getColumn() {
+			return offset;
+		}
+
+		@Override
+		public int read() {
+			int c = offset < text.length() ? text.charAt(offset) : EOF;
+			offset++;
+			return c;
+		}
+
+		@Override
+		public void unread() {
+			offset--;
+		}
+	}
+}
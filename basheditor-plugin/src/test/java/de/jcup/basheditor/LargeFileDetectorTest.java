@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LargeFileDetectorTest {
+
+	@Test
+	public void length_above_max_characters_is_large() {
+		/* prepare */
+		LargeFileDetector detectorToTest = new LargeFileDetector(5, 0);
+
+		/* test */
+		assertFalse(detectorToTest.isLarge(5, 1));
+		assertTrue(detectorToTest.isLarge(6, 1));
+	}
+
+	@Test
+	public void lines_above_max_lines_are_large() {
+		/* prepare */
+		LargeFileDetector detectorToTest = new LargeFileDetector(0, 3);
+
+		/* test */
+		assertFalse(detectorToTest.isLarge(1000, 3));
+		assertTrue(detectorToTest.isLarge(7, 4));
+	}
+
+	@Test
+	public void given_length_or_lines_above_limits_are_large() {
+		/* prepare */
+		LargeFileDetector detectorToTest = new LargeFileDetector(100, 10);
+
+		/* test */
+		assertFalse(detectorToTest.isLarge(100, 10));
+		assertTrue(detectorToTest.isLarge(101, 1));
+		assertTrue(detectorToTest.isLarge(50, 11));
+	}
+
+	@Test
+	public void zero_limits_mean_never_large() {
+		/* prepare */
+		LargeFileDetector detectorToTest = new LargeFileDetector(0, 0);
+
+		/* test */
+		assertFalse(detectorToTest.isLarge(Integer.MAX_VALUE, Integer.MAX_VALUE));
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SortedWordIndexTest {
+
+	private SortedWordIndex indexToTest;
+
+	@Before
+	public void before() {
+		indexToTest = new SortedWordIndex(Arrays.asList("echo", "exit", "export", "eval", "cd", "exit", "", null));
+	}
+
+	@Test
+	public void duplicates_null_and_empty_words_are_ignored() {
+		/* test */
+		assertEquals(5, indexToTest.size());
+		assertFalse(indexToTest.contains(""));
+		assertFalse(indexToTest.contains(null));
+	}
+
+	@Test
+	public void prefix_ex_finds_exit_and_export_sorted() {
+		/* execute */
+		List<String> result = indexToTest.findByPrefix("ex", 100);
+
+		/* test */
+		assertEquals(Arrays.asList("exit", "export"), result);
+	}
+
+	@Test
+	public void empty_prefix_finds_all_words() {
+		/* execute */
+		List<String> result = indexToTest.findByPrefix("", 100);
+
+		/* test */
+		assertEquals(Arrays.asList("cd", "echo", "eval", "exit", "export"), result);
+	}
+
+	@Test
+	public void result_is_limited_by_max() {
+		/* execute */
+		List<String> result = indexToTest.findByPrefix("e", 2);
+
+		/* test */
+		assertEquals(Arrays.asList("echo", "eval"), result);
+	}
+
+	@Test
+	public void max_value_as_limit_finds_whole_range() {
+		/* execute */
+		List<String> result = indexToTest.findByPrefix("ex", Integer.MAX_VALUE);
+
+		/* test */
+		assertEquals(Arrays.asList("exit", "export"), result);
+	}
+
+	@Test
+	public void unknown_prefix_finds_nothing() {
+		/* test */
+		assertTrue(indexToTest.findByPrefix("x", 100).isEmpty());
+		assertTrue(indexToTest.findByPrefix("exported", 100).isEmpty());
+		assertTrue(indexToTest.findByPrefix("a", 100).isEmpty());
+	}
+
+	@Test
+	public void count_by_prefix_counts_range() {
+		/* test */
+		assertEquals(4, indexToTest.countByPrefix("e"));
+		assertEquals(2, indexToTest.countByPrefix("ex"));
+		assertEquals(0, indexToTest.countByPrefix("z"));
+		assertEquals(5, indexToTest.countByPrefix(""));
+	}
+
+	@Test
+	public void indexes_with_same_words_are_equal() {
+		/* prepare */
+		SortedWordIndex other = new SortedWordIndex(Arrays.asList("export", "exit", "eval", "echo", "cd"));
+
+		/* test */
+		assertEquals(indexToTest, other);
+		assertEquals(indexToTest.hashCode(), other.hashCode());
+		assertFalse(indexToTest.equals(new SortedWordIndex(Arrays.asList("cd", "echo"))));
+		assertEquals(SortedWordIndex.EMPTY, new SortedWordIndex(Collections.<String>emptyList()));
+	}
+
+	@Test
+	public void empty_index_finds_nothing() {
+		/* prepare */
+		indexToTest = new SortedWordIndex(Collections.<String>emptyList());
+
+		/* test */
+		assertTrue(indexToTest.findByPrefix("", 100).isEmpty());
+		assertEquals(0, SortedWordIndex.EMPTY.size());
+	}
+}
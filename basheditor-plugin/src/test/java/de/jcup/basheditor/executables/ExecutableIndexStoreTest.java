@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.executables;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.SortedWordIndex;
+
+public class ExecutableIndexStoreTest {
+
+	private ExecutableIndexStore storeToTest;
+	private File dir;
+
+	@Before
+	public void before() throws IOException {
+		storeToTest = new ExecutableIndexStore();
+		dir = Files.createTempDirectory("basheditor-test").toFile();
+	}
+
+	@After
+	public void after() {
+		ExecutableScannerTest.delete(dir);
+	}
+
+	@Test
+	public void written_index_can_be_read_again() throws IOException {
+		/* prepare */
+		Map<String, Long> times = new LinkedHashMap<>();
+		times.put("/usr/bin", 1234L);
+		times.put("/opt/my tools/bin", 5678L);
+		ExecutableIndex index = new ExecutableIndex(times, new SortedWordIndex(Arrays.asList("curl", "jq")));
+		File file = new File(dir, "sub/executables.txt");
+
+		/* execute */
+		storeToTest.write(index, file);
+		ExecutableIndex result = storeToTest.read(file);
+
+		/* test */
+		assertNotNull(result);
+		assertEquals(times, result.getDirectoryModificationTimes());
+		assertEquals(Arrays.asList("curl", "jq"), result.getNames().findByPrefix("", 10));
+	}
+
+	@Test
+	public void not_existing_file_results_in_null() throws IOException {
+		/* test */
+		assertNull(storeToTest.read(new File(dir, "unknown.txt")));
+	}
+
+	@Test
+	public void file_with_other_format_results_in_null() throws IOException {
+		/* prepare */
+		File file = new File(dir, "other.txt");
+		Files.write(file.toPath(), "something\nelse".getBytes());
+
+		/* test */
+		assertNull(storeToTest.read(file));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.executables;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutableScannerTest {
+
+	private ExecutableScanner scannerToTest;
+	private File dir1;
+	private File dir2;
+
+	@Before
+	public void before() throws IOException {
+		scannerToTest = new ExecutableScanner();
+		dir1 = Files.createTempDirectory("basheditor-test").toFile();
+		dir2 = Files.createTempDirectory("basheditor-test").toFile();
+	}
+
+	@After
+	public void after() {
+		delete(dir1);
+		delete(dir2);
+	}
+
+	@Test
+	public void resolve_directories_ignores_duplicates_empty_and_not_existing_entries() {
+		/* prepare */
+		String path = dir1.getAbsolutePath() + File.pathSeparator + File.pathSeparator + "/not/existing/dir"
+				+ File.pathSeparator + dir1.getAbsolutePath();
+
+		/* execute */
+		List<File> result = scannerToTest.resolveDirectories(path, dir2.getAbsolutePath());
+
+		/* test */
+		assertEquals(Arrays.asList(dir1.getAbsoluteFile(), dir2.getAbsoluteFile()), result);
+	}
+
+	@Test
+	public void resolve_directories_accepts_null() {
+		/* test */
+		assertTrue(scannerToTest.resolveDirectories(null, null).isEmpty());
+	}
+
+	@Test
+	public void scan_finds_only_executable_files() throws IOException {
+		/* prepare */
+		createFile(dir1, "jq", true);
+		createFile(dir1, "readme.txt", false);
+		createFile(dir2, "kubectl", true);
+		new File(dir2, "subdir").mkdir();
+
+		/* execute */
+		ExecutableIndex index = scannerToTest.scan(Arrays.asList(dir1, dir2));
+
+		/* test */
+		assertTrue(index.contains("jq"));
+		assertTrue(index.contains("kubectl"));
+		assertFalse(index.contains("readme.txt"));
+		assertFalse(index.contains("subdir"));
+		assertEquals(2, index.getDirectoryModificationTimes().size());
+	}
+
+	@Test
+	public void scanned_index_is_valid_for_same_unchanged_directories_only() throws IOException {
+		/* prepare */
+		List<File> directories = Arrays.asList(dir1, dir2);
+		ExecutableIndex index = scannerToTest.scan(directories);
+
+		/* test */
+		assertTrue(index.isValidFor(directories));
+		assertFalse(index.isValidFor(Arrays.asList(dir2, dir1)));
+		assertFalse(index.isValidFor(Collections.singletonList(dir1)));
+
+		dir1.setLastModified(dir1.lastModified() - 10000);
+		assertFalse(index.isValidFor(directories));
+	}
+
+	private void createFile(File dir, String name, boolean executable) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), "#!/bin/bash".getBytes());
+		file.setExecutable(executable);
+	}
+
+	static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+}
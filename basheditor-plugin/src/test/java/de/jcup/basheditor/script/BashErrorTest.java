@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BashErrorTest {
+
+	@Test
+	public void errors_with_same_range_and_message_are_equal() {
+		/* prepare */
+		BashError error1 = new BashError(100, 120, "buh");
+		BashError error2 = new BashError(100, 120, "buh");
+
+		/* test */
+		assertEquals(error1, error2);
+		assertEquals(error1.hashCode(), error2.hashCode());
+	}
+
+	@Test
+	public void errors_with_different_range_or_message_are_not_equal() {
+		/* test */
+		assertNotEquals(new BashError(100, 120, "buh"), new BashError(101, 120, "buh"));
+		assertNotEquals(new BashError(100, 120, "buh"), new BashError(100, 121, "buh"));
+		assertNotEquals(new BashError(100, 120, "buh"), new BashError(100, 120, "bah"));
+	}
+
+	@Test
+	public void identical_errors_are_only_contained_once_in_a_set() {
+		/* prepare */
+		Set<BashError> set = new LinkedHashSet<>();
+
+		/* execute */
+		set.add(new BashError(100, 120, "buh"));
+		set.add(new BashError(100, 120, "buh"));
+
+		/* test */
+		assertEquals(1, set.size());
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.script.BashFoldingRegion.FoldingType;
+
+public class BashFoldingRegionBuilderTest {
+
+	private BashFoldingRegionBuilder builderToTest;
+	private BashScriptModelBuilder modelBuilder;
+
+	@Before
+	public void before() {
+		builderToTest = new BashFoldingRegionBuilder();
+		modelBuilder = new BashScriptModelBuilder();
+	}
+
+	@Test
+	public void null_model_results_in_empty_list() {
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(null);
+
+		/* test */
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void function_results_in_function_region() {
+		/* prepare */
+		String code = "function a() {\necho a\n}";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		assertRegion(result.get(0), FoldingType.FUNCTION, 0, code.lastIndexOf("}"));
+	}
+
+	@Test
+	public void if_block_results_in_if_region() {
+		/* prepare */
+		String code = "echo x\nif [ a ]; then\necho a\nfi";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		assertRegion(result.get(0), FoldingType.IF, code.indexOf("if"), code.length());
+	}
+
+	@Test
+	public void nested_if_blocks_result_in_two_if_regions_sorted_by_start() {
+		/* prepare */
+		String code = "if [ a ]; then\nif [ b ]; then\necho b\nfi\nfi";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(2, result.size());
+		assertRegion(result.get(0), FoldingType.IF, 0, code.length());
+		assertRegion(result.get(1), FoldingType.IF, code.indexOf("if [ b"), code.indexOf("fi\nfi") + 2);
+	}
+
+	@Test
+	public void case_block_results_in_case_region() {
+		/* prepare */
+		String code = "case $a in\n1) echo 1;;\nesac";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		assertRegion(result.get(0), FoldingType.CASE, 0, code.length());
+	}
+
+	@Test
+	public void while_and_for_loops_result_in_loop_regions() {
+		/* prepare */
+		String code = "while true; do\necho a\ndone\nfor i in 1 2; do\necho $i\ndone";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(2, result.size());
+		assertRegion(result.get(0), FoldingType.LOOP, 0, code.indexOf("done") + 4);
+		assertRegion(result.get(1), FoldingType.LOOP, code.indexOf("for"), code.length());
+	}
+
+	@Test
+	public void here_doc_results_in_here_doc_region_and_content_is_ignored() {
+		/* prepare */
+		String code = "cat <<EOF\nif fi done\nEOF";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		assertRegion(result.get(0), FoldingType.HERE_DOC, code.indexOf("<<"), code.length());
+	}
+
+	@Test
+	public void here_doc_with_dash_and_separated_delimiter_results_in_here_doc_region() {
+		/* prepare */
+		String code = "cat <<- END\necho a\nEND";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		assertRegion(result.get(0), FoldingType.HERE_DOC, code.indexOf("<<"), code.length());
+	}
+
+	@Test
+	public void here_string_results_in_no_region() {
+		/* prepare */
+		String code = "cat <<< EOF\necho a\nEOF";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void two_comment_lines_result_in_comment_region_but_single_comment_not() {
+		/* prepare */
+		String code = "# first\n# second\necho a\n# single";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertEquals(1, result.size());
+		BashFoldingRegion region = result.get(0);
+		assertEquals(FoldingType.COMMENT, region.getType());
+		assertTrue(region.getStart() < code.indexOf("first"));
+		assertEquals(code.indexOf("\necho"), region.getEnd());
+	}
+
+	@Test
+	public void unbalanced_fi_results_in_no_region() {
+		/* prepare */
+		String code = "echo a\nfi";
+
+		/* execute */
+		List<BashFoldingRegion> result = builderToTest.build(modelBuilder.build(code));
+
+		/* test */
+		assertTrue(result.isEmpty());
+	}
+
+	private void assertRegion(BashFoldingRegion region, FoldingType type, int start, int end) {
+		assertEquals(type, region.getType());
+		assertEquals("start of " + region, start, region.getStart());
+		assertEquals("end of " + region, end, region.getEnd());
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BashScriptModelBinaryViewTest {
+
+	private BashScriptModelBinaryView viewToTest;
+
+	@Before
+	public void before() {
+		BashScriptModel model = new BashScriptModelBuilder()
+				.build("function alpha {\n}\nfunction beta() {\necho 'äöü'\n}\nfunction x");
+		viewToTest = new BashScriptModelBinaryView(ByteBuffer.wrap(new BashScriptModelEncoder().encode(model)));
+	}
+
+	@Test
+	public void function_count_is_available() {
+		assertEquals(2, viewToTest.getFunctionCount());
+	}
+
+	@Test
+	public void error_count_is_available() {
+		assertEquals(1, viewToTest.getErrorCount());
+		assertTrue(viewToTest.hasErrors());
+	}
+
+	@Test
+	public void no_debug_tokens_when_model_had_none() {
+		assertFalse(viewToTest.hasDebugTokens());
+	}
+
+	@Test
+	public void function_beta_found_by_name() {
+		/* execute */
+		BashFunction function = viewToTest.findFunction("beta");
+
+		/* test */
+		assertNotNull(function);
+		assertEquals("beta", function.getName());
+		assertEquals(19, function.getPosition());
+		assertEquals(15, function.getLengthToNameEnd());
+	}
+
+	@Test
+	public void unknown_function_not_found_by_name() {
+		assertNull(viewToTest.findFunction("gamma"));
+		assertNull(viewToTest.findFunction(null));
+	}
+
+	@Test
+	public void function_found_by_offset_inside() {
+		/* execute */
+		BashFunction function = viewToTest.findFunctionAt(25);
+
+		/* test */
+		assertNotNull(function);
+		assertEquals("beta", function.getName());
+	}
+
+	@Test
+	public void no_function_found_by_offset_outside() {
+		assertNull(viewToTest.findFunctionAt(200));
+	}
+
+	@Test
+	public void line_index_is_available() {
+		assertTrue(viewToTest.hasLineIndex());
+		assertEquals(6, viewToTest.getLineCount());
+		assertEquals(0, viewToTest.getLineIndexAt(0));
+		assertEquals(2, viewToTest.getLineIndexAt(19));
+		assertEquals(5, viewToTest.getLineIndexAt(200));
+	}
+
+	@Test
+	public void corrupt_data_fails_only_by_illegal_argument_exception() {
+		/* prepare */
+		byte[] data = new BashScriptModelEncoder()
+				.encode(new BashScriptModelBuilder().build("function a {\n}\nfunction b {\n}"));
+
+		for (int i = BashScriptModelBinaryFormat.MAGIC.length + 2; i < data.length; i++) {
+			for (int value : new int[] { 0x00, 0x01, 0x7F, 0x80, 0xFF }) {
+				byte[] corrupt = data.clone();
+				corrupt[i] = (byte) value;
+
+				/* execute + test */
+				try {
+					BashScriptModelBinaryView view = new BashScriptModelBinaryView(ByteBuffer.wrap(corrupt));
+					view.findFunction("b");
+					view.findFunctionAt(15);
+					view.getLineIndexAt(10);
+				} catch (IllegalArgumentException e) {
+					/* expected for corrupt data */
+				}
+			}
+		}
+	}
+
+	@Test
+	public void view_works_on_buffer_with_offset_and_does_not_change_buffer_position() {
+		/* prepare */
+		byte[] data = new BashScriptModelEncoder().encode(new BashScriptModelBuilder().build("function a {}"));
+		ByteBuffer buffer = ByteBuffer.allocate(data.length + 10);
+		buffer.position(10);
+		buffer.put(data);
+		buffer.position(10);
+
+		/* execute */
+		BashScriptModelBinaryView view = new BashScriptModelBinaryView(buffer);
+
+		/* test */
+		assertNotNull(view.findFunction("a"));
+		assertEquals(10, buffer.position());
+	}
+}
@@ -60,6 +60,90 @@ public class BashScriptModelBuilderTest {
 			fail(errorCollector.toString());
 		}
 	}
+
+	@Test
+	public void built_model_is_not_validated_when_only_functions_are_fetched() {
+		/* prepare */
+		BashScriptModel bashScriptModel = builderToTest.build("function a {}\nif");
+
+		/* execute */
+		bashScriptModel.getFunctions();
+
+		/* test */
+		assertFalse(bashScriptModel.isValidated());
+	}
+
+	@Test
+	public void built_model_is_validated_after_errors_are_fetched() {
+		/* prepare */
+		BashScriptModel bashScriptModel = builderToTest.build("function a {}\nif");
+
+		/* execute */
+		bashScriptModel.getErrors();
+
+		/* test */
+		assertTrue(bashScriptModel.isValidated());
+		assertThat(bashScriptModel).hasFunctions(1).hasErrors(1);
+	}
+
+	@Test
+	public void builder_changes_after_build_do_not_change_built_model() {
+		/* prepare */
+		BashScriptModel bashScriptModel = builderToTest.build("if");
+
+		/* execute */
+		builderToTest.setIgnoreIfValidation(true);
+
+		/* test */
+		assertThat(bashScriptModel).hasErrors(1);
+	}
+
+	@Test
+	public void tokens_of_built_model_are_available_without_debug_mode() {
+		/* prepare */
+		BashScriptModel bashScriptModel = builderToTest.build("a b");
+
+		/* test */
+		assertEquals(2, bashScriptModel.getTokens().size());
+		assertThat(bashScriptModel).hasNoDebugTokens();
+	}
+
+	@Test
+	public void errors_are_limited_to_max_errors_and_a_summary_error_is_added() {
+		/* prepare */
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			sb.append("function f").append(i).append("\n");
+		}
+		builderToTest.setMaxErrors(3);
+
+		/* execute */
+		BashScriptModel bashScriptModel = builderToTest.build(sb.toString());
+
+		/* test */
+		assertThat(bashScriptModel).hasErrors(4);
+		BashError last = null;
+		for (BashError error : bashScriptModel.getErrors()) {
+			last = error;
+		}
+		assertEquals("7 further problems suppressed", last.getMessage());
+	}
+
+	@Test
+	public void errors_are_not_limited_when_max_errors_is_zero() {
+		/* prepare */
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			sb.append("function f").append(i).append("\n");
+		}
+		builderToTest.setMaxErrors(0);
+
+		/* execute */
+		BashScriptModel bashScriptModel = builderToTest.build(sb.toString());
+
+		/* test */
+		assertThat(bashScriptModel).hasErrors(10);
+	}
 	
 	@Test
 	public void has_no_debugtoken_list__when_debug_is_turned_off_means_default(){
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static de.jcup.basheditor.script.AssertScriptModel.assertThat;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.TestScriptLoader;
+import de.jcup.basheditor.script.parser.ParseToken;
+
+public class BashScriptModelEncoderTest {
+
+	private BashScriptModelEncoder encoderToTest;
+	private BashScriptModelDecoder decoder;
+	private BashScriptModelBuilder builder;
+
+	@Before
+	public void before() {
+		encoderToTest = new BashScriptModelEncoder();
+		decoder = new BashScriptModelDecoder();
+		builder = new BashScriptModelBuilder();
+	}
+
+	@Test
+	public void empty_model_can_be_encoded_and_decoded() {
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(new BashScriptModel()));
+
+		/* test */
+		assertThat(decoded).hasNoFunctions().hasNoErrors().hasNoDebugTokens();
+	}
+
+	@Test
+	public void functions_and_errors_are_same_after_decoding() {
+		/* prepare */
+		BashScriptModel model = builder.build("function a {}\nfunction b() {\n}\nfunction x\n   c () {\n}{");
+
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(model));
+
+		/* test */
+		assertThat(decoded).hasFunctions(3).hasFunctionWithPosition("a", 0).hasFunction("b").hasFunction("c")
+				.hasErrors(model.getErrors().size());
+		assertFunctionsEqual(model, decoded);
+		assertEquals(new ArrayList<>(model.getErrors()), new ArrayList<>(decoded.getErrors()));
+	}
+
+	@Test
+	public void debug_tokens_are_same_after_decoding() {
+		/* prepare */
+		builder.setDebug(true);
+		BashScriptModel model = builder.build("a=\"hello\" b c\n#comment äöü\necho $a");
+
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(model));
+
+		/* test */
+		assertThat(decoded).hasDebugTokens(model.getDebugTokens().size());
+		for (int i = 0; i < model.getDebugTokens().size(); i++) {
+			ParseToken expected = model.getDebugTokens().get(i);
+			ParseToken found = decoded.getDebugTokens().get(i);
+			assertEquals(expected.getText(), found.getText());
+			assertEquals(expected.getStart(), found.getStart());
+			assertEquals(expected.getEnd(), found.getEnd());
+		}
+	}
+
+	@Test
+	public void tokens_are_encoded_without_debug_mode_when_included() {
+		/* prepare */
+		BashScriptModel model = builder.build("a=\"hello\" b c\necho $a");
+		encoderToTest.setTokensIncluded(true);
+
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(model));
+
+		/* test */
+		assertFalse(model.hasDebugTokens());
+		assertEquals(model.getTokens().size(), decoded.getTokens().size());
+		assertEquals("$a", decoded.getTokens().get(decoded.getTokens().size() - 1).getText());
+	}
+
+	@Test
+	public void tokens_are_not_encoded_without_debug_mode_per_default() {
+		/* prepare */
+		BashScriptModel model = builder.build("a=\"hello\" b c\necho $a");
+
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(model));
+
+		/* test */
+		assertThat(decoded).hasNoDebugTokens();
+	}
+
+	@Test
+	public void line_offsets_are_same_after_decoding() {
+		/* prepare */
+		BashScriptModel model = builder.build("a=1\n\nfunction b {\n}\n");
+
+		/* execute */
+		BashScriptModel decoded = decoder.decode(encoderToTest.encode(model));
+
+		/* test */
+		assertArrayEquals(new int[] { 0, 4, 5, 18, 20 }, model.getLineOffsets());
+		assertArrayEquals(model.getLineOffsets(), decoded.getLineOffsets());
+		assertEquals(2, decoded.getLineIndexAt(7));
+		assertEquals(4, decoded.getLineIndexAt(20));
+	}
+
+	@Test
+	public void corrupt_data_fails_only_by_illegal_argument_exception() {
+		/* prepare */
+		builder.setDebug(true);
+		byte[] data = encoderToTest.encode(builder.build("function a {\necho 'x'\n}\nfunction b {\n"));
+
+		for (int i = BashScriptModelBinaryFormat.MAGIC.length + 2; i < data.length; i++) {
+			for (int value : new int[] { 0x00, 0x01, 0x7F, 0x80, 0xFF }) {
+				byte[] corrupt = data.clone();
+				corrupt[i] = (byte) value;
+
+				/* execute + test */
+				try {
+					decoder.decode(corrupt);
+				} catch (IllegalArgumentException e) {
+					/* expected for corrupt data */
+				}
+			}
+		}
+	}
+
+	@Test
+	public void all_testscripts_are_same_after_decoding() throws Exception {
+		/* prepare */
+		builder.setDebug(true);
+		List<String> scriptNames = TestScriptLoader.fetchAllTestScriptNames();
+		for (String scriptName : scriptNames) {
+			BashScriptModel model = builder.build(TestScriptLoader.loadScriptFromTestScripts(scriptName));
+
+			/* execute */
+			byte[] data = encoderToTest.encode(model);
+			BashScriptModel decoded = decoder.decode(data);
+
+			/* test */
+			assertFunctionsEqual(model, decoded);
+			assertEquals(model.getDebugTokens().size(), decoded.getDebugTokens().size());
+		}
+	}
+
+	@Test
+	public void same_strings_are_stored_only_once() {
+		/* prepare */
+		builder.setDebug(true);
+		BashScriptModel model1 = builder.build("echo a");
+		BashScriptModel model2 = builder.build("echo a echo a echo a echo a echo a");
+
+		/* execute */
+		int length1 = encoderToTest.encode(model1).length;
+		int length2 = encoderToTest.encode(model2).length;
+
+		/* test - 8 additional tokens need 3 bytes each, but no additional text */
+		assertEquals(length1 + 8 * 3, length2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decoding_data_without_magic_bytes_fails() {
+		decoder.decode(new byte[30]);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void decoding_truncated_data_fails() {
+		/* prepare */
+		byte[] data = encoderToTest.encode(builder.build("function a {}"));
+		byte[] truncated = new byte[data.length - 1];
+		System.arraycopy(data, 0, truncated, 0, truncated.length);
+
+		/* execute */
+		decoder.decode(truncated);
+	}
+
+	private void assertFunctionsEqual(BashScriptModel expected, BashScriptModel found) {
+		assertEquals(expected.getFunctions().size(), found.getFunctions().size());
+		Iterator<BashFunction> foundIt = found.getFunctions().iterator();
+		for (BashFunction function : expected.getFunctions()) {
+			BashFunction foundFunction = foundIt.next();
+			assertEquals(function.getName(), foundFunction.getName());
+			assertEquals(function.getPosition(), foundFunction.getPosition());
+			assertEquals(function.getLengthToNameEnd(), foundFunction.getLengthToNameEnd());
+			assertEquals(function.getEnd(), foundFunction.getEnd());
+		}
+	}
+}
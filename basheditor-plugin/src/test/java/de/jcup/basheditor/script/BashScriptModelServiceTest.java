@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BashScriptModelServiceTest {
+
+	private BashScriptModelService serviceToTest;
+	private QueuedExecutor executor;
+	private CountingTextSupplier text;
+
+	@Before
+	public void before() {
+		executor = new QueuedExecutor();
+		serviceToTest = new BashScriptModelService(new BashScriptModelBuilder(), executor);
+		text = new CountingTextSupplier("function a(){\n}");
+	}
+
+	@Test
+	public void get_model_twice_for_same_version_builds_only_once() {
+		/* execute */
+		BashScriptModel model1 = serviceToTest.getModel(1, text);
+		BashScriptModel model2 = serviceToTest.getModel(1, text);
+
+		/* test */
+		assertSame(model1, model2);
+		assertEquals(1, text.calls);
+		assertEquals(1, model1.getFunctions().size());
+	}
+
+	@Test
+	public void model_if_available_is_null_until_version_is_built_and_does_not_build() {
+		/* execute + test */
+		assertNull(serviceToTest.getModelIfAvailable(1));
+		assertEquals(0, text.calls);
+
+		BashScriptModel model = serviceToTest.getModel(1, text);
+		assertSame(model, serviceToTest.getModelIfAvailable(1));
+		assertNull(serviceToTest.getModelIfAvailable(2));
+	}
+
+	@Test
+	public void get_model_for_new_version_builds_again() {
+		/* execute */
+		BashScriptModel model1 = serviceToTest.getModel(1, text);
+		BashScriptModel model2 = serviceToTest.getModel(2, text);
+
+		/* test */
+		assertNotSame(model1, model2);
+		assertEquals(2, text.calls);
+	}
+
+	@Test
+	public void unknown_version_builds_always() {
+		/* execute */
+		serviceToTest.getModel(BashScriptModelService.UNKNOWN_VERSION, text);
+		serviceToTest.getModel(BashScriptModelService.UNKNOWN_VERSION, text);
+
+		/* test */
+		assertEquals(2, text.calls);
+	}
+
+	@Test
+	public void concurrent_requests_for_same_version_are_coalesced() {
+		/* execute */
+		CompletableFuture<BashScriptModel> future1 = serviceToTest.requestModel(1, text);
+		CompletableFuture<BashScriptModel> future2 = serviceToTest.requestModel(1, text);
+
+		/* test */
+		assertSame(future1, future2);
+		assertFalse(future1.isDone());
+		assertEquals(1, executor.runnables.size());
+
+		executor.runAll();
+		assertTrue(future1.isDone());
+		assertEquals(1, text.calls);
+	}
+
+	@Test
+	public void get_model_waits_not_for_pending_build_of_other_version() {
+		/* prepare */
+		serviceToTest.requestModel(1, text);
+
+		/* execute */
+		BashScriptModel model = serviceToTest.getModel(2, text);
+
+		/* test */
+		assertNotNull(model);
+		assertSame(model, serviceToTest.getLatestModel());
+	}
+
+	@Test
+	public void latest_model_is_null_before_first_build() {
+		/* test */
+		assertNull(serviceToTest.getLatestModel());
+	}
+
+	@Test
+	public void older_build_finishing_later_does_not_replace_latest_model() {
+		/* prepare */
+		CompletableFuture<BashScriptModel> oldFuture = serviceToTest.requestModel(1, text);
+		BashScriptModel newModel = serviceToTest.getModel(2, text);
+
+		/* execute */
+		executor.runAll();
+
+		/* test */
+		assertTrue(oldFuture.isDone());
+		assertSame(newModel, serviceToTest.getLatestModel());
+	}
+
+	@Test
+	public void invalidate_forces_rebuild_but_keeps_latest_model_available() {
+		/* prepare */
+		BashScriptModel model1 = serviceToTest.getModel(1, text);
+
+		/* execute */
+		serviceToTest.invalidate();
+
+		/* test */
+		assertSame(model1, serviceToTest.getLatestModel());
+		BashScriptModel model2 = serviceToTest.getModel(1, text);
+		assertNotSame(model1, model2);
+		assertEquals(2, text.calls);
+	}
+
+	@Test
+	public void text_of_text_source_is_only_read_inside_read_call() {
+		/* prepare */
+		ReadOnceTextSource source = new ReadOnceTextSource("function a(){\n}\nif [ x ]; then\n");
+
+		/* execute */
+		BashScriptModel model = serviceToTest.getModel(1, source);
+
+		/* test - text is no longer readable, so all facets come from tokens */
+		assertFalse(source.readable);
+		assertEquals(1, model.getFunctions().size());
+		assertTrue(model.hasErrors());
+		assertFalse(model.getTokens().isEmpty());
+	}
+
+	private class ReadOnceTextSource implements BashScriptTextSource {
+		private String text;
+		private boolean readable;
+
+		private ReadOnceTextSource(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public <T> T read(Function<CharSequence, T> reader) {
+			readable = true;
+			try {
+				return reader.apply(new CharSequence() {
+
+					@Override
+					public int length() {
+						assertReadable();
+						return text.length();
+					}
+
+					@Override
+					public char charAt(int index) {
+						assertReadable();
+						return text.charAt(index);
+					}
+
+					@Override
+					public CharSequence subSequence(int start, int end) {
+						assertReadable();
+						return text.subSequence(start, end);
+					}
+
+					@Override
+					public String toString() {
+						assertReadable();
+						return text;
+					}
+				});
+			} finally {
+				readable = false;
+			}
+		}
+
+		private void assertReadable() {
+			if (!readable) {
+				throw new IllegalStateException("text read after source was closed");
+			}
+		}
+	}
+
+	private class CountingTextSupplier implements Supplier<String> {
+		private String text;
+		private int calls;
+
+		private CountingTextSupplier(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public String get() {
+			calls++;
+			return text;
+		}
+	}
+
+	private class QueuedExecutor implements Executor {
+		private List<Runnable> runnables = new ArrayList<>();
+
+		@Override
+		public void execute(Runnable command) {
+			runnables.add(command);
+		}
+
+		private void runAll() {
+			for (Runnable runnable : runnables) {
+				runnable.run();
+			}
+			runnables.clear();
+		}
+	}
+}
@@ -42,5 +42,26 @@ public class BashScriptModelTest {
 		/* test */
 		assertFalse(modelToTest.hasErrors());
 	}
+
+	@Test
+	public void token_index_at_offset_is_found_inside_and_directly_after_token() {
+		/* prepare */
+		String code = "source  ./other.sh";
+		modelToTest = new BashScriptModelBuilder().build(code);
+
+		/* test */
+		assertEquals(0, modelToTest.getTokenIndexAt(0));
+		assertEquals(0, modelToTest.getTokenIndexAt(6));
+		assertEquals(-1, modelToTest.getTokenIndexAt(7));
+		assertEquals(1, modelToTest.getTokenIndexAt(8));
+		assertEquals(1, modelToTest.getTokenIndexAt(code.length()));
+		assertEquals(-1, modelToTest.getTokenIndexAt(code.length() + 1));
+	}
+
+	@Test
+	public void token_index_is_minus_one_for_empty_model() {
+		/* test */
+		assertEquals(-1, modelToTest.getTokenIndexAt(0));
+	}
 	
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BashScriptTimingsTest {
+
+	private BashScriptModelBuilder modelBuilder;
+	private BashScriptTimings timings;
+
+	@Before
+	public void before() {
+		modelBuilder = new BashScriptModelBuilder();
+		timings = new BashScriptTimings();
+	}
+
+	@Test
+	public void model_without_timings_enabled_has_no_timings() {
+		/* execute */
+		BashScriptModel model = modelBuilder.build("a=1");
+
+		/* test */
+		assertFalse(modelBuilder.isTimingsEnabled());
+		assertNull(model.getTimings());
+	}
+
+	@Test
+	public void token_and_function_counts_are_recorded() {
+		/* prepare */
+		modelBuilder.setTimingsEnabled(true);
+		modelBuilder.setDebug(true);
+
+		/* execute */
+		BashScriptModel model = modelBuilder.build("function a(){\n}\nfunction b(){\n}");
+		model.getFunctions();
+
+		/* test */
+		BashScriptTimings timings = model.getTimings();
+		assertNotNull(timings);
+		assertEquals(model.getDebugTokens().size(), timings.getTokenCount());
+		assertEquals(2, timings.getFunctionCount());
+	}
+
+	@Test
+	public void every_model_has_own_timings() {
+		/* prepare */
+		modelBuilder.setTimingsEnabled(true);
+
+		/* execute */
+		BashScriptModel model1 = modelBuilder.build("function a(){\n}");
+		BashScriptModel model2 = modelBuilder.build("function a(){\n}\nfunction b(){\n}");
+		model2.getFunctions();
+		model1.getFunctions();
+
+		/* test */
+		assertNotSame(model1.getTimings(), model2.getTimings());
+		assertEquals(1, model1.getTimings().getFunctionCount());
+		assertEquals(2, model2.getTimings().getFunctionCount());
+	}
+
+	@Test
+	public void validator_timings_are_recorded_only_for_enabled_validators() {
+		/* prepare */
+		modelBuilder.setTimingsEnabled(true);
+		modelBuilder.setIgnoreDoValidation(true);
+
+		/* execute */
+		BashScriptModel model = modelBuilder.build("if [ x ]; then\nfi");
+		model.getErrors();
+
+		/* test */
+		BashScriptTimings timings = model.getTimings();
+		assertTrue(timings.getValidatorNanos("IfEndsWithFiValidator") >= 0);
+		assertEquals(-1, timings.getValidatorNanos("DoEndsWithDoneValidator"));
+	}
+
+	@Test
+	public void summary_contains_counts_and_mode() {
+		/* prepare */
+		timings.recordLex(1500000, 12);
+		timings.recordModelBuild(200000, 3);
+
+		/* execute */
+		String summary = timings.createSummary("normal");
+
+		/* test */
+		assertTrue(summary, summary.startsWith("lex 1.5 ms, model 0.2 ms"));
+		assertTrue(summary, summary.contains("12 tokens"));
+		assertTrue(summary, summary.contains("3 functions"));
+		assertTrue(summary, summary.endsWith("normal mode"));
+	}
+}
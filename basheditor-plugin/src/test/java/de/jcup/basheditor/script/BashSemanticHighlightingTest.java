@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.script.BashSemanticHighlighting.SemanticType;
+
+public class BashSemanticHighlightingTest {
+
+	private BashScriptModelBuilder modelBuilder;
+
+	@Before
+	public void before() {
+		modelBuilder = new BashScriptModelBuilder();
+	}
+
+	@Test
+	public void function_declaration_and_call_are_highlighted() {
+		/* prepare */
+		String code = "function doit() {\n}\ndoit";
+
+		/* execute */
+		BashSemanticHighlighting highlighting = create(code);
+
+		/* test */
+		assertEquals(2, highlighting.size());
+		assertRange(highlighting, 0, code.indexOf("doit"), 4, SemanticType.FUNCTION_DECLARATION);
+		assertRange(highlighting, 1, code.lastIndexOf("doit"), 4, SemanticType.FUNCTION_CALL);
+	}
+
+	@Test
+	public void defined_and_undefined_variables_are_highlighted() {
+		/* prepare */
+		String code = "a=1\necho $a $b";
+
+		/* execute */
+		BashSemanticHighlighting highlighting = create(code);
+
+		/* test */
+		assertEquals(3, highlighting.size());
+		assertRange(highlighting, 0, 0, 1, SemanticType.DEFINED_VARIABLE);
+		assertRange(highlighting, 1, code.indexOf("$a") + 1, 1, SemanticType.DEFINED_VARIABLE);
+		assertRange(highlighting, 2, code.indexOf("$b") + 1, 1, SemanticType.UNDEFINED_VARIABLE);
+	}
+
+	@Test
+	public void empty_script_has_empty_highlighting() {
+		/* execute */
+		BashSemanticHighlighting highlighting = create("");
+
+		/* test */
+		assertEquals(0, highlighting.size());
+	}
+
+	@Test
+	public void index_of_first_ending_after_finds_ranges_by_binary_search() {
+		/* prepare */
+		String code = "a=1\necho $a $b";
+		BashSemanticHighlighting highlighting = create(code);
+
+		/* execute + test */
+		assertEquals(0, highlighting.indexOfFirstEndingAfter(0));
+		assertEquals(1, highlighting.indexOfFirstEndingAfter(1));
+		assertEquals(1, highlighting.indexOfFirstEndingAfter(code.indexOf("$a") + 1));
+		assertEquals(2, highlighting.indexOfFirstEndingAfter(code.indexOf("$a") + 2));
+		assertEquals(3, highlighting.indexOfFirstEndingAfter(code.length()));
+	}
+
+	@Test
+	public void same_highlighting_has_no_changed_range() {
+		/* prepare */
+		String code = "a=1\necho $a $b";
+
+		/* execute */
+		int[] changed = create(code).computeChangedRange(create(code), 0);
+
+		/* test */
+		assertNull(changed);
+	}
+
+	@Test
+	public void ranges_only_moved_by_an_edit_before_are_not_changed() {
+		/* prepare */
+		String oldCode = "a=1\necho $a $b";
+		String newCode = "a=1\necho xyz $a $b";
+
+		/* execute */
+		int[] changed = create(newCode).computeChangedRange(create(oldCode), newCode.length() - oldCode.length());
+
+		/* test */
+		assertNull(changed);
+	}
+
+	@Test
+	public void changed_range_contains_only_ranges_with_changed_facts() {
+		/* prepare */
+		String oldCode = "a=1\necho $a $b\necho $a";
+		String newCode = "a=1\nb=2\necho $a $b\necho $a";
+
+		/* execute */
+		int[] changed = create(newCode).computeChangedRange(create(oldCode), newCode.length() - oldCode.length());
+
+		/* test */
+		assertNotNull(changed);
+		assertEquals(newCode.indexOf("b=2"), changed[0]);
+		assertEquals(newCode.indexOf("$b") + 2, changed[1]);
+	}
+
+	@Test
+	public void removed_range_is_reported_inside_new_document() {
+		/* prepare */
+		String oldCode = "echo $a $b";
+		String newCode = "echo $a";
+
+		/* execute */
+		int[] changed = create(newCode).computeChangedRange(create(oldCode), newCode.length() - oldCode.length());
+
+		/* test */
+		assertNotNull(changed);
+		assertEquals(oldCode.indexOf("$b") + 1, changed[0]);
+	}
+
+	private void assertRange(BashSemanticHighlighting highlighting, int index, int offset, int length,
+			SemanticType type) {
+		assertEquals(offset, highlighting.getOffset(index));
+		assertEquals(length, highlighting.getLength(index));
+		assertEquals(type, highlighting.getType(index));
+	}
+
+	private BashSemanticHighlighting create(String code) {
+		return BashSemanticHighlighting.create(modelBuilder.build(code).getSymbolIndex());
+	}
+}
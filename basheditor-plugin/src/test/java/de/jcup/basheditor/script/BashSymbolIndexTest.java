@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.jcup.basheditor.script.BashSymbol.SymbolType;
+
+public class BashSymbolIndexTest {
+
+	private BashScriptModelBuilder modelBuilder;
+
+	@Before
+	public void before() {
+		modelBuilder = new BashScriptModelBuilder();
+	}
+
+	@Test
+	public void variable_assignment_and_usages_are_indexed() {
+		/* prepare */
+		String code = "a=1\necho $a ${a} \"x$a\" ${#a}";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		int[] offsets = index.getOffsets(new BashSymbol(SymbolType.VARIABLE, "a"));
+		assertEquals(5, offsets.length);
+		assertEquals(0, offsets[0]);
+		assertEquals(code.indexOf("$a") + 1, offsets[1]);
+		assertEquals(code.indexOf("${a}") + 2, offsets[2]);
+		assertEquals(code.indexOf("x$a") + 2, offsets[3]);
+		assertEquals(code.indexOf("${#a}") + 3, offsets[4]);
+	}
+
+	@Test
+	public void variables_inside_single_strings_and_comments_are_not_indexed() {
+		/* prepare */
+		String code = "echo '$a' # $a";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertEquals(0, index.getOffsets(new BashSymbol(SymbolType.VARIABLE, "a")).length);
+	}
+
+	@Test
+	public void local_and_for_declarations_are_indexed() {
+		/* prepare */
+		String code = "local x\nfor i in 1 2; do\necho $i $x\ndone";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertArrayEquals(new int[] { code.indexOf("x"), code.indexOf("$x") + 1 },
+				index.getOffsets(new BashSymbol(SymbolType.VARIABLE, "x")));
+		assertArrayEquals(new int[] { code.indexOf("i "), code.indexOf("$i") + 1 },
+				index.getOffsets(new BashSymbol(SymbolType.VARIABLE, "i")));
+	}
+
+	@Test
+	public void special_parameters_are_not_indexed() {
+		/* prepare */
+		String code = "echo $1 $? $@";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertTrue(index.getSymbols().isEmpty());
+	}
+
+	@Test
+	public void function_definition_and_calls_are_indexed() {
+		/* prepare */
+		String code = "function foo() {\necho a\n}\nfoo\necho foo";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		int[] offsets = index.getOffsets(new BashSymbol(SymbolType.FUNCTION, "foo"));
+		assertArrayEquals(new int[] { code.indexOf("foo"), code.indexOf("\nfoo") + 1, code.lastIndexOf("foo") },
+				offsets);
+	}
+
+	@Test
+	public void symbol_at_offset_is_resolved_inside_and_directly_after_name() {
+		/* prepare */
+		String code = "abc=1\necho $abc";
+		int usage = code.indexOf("$abc") + 1;
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		BashSymbol expected = new BashSymbol(SymbolType.VARIABLE, "abc");
+		assertEquals(expected, index.getSymbolAt(0));
+		assertEquals(expected, index.getSymbolAt(3));
+		assertNull(index.getSymbolAt(4));
+		assertNull(index.getSymbolAt(code.indexOf("echo") + 1));
+		assertEquals(expected, index.getSymbolAt(usage + 1));
+		assertEquals(expected, index.getSymbolAt(code.length()));
+	}
+
+	@Test
+	public void first_assignment_is_declaration_of_variable() {
+		/* prepare */
+		String code = "echo $a\na=1\na=2";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertEquals(code.indexOf("a=1"), index.getDeclarationOffset(new BashSymbol(SymbolType.VARIABLE, "a")));
+	}
+
+	@Test
+	public void function_definition_is_declaration_of_function_but_call_is_not() {
+		/* prepare */
+		String code = "foo\nfunction foo() {\n}";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertEquals(code.lastIndexOf("foo"), index.getDeclarationOffset(new BashSymbol(SymbolType.FUNCTION, "foo")));
+	}
+
+	@Test
+	public void undeclared_variable_has_no_declaration_offset() {
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build("echo $HOME").getSymbolIndex();
+
+		/* test */
+		assertEquals(-1, index.getDeclarationOffset(new BashSymbol(SymbolType.VARIABLE, "HOME")));
+	}
+
+	@Test
+	public void occurrence_offset_is_start_of_name() {
+		/* prepare */
+		String code = "echo ${abc}";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertEquals(code.indexOf("abc"), index.getOccurrenceOffset(code.indexOf("bc")));
+		assertEquals(-1, index.getOccurrenceOffset(1));
+	}
+
+	@Test
+	public void names_are_available_by_type() {
+		/* prepare */
+		String code = "function foo() {\n}\nfirst=1\nfoo $second";
+
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build(code).getSymbolIndex();
+
+		/* test */
+		assertEquals(Arrays.asList("foo"), index.getNames(SymbolType.FUNCTION).findByPrefix("", 10));
+		assertEquals(Arrays.asList("first", "second"), index.getNames(SymbolType.VARIABLE).findByPrefix("", 10));
+		assertSame(index.getNames(SymbolType.VARIABLE), index.getNames(SymbolType.VARIABLE));
+	}
+
+	@Test
+	public void unknown_symbol_has_no_offsets() {
+		/* execute */
+		BashSymbolIndex index = modelBuilder.build("echo a").getSymbolIndex();
+
+		/* test */
+		assertEquals(0, index.getOffsets(new BashSymbol(SymbolType.FUNCTION, "a")).length);
+		assertNull(index.getSymbolAt(0));
+	}
+}
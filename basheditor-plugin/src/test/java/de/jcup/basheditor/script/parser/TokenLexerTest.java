@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 Albert Tregnaghi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *		http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions
+ * and limitations under the License.
+ *
+ */
+package de.jcup.basheditor.script.parser;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TokenLexerTest {
+
+	private static final String SCRIPT = "#!/bin/bash\n" + "# comment\n" + "function a() {\n"
+			+ "  local x=\"multi\n line $y\"\n" + "  echo ${x} $(ls -l 'a b') $$\n" + "}\n" + "HOME=/tmp\n"
+			+ "a\r\n" + "echo `date`";
+
+	@Test
+	public void lexer_creates_same_tokens_as_parser() {
+		/* prepare */
+		List<ParseToken> expected = new TokenParser().parse(SCRIPT);
+
+		/* execute */
+		List<ParseToken> tokens = lexAll(new TokenLexer(SCRIPT, 0));
+
+		/* test */
+		assertEquals(expected.size(), tokens.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getText(), tokens.get(i).getText());
+			assertEquals(expected.get(i).getStart(), tokens.get(i).getStart());
+			assertEquals(expected.get(i).getEnd(), tokens.get(i).getEnd());
+		}
+	}
+
+	@Test
+	public void text_start_and_end_are_exact_positions_of_token_text() {
+		/* prepare */
+		TokenLexer lexer = new TokenLexer(SCRIPT, 0);
+
+		/* execute + test */
+		ParseToken token = null;
+		while ((token = lexer.next()) != null) {
+			String text = SCRIPT.substring(lexer.getTextStart(token), lexer.getTextEnd(token));
+			assertEquals(token.getText(), text);
+		}
+	}
+
+	@Test
+	public void lexer_is_not_clean_at_line_start_inside_multi_line_string() {
+		/* prepare */
+		TokenLexer lexer = new TokenLexer(SCRIPT, 0);
+		int lineInsideString = SCRIPT.indexOf(" line $y");
+
+		/* execute */
+		while (lexer.getPosition() < lineInsideString && lexer.step()) {
+			/* just lex */
+		}
+
+		/* test */
+		assertEquals(lineInsideString, lexer.getPosition());
+		assertFalse(lexer.isClean());
+	}
+
+	@Test
+	public void lexing_started_at_clean_line_start_creates_same_tokens_as_complete_lexing() {
+		/* prepare */
+		int lineStart = SCRIPT.indexOf("  echo ${x}");
+		TokenLexer lexer = new TokenLexer(SCRIPT, 0);
+		while (lexer.getPosition() < lineStart && lexer.step()) {
+			/* just lex */
+		}
+		assertTrue(lexer.isClean());
+		List<ParseToken> expected = new ArrayList<>();
+		ParseToken token = null;
+		while ((token = lexer.next()) != null) {
+			if (lexer.getTextStart(token) >= lineStart) {
+				expected.add(token);
+			}
+		}
+
+		/* execute */
+		List<ParseToken> tokens = lexAll(new TokenLexer(SCRIPT, lineStart));
+
+		/* test */
+		assertEquals(expected.size(), tokens.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getText(), tokens.get(i).getText());
+			assertEquals(expected.get(i).getStart(), tokens.get(i).getStart());
+		}
+	}
+
+	@Test
+	public void empty_script_has_no_tokens() {
+		/* execute */
+		List<ParseToken> tokens = lexAll(new TokenLexer("", 0));
+
+		/* test */
+		assertTrue(tokens.isEmpty());
+	}
+
+	private List<ParseToken> lexAll(TokenLexer lexer) {
+		List<ParseToken> tokens = new ArrayList<>();
+		ParseToken token = null;
+		while ((token = lexer.next()) != null) {
+			tokens.add(token);
+		}
+		return tokens;
+	}
+}
@@ -36,6 +36,24 @@ public class TokenParserTest {
 		parserToTest = new TokenParser();
 	}
 
+	@Test
+	public void char_sequence_is_parsed_same_way_as_string() {
+		/* prepare */
+		String string = "function a(){\n echo \"x $b\" # comment\n}";
+		StringBuilder sequence = new StringBuilder(string);
+
+		/* execute */
+		List<ParseToken> tokens = parserToTest.parse(sequence);
+
+		/* test */
+		List<ParseToken> expected = parserToTest.parse(string);
+		assertEquals(expected.size(), tokens.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getText(), tokens.get(i).getText());
+			assertEquals(expected.get(i).getStart(), tokens.get(i).getStart());
+		}
+	}
+
 	@Test
 	public void bracket_bracket_1_plus_1_bracket_close_close__recognized() {
 		/* prepare */
@@ -83,7 +101,7 @@ public class TokenParserTest {
 	public void moveUntilNextCharWillBeNoStringContent_no_string_contend_handled_as_expected() {
 		/* prepare */
 		ParseContext context = new ParseContext();
-		context.chars = "$(tput 'STRING')".toCharArray();
+		context.chars = "$(tput 'STRING')";
 		context.pos = 2;// at t(put)
 
 		/* execute */
@@ -137,7 +155,7 @@ public class TokenParserTest {
 			int expectedNextPos) {
 		/* prepare */
 		ParseContext context = new ParseContext();
-		context.chars = code.toCharArray();
+		context.chars = code;
 		context.pos = codePos;
 
 		/* execute */